@@ -59,6 +59,16 @@ public class Main {
             new Flag("General", "nostdimport",
                     "Prevents the compiler from importing standard uses modules.");
 
+    public static final String FLAG_PARSE_CACHE_ARG_NAME = "directory";
+
+    public static final Flag FLAG_PARSE_CACHE =
+            new Flag("General", "parsecache",
+                    "Keeps the parse trees of modules in the given directory, "
+                            + "so that unchanged modules are not parsed again "
+                            + "by later runs.",
+                    new String[] { FLAG_PARSE_CACHE_ARG_NAME },
+                    Flag.Type.HIDDEN);
+
     //private static boolean      bodies      = false;
     private static boolean compileDirs = false;
     private static String mainDirName = "Main";
@@ -94,10 +94,21 @@ public abstract class Exp extends ResolveConceptualElement implements Cloneable
     public final Exp substitute(java.util.Map<Exp, Exp> substitutions) {
         Exp retval;
 
+        if (substitutions.size() >= IndexedSubstitutions.THRESHOLD
+                && !(substitutions instanceof IndexedSubstitutions)) {
+            //Index the keys once for the whole tree, rather than trying every
+            //key at every node
+            substitutions = new IndexedSubstitutions(substitutions);
+        }
+
         boolean match = false;
 
         java.util.Map.Entry<Exp, Exp> curEntry = null;
-        if (substitutions.size() > 0) {
+        if (substitutions instanceof IndexedSubstitutions) {
+            curEntry = ((IndexedSubstitutions) substitutions).findMatch(this);
+            match = (curEntry != null);
+        }
+        else if (substitutions.size() > 0) {
             Set<java.util.Map.Entry<Exp, Exp>> entries =
                     substitutions.entrySet();
             Iterator<java.util.Map.Entry<Exp, Exp>> entryIter =
@@ -115,14 +126,14 @@ public abstract class Exp extends ResolveConceptualElement implements Cloneable
                 	System.out.println(" [ No] ");
                 }*/
             }
+        }
 
-            if (match) {
-                //System.out.println(curEntry.getKey().toString(0) + " --> " + curEntry.getValue().toString(0));
-                retval = curEntry.getValue();
-            }
-            else {
-                retval = Exp.substituteChildren(this, substitutions);
-            }
+        if (match) {
+            //System.out.println(curEntry.getKey().toString(0) + " --> " + curEntry.getValue().toString(0));
+            retval = curEntry.getValue();
+        }
+        else if (substitutions.size() > 0) {
+            retval = Exp.substituteChildren(this, substitutions);
         }
         else {
             retval = Exp.copy(this);
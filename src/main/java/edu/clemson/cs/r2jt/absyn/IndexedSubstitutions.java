@@ -0,0 +1,228 @@
+/**
+ * IndexedSubstitutions.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.absyn;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.clemson.cs.r2jt.data.PosSymbol;
+
+/**
+ * <p>A read-only view of a substitution map that also indexes its keys, so
+ * that <code>Exp.substitute()</code> can find the keys that might be
+ * <code>equivalent()</code> to a node without trying every key at every node
+ * of the tree.</p>
+ *
+ * <p>Keys of the classes below, whose <code>equivalent()</code> requires the
+ * same class and the same name, operator or value, are bucketed by that
+ * class and that name, operator or value. Every other key is tried at every
+ * node, as before. Candidates are tried in the order of the underlying map,
+ * so the first key to match is the same one a linear scan would find.</p>
+ *
+ * <p>The view is passed down through <code>substituteChildren()</code> in
+ * place of the original map, so the index is built once per top-level
+ * substitution.</p>
+ */
+final class IndexedSubstitutions extends AbstractMap<Exp, Exp> {
+
+    /**
+     * <p>Maps smaller than this are simply scanned.</p>
+     */
+    static final int THRESHOLD = 4;
+
+    private static final Class<?>[] INDEXED_CLASSES =
+            { VarExp.class, FunctionExp.class, InfixExp.class, PrefixExp.class,
+                    IntegerExp.class, VariableNameExp.class, EqualsExp.class,
+                    OutfixExp.class };
+
+    private final Map<Exp, Exp> mySubstitutions;
+    private final List<Map.Entry<Exp, Exp>> myEntries;
+
+    /**
+     * <p>Positions in <code>myEntries</code>, ascending, per bucket.</p>
+     */
+    private final Map<BucketKey, List<Integer>> myBuckets;
+
+    /**
+     * <p>Positions in <code>myEntries</code>, ascending, of the keys that
+     * could not be bucketed.</p>
+     */
+    private final List<Integer> myUnindexed;
+
+    IndexedSubstitutions(Map<Exp, Exp> substitutions) {
+        mySubstitutions = substitutions;
+        myEntries =
+                new ArrayList<Map.Entry<Exp, Exp>>(substitutions.entrySet());
+        myBuckets = new HashMap<BucketKey, List<Integer>>();
+        myUnindexed = new ArrayList<Integer>();
+
+        for (int i = 0; i < myEntries.size(); i++) {
+            Exp key = myEntries.get(i).getKey();
+            Class<?> keyClass = indexedClass(key.getClass());
+
+            if (keyClass == null) {
+                myUnindexed.add(i);
+            }
+            else {
+                BucketKey bucketKey = new BucketKey(keyClass, key);
+                List<Integer> bucket = myBuckets.get(bucketKey);
+                if (bucket == null) {
+                    bucket = new ArrayList<Integer>(1);
+                    myBuckets.put(bucketKey, bucket);
+                }
+                bucket.add(i);
+            }
+        }
+    }
+
+    /**
+     * <p>Returns the first entry, in the order of the underlying map, whose
+     * key is <code>equivalent()</code> to <code>e</code>, or
+     * <code>null</code> if there is none.</p>
+     */
+    Map.Entry<Exp, Exp> findMatch(Exp e) {
+        int best = Integer.MAX_VALUE;
+
+        // The key's equivalent() accepts instances of its class, so look in
+        // the bucket of every indexed class e is an instance of
+        Class<?> c = e.getClass();
+        while (c != Exp.class) {
+            if (indexedClass(c) == c) {
+                List<Integer> bucket = myBuckets.get(new BucketKey(c, e));
+                if (bucket != null) {
+                    best = findFirstMatch(bucket, e, best);
+                }
+            }
+            c = c.getSuperclass();
+        }
+
+        // Only keys before the best match so far would have been tried
+        best = findFirstMatch(myUnindexed, e, best);
+
+        return best == Integer.MAX_VALUE ? null : myEntries.get(best);
+    }
+
+    private int findFirstMatch(List<Integer> positions, Exp e, int before) {
+        int result = before;
+
+        for (int i = 0; i < positions.size() && positions.get(i) < result; i++) {
+            if (myEntries.get(positions.get(i)).getKey().equivalent(e)) {
+                result = positions.get(i);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public Exp get(Object key) {
+        return mySubstitutions.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return mySubstitutions.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return mySubstitutions.size();
+    }
+
+    @Override
+    public Set<Map.Entry<Exp, Exp>> entrySet() {
+        return mySubstitutions.entrySet();
+    }
+
+    private static Class<?> indexedClass(Class<?> c) {
+        Class<?> result = null;
+
+        for (int i = 0; i < INDEXED_CLASSES.length && result == null; i++) {
+            if (INDEXED_CLASSES[i] == c) {
+                result = c;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>An indexed class together with the part of an <code>Exp</code> of
+     * that class that its <code>equivalent()</code> compares by value.</p>
+     */
+    private static final class BucketKey {
+
+        private final Class<?> myClass;
+        private final Object myDiscriminator;
+
+        public BucketKey(Class<?> c, Exp e) {
+            myClass = c;
+
+            if (c == VarExp.class) {
+                myDiscriminator = name(((VarExp) e).getName());
+            }
+            else if (c == FunctionExp.class) {
+                myDiscriminator = name(((FunctionExp) e).getName());
+            }
+            else if (c == InfixExp.class) {
+                myDiscriminator = name(((InfixExp) e).getOpName());
+            }
+            else if (c == PrefixExp.class) {
+                myDiscriminator = name(((PrefixExp) e).getSymbol());
+            }
+            else if (c == VariableNameExp.class) {
+                myDiscriminator = name(((VariableNameExp) e).getName());
+            }
+            else if (c == IntegerExp.class) {
+                myDiscriminator = ((IntegerExp) e).getValue();
+            }
+            else if (c == EqualsExp.class) {
+                myDiscriminator = ((EqualsExp) e).getOperator();
+            }
+            else {
+                myDiscriminator = ((OutfixExp) e).getOperator();
+            }
+        }
+
+        private static String name(PosSymbol s) {
+            return s == null ? null : s.getName();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            boolean result = (o instanceof BucketKey);
+
+            if (result) {
+                BucketKey oAsBucketKey = (BucketKey) o;
+                result =
+                        myClass == oAsBucketKey.myClass
+                                && (myDiscriminator == null ? oAsBucketKey.myDiscriminator == null
+                                        : myDiscriminator
+                                                .equals(oAsBucketKey.myDiscriminator));
+            }
+
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31
+                    * myClass.hashCode()
+                    + (myDiscriminator == null ? 0 : myDiscriminator.hashCode());
+        }
+    }
+}
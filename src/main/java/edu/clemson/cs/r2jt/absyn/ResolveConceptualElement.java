@@ -18,8 +18,9 @@ import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import edu.clemson.cs.r2jt.collections.List;
 import edu.clemson.cs.r2jt.data.AsStringCapability;
 import edu.clemson.cs.r2jt.data.Location;
 import java.lang.reflect.ParameterizedType;
@@ -42,20 +43,72 @@ public abstract class ResolveConceptualElement implements AsStringCapability {
         }
     }
 
+    /**
+     * <p>The fields of each AST class that hold children, found by reflection
+     * the first time a node of that class is asked for its children.</p>
+     */
+    private static final Map<Class<?>, ChildField[]> CHILD_FIELDS =
+            new ConcurrentHashMap<Class<?>, ChildField[]>();
+
     public java.util.List<ResolveConceptualElement> getChildren() {
+        ChildField[] childFields = getChildFields(this.getClass());
+
+        java.util.List<ResolveConceptualElement> children =
+                new ArrayList<ResolveConceptualElement>(childFields.length);
+
+        try {
+            for (ChildField childField : childFields) {
+                Object value = childField.myField.get(this);
+
+                // is this member a ResolveConceptualElement?
+                // if so, add it as a child
+                if (childField.myListType == null) {
+                    children.add(ResolveConceptualElement.class.cast(value));
+                }
+                // it is a list of ResolveConceptualElements, add the elements
+                // to the list of children
+                else {
+                    java.util.List<ResolveConceptualElement> fieldList =
+                            (java.util.List<ResolveConceptualElement>) value;
+                    if (fieldList != null && fieldList.size() > 0) {
+                        children.add(new VirtualListNode(
+                                childField.myListNodeName, this, fieldList,
+                                childField.myListType));
+                    }
+                }
+            }
+        }
+        catch (IllegalAccessException iae) {
+            //Shouldn't be possible, the fields were made accessible
+            throw new RuntimeException(iae);
+        }
+
+        return children;
+    }
+
+    private static ChildField[] getChildFields(Class<?> c) {
+        ChildField[] result = CHILD_FIELDS.get(c);
+
+        if (result == null) {
+            result = findChildFields(c);
+            CHILD_FIELDS.put(c, result);
+        }
+
+        return result;
+    }
+
+    private static ChildField[] findChildFields(Class<?> c) {
 
         //We'd like to hit the fields in the order they appear in the class,
         //starting with the most general class and getting more specific.  So,
         //we build a stack of the class hierarchy of this instance
         Deque<Class<?>> hierarchy = new LinkedList<Class<?>>();
-        Class<?> curClass = this.getClass();
+        Class<?> curClass = c;
         do {
             hierarchy.push(curClass);
             curClass = curClass.getSuperclass();
         } while (curClass != ResolveConceptualElement.class);
 
-        List<ResolveConceptualElement> children =
-                new List<ResolveConceptualElement>();
         // get a list of all the declared and inherited members of that class
         ArrayList<Field> fields = new ArrayList<Field>();
         while (!hierarchy.isEmpty()) {
@@ -66,63 +119,55 @@ public abstract class ResolveConceptualElement implements AsStringCapability {
             for (int i = 0; i < curFields.length; ++i) {
                 fields.add(curFields[i]);
             }
-            curClass = curClass.getSuperclass();
         }
 
         // loop through all the class members
+        ArrayList<ChildField> childFields = new ArrayList<ChildField>();
         Iterator<Field> iterFields = fields.iterator();
         while (iterFields.hasNext()) {
             Field curField = iterFields.next();
 
             if (!Modifier.isStatic(curField.getModifiers())) {
 
-                curField.setAccessible(true);
                 Class<?> fieldType = curField.getType();
 
-                try {
-                    // is this member a ResolveConceptualElement?
-                    // if so, add it as a child
-                    if (ResolveConceptualElement.class
-                            .isAssignableFrom(fieldType)) {
-                        //System.out.println("Walking: " + curField.getName());
-                        children.add(ResolveConceptualElement.class
-                                .cast(curField.get(this)));
-                    }
-                    // is this member a list of ResolveConceptualElements?
-                    // if so, add the elements to the list of children
-                    else if (java.util.List.class.isAssignableFrom(fieldType)) {
-                        Class<?> listOf =
-                                (Class<?>) ((ParameterizedType) curField
-                                        .getGenericType())
-                                        .getActualTypeArguments()[0];
-                        java.util.List<?> fieldList =
-                                java.util.List.class.cast(curField.get(this));
-                        if (fieldList != null
-                                && fieldList.size() > 0
-                                && ResolveConceptualElement.class
-                                        .isAssignableFrom(listOf)) {
-                            children
-                                    .add(new VirtualListNode(
-                                            this,
-                                            curField.getName(),
-                                            (java.util.List<ResolveConceptualElement>) fieldList,
-                                            (Class<?>) ((ParameterizedType) curField
-                                                    .getGenericType())
-                                                    .getActualTypeArguments()[0]));
-                        }
-                    }
+                // is this member a ResolveConceptualElement?
+                if (ResolveConceptualElement.class.isAssignableFrom(fieldType)) {
+                    curField.setAccessible(true);
+                    childFields.add(new ChildField(curField, null, null));
                 }
-                catch (Exception ex) {
-                    if (ex instanceof RuntimeException) {
-                        throw (RuntimeException) ex;
-                    }
-                    else {
-                        throw new RuntimeException(ex);
+                // is this member a list of ResolveConceptualElements?
+                else if (java.util.List.class.isAssignableFrom(fieldType)) {
+                    Class<?> listOf =
+                            (Class<?>) ((ParameterizedType) curField
+                                    .getGenericType()).getActualTypeArguments()[0];
+                    if (ResolveConceptualElement.class.isAssignableFrom(listOf)) {
+                        curField.setAccessible(true);
+                        childFields.add(new ChildField(curField, listOf,
+                                VirtualListNode.getNodeName(c, curField
+                                        .getName())));
                     }
                 }
             }
         }
 
-        return children;
+        return childFields.toArray(new ChildField[childFields.size()]);
+    }
+
+    /**
+     * <p>A field holding either a single child or, when
+     * <code>myListType</code> is set, a list of children.</p>
+     */
+    private static class ChildField {
+
+        public final Field myField;
+        public final Class<?> myListType;
+        public final String myListNodeName;
+
+        public ChildField(Field field, Class<?> listType, String listNodeName) {
+            myField = field;
+            myListType = listType;
+            myListNodeName = listNodeName;
+        }
     }
 }
@@ -27,12 +27,25 @@ public class VirtualListNode extends ResolveConceptualElement {
 
     public VirtualListNode(ResolveConceptualElement parent, String listName,
             List<ResolveConceptualElement> list, Class<?> listType) {
+        this(getNodeName(parent.getClass(), listName), parent, list, listType);
+    }
+
+    /**
+     * <p>For callers that already have the node name, as computed by
+     * {@link #getNodeName(Class, String)}.</p>
+     */
+    VirtualListNode(String nodeName, ResolveConceptualElement parent,
+            List<ResolveConceptualElement> list, Class<?> listType) {
         this.myParent = parent;
-        this.myName = parent.getClass().getSimpleName() + toCamelCase(listName);
+        this.myName = nodeName;
         this.myList = list;
         this.myListType = listType;
     }
 
+    static String getNodeName(Class<?> parentClass, String listName) {
+        return parentClass.getSimpleName() + toCamelCase(listName);
+    }
+
     public ResolveConceptualElement getParent() {
         return myParent;
     }
@@ -66,7 +79,7 @@ public class VirtualListNode extends ResolveConceptualElement {
         throw new UnsupportedOperationException("Not supported yet.");
     }
 
-    private String toCamelCase(String s) {
+    private static String toCamelCase(String s) {
         StringBuilder buffer = new StringBuilder();
         StringTokenizer tokens = new StringTokenizer(s, "_");
         while (tokens.hasMoreTokens()) {
@@ -12,10 +12,12 @@
  */
 package edu.clemson.cs.r2jt.absynnew;
 
+import edu.clemson.cs.r2jt.misc.HandlerCache;
+import edu.clemson.cs.r2jt.misc.Utils.Mapping;
+
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -26,6 +28,20 @@ import java.util.List;
  */
 public class TreeWalker {
 
+    /**
+     * <p>The walk, pre, mid and post visitor methods found for each
+     * combination of visitor class, prefix and node class, so a visitor
+     * method is only looked up by name the first time it is needed.</p>
+     */
+    private static final HandlerCache HANDLERS =
+            new HandlerCache(new Mapping<HandlerCache.Key, Method[]>() {
+
+                @Override
+                public Method[] map(HandlerCache.Key key) {
+                    return findMethods(key);
+                }
+            });
+
     private final TreeWalkerVisitor myVisitor;
 
     /**
@@ -78,126 +94,103 @@ public class TreeWalker {
     }
 
     private void invokeVisitorMethods(String prefix, ResolveAST... e) {
-        boolean pre = prefix.equals("pre"), post = prefix.equals("post"), mid =
-                prefix.equals("mid");
+        boolean pre = prefix.equals("pre"), post = prefix.equals("post");
 
         // Invoke generic visitor methods (preAny, postAny)
         if (pre) {
             myVisitor.preAny(e[0]);
         }
 
-        // Get the heirarchy of classes from which this node inherits
-        // e.g., [ConceptModuleDec, ModuleDec, Dec, ResolveConceptualElement]
-        Class<?> elementClass = e[0].getClass();
-        ArrayList<Class<?>> classHierarchy = new ArrayList<Class<?>>();
-
-        if (pre || post) {
-            while (elementClass != ResolveAST.class) {
-                if (post) {
-                    classHierarchy.add(elementClass);
-                }
-                else {
-                    classHierarchy.add(0, elementClass);
-                }
-                elementClass = elementClass.getSuperclass();
-            }
-        }
-        else {
-            classHierarchy.add(elementClass);
+        for (Method visitorMethod : getHandlers(prefix, e[0])) {
+            // Invoking the visitor method now!!!
+            invoke(visitorMethod, (Object[]) e);
         }
 
-        // Iterate over the class hierarchy
-        Iterator<Class<?>> iter = classHierarchy.iterator();
-        while (iter.hasNext()) {
-            Class<?> currentClass = iter.next();
-
-            // Construct name of method
-            String className, methodName;
+        if (post) {
+            myVisitor.postAny(e[0]);
+        }
+    }
 
-            className = currentClass.getSimpleName();
-            methodName = prefix + className;
+    private boolean walkOverride(ResolveAST e) {
+        Method[] walkMethods = getHandlers("walk", e);
 
-            ResolveAST[] parent = Arrays.copyOf(e, e.length);
-            // Get parent and child types if this is a list node
-            Class<?> paramType = ResolveAST.class;
+        boolean foundOverride = false;
+        for (int i = 0; i < walkMethods.length && !foundOverride; i++) {
+            foundOverride = ((Boolean) invoke(walkMethods[i], e));
+        }
+        return foundOverride;
+    }
 
-            // Now try to obtain the proper visitor method
-            try {
-                Method visitorMethod;
-                if (pre || post) { // pre and post methods
-                    visitorMethod =
-                            this.myVisitor.getClass().getMethod(methodName,
-                                    currentClass);
-                }
-                else { // mid methods
-                    visitorMethod =
-                            this.myVisitor.getClass().getMethod(methodName,
-                                    currentClass, paramType, paramType);
-                }
-                // Invoking the visitor method now!!!
-                visitorMethod.invoke(this.myVisitor, (Object[]) parent);
-            }
-            catch (NoSuchMethodException nsme) {
-                throw new RuntimeException(nsme);
-            }
-            catch (IllegalAccessException iae) {
-                throw new RuntimeException(iae);
-            }
-            catch (InvocationTargetException ite) {
-                Throwable iteCause = ite.getCause();
+    private Method[] getHandlers(String prefix, ResolveAST e) {
+        return HANDLERS.get(new HandlerCache.Key(myVisitor.getClass(), prefix,
+                e.getClass()));
+    }
 
-                if (iteCause instanceof RuntimeException) {
-                    throw (RuntimeException) iteCause;
-                }
+    private Object invoke(Method m, Object... args) {
+        try {
+            return m.invoke(this.myVisitor, args);
+        }
+        catch (IllegalAccessException iae) {
+            //Shouldn't be possible
+            throw new RuntimeException(iae);
+        }
+        catch (InvocationTargetException ite) {
+            //An exception was thrown inside the corresponding visitor method
+            Throwable iteCause = ite.getCause();
 
-                throw new RuntimeException(iteCause);
+            if (iteCause instanceof RuntimeException) {
+                throw (RuntimeException) iteCause;
             }
-        }
 
-        if (post) {
-            myVisitor.postAny(e[0]);
+            throw new RuntimeException(iteCause);
         }
     }
 
-    private boolean walkOverride(ResolveAST e) {
-        Class<?> elementClass = e.getClass();
-        ArrayList<Class<?>> classHierarchy = new ArrayList<Class<?>>();
-        while (elementClass != ResolveAST.class) {
-            classHierarchy.add(0, elementClass);
-            elementClass = elementClass.getSuperclass();
+    /**
+     * <p>Finds the handlers of one kind that a visitor class has for one node
+     * class, in the order they are to be called: <tt>walk</tt> and
+     * <tt>pre</tt> from the most general node class down, <tt>post</tt> from
+     * the node class up, and <tt>mid</tt> for the node class alone.</p>
+     */
+    private static Method[] findMethods(HandlerCache.Key key) {
+        String prefix = key.getPrefix();
+        Class<?> nodeClass = key.getNodeClass();
+
+        Method[] result;
+        if (prefix.equals("mid")) {
+            result =
+                    new Method[] { findMethod(key, nodeClass, nodeClass,
+                            ResolveAST.class, ResolveAST.class) };
         }
-
-        boolean foundOverride = false;
-        Iterator<Class<?>> iter = classHierarchy.iterator();
-        while (iter.hasNext() && !foundOverride) {
-            Class<?> c = iter.next();
-
-            String walkMethodName = "walk" + c.getSimpleName();
-            try {
-                Method walkMethod =
-                        this.myVisitor.getClass().getMethod(walkMethodName, c);
-                foundOverride =
-                        ((Boolean) walkMethod.invoke(this.myVisitor, e));
-            }
-            catch (NoSuchMethodException nsme) {
-                //Shouldn't be possible
-                throw new RuntimeException(nsme);
+        else {
+            // Get the heirarchy of classes from which this node inherits
+            // e.g., [ModuleAST, PrecisAST]
+            List<Class<?>> hierarchy =
+                    HandlerCache.getHierarchy(nodeClass, ResolveAST.class);
+            if (prefix.equals("post")) {
+                Collections.reverse(hierarchy);
             }
-            catch (IllegalAccessException iae) {
-                //Shouldn't be possible
-                throw new RuntimeException(iae);
+
+            result = new Method[hierarchy.size()];
+            for (int i = 0; i < result.length; i++) {
+                Class<?> c = hierarchy.get(i);
+                result[i] = findMethod(key, c, c);
             }
-            catch (InvocationTargetException ite) {
-                //An exception was thrown inside the corresponding walk method
-                Throwable iteCause = ite.getCause();
+        }
 
-                if (iteCause instanceof RuntimeException) {
-                    throw (RuntimeException) iteCause;
-                }
+        return result;
+    }
 
-                throw new RuntimeException(iteCause);
-            }
+    private static Method findMethod(HandlerCache.Key key, Class<?> nodeClass,
+            Class<?>... parameterTypes) {
+        try {
+            return key.getVisitorClass()
+                    .getMethod(key.getPrefix() + nodeClass.getSimpleName(),
+                            parameterTypes);
+        }
+        catch (NoSuchMethodException nsme) {
+            //Shouldn't be possible
+            throw new RuntimeException(nsme);
         }
-        return foundOverride;
     }
-}
\ No newline at end of file
+}
@@ -14,13 +14,16 @@ package edu.clemson.cs.r2jt.congruenceclassprover;
 
 import edu.clemson.cs.r2jt.data.ModuleID;
 import edu.clemson.cs.r2jt.init.CompileEnvironment;
+import edu.clemson.cs.r2jt.rewriteprover.AlgebraicProver;
 import edu.clemson.cs.r2jt.rewriteprover.Prover;
 import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
 import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
 import edu.clemson.cs.r2jt.rewriteprover.Metrics;
 import edu.clemson.cs.r2jt.rewriteprover.ProverListener;
 import edu.clemson.cs.r2jt.rewriteprover.VC;
+import edu.clemson.cs.r2jt.rewriteprover.VCEquivalenceClasses;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.model.TheoremLibraryIndex;
 import edu.clemson.cs.r2jt.typeandpopulate.*;
 import edu.clemson.cs.r2jt.typeandpopulate.entry.MathSymbolEntry;
 import edu.clemson.cs.r2jt.typeandpopulate.entry.SymbolTableEntry;
@@ -38,6 +41,11 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -48,8 +56,14 @@ public class CongruenceClassProver {
     public static final Flag FLAG_PROVE =
             new Flag(Prover.FLAG_SECTION_NAME, "ccprove",
                     "congruence closure based prover");
+    public static final Flag FLAG_PROOF_CACHE =
+            new Flag(Prover.FLAG_SECTION_NAME, "proofcache",
+                    "reuse the -ccprove proofs of unchanged VCs from earlier runs");
+    private final List<VC> m_vcs;
+    // only one vc of each class is proved
+    private final VCEquivalenceClasses m_vcClasses;
     private final List<VerificationConditionCongruenceClosureImpl> m_ccVCs;
-    private final List<TheoremCongruenceClosureImpl> m_theorems;
+    private final TheoremLibrary m_library;
     private final int MAX_ITERATIONS = 1024;
     private final CompileEnvironment m_environment;
     private final ModuleScope m_scope;
@@ -63,6 +77,7 @@ public class CongruenceClassProver {
     private final PerVCProverModel[] myModels;
     private ProverListener myProverListener;
     private final long myTimeout;
+    private final int myNumWorkers;
     private long totalTime = 0;
 
     ///////////////////////////////////////////////////////
@@ -75,6 +90,10 @@ public class CongruenceClassProver {
         // for new vc gen
         FlagDependencies.addImplies(CongruenceClassProver.FLAG_PROVE,
                 VCGenerator.FLAG_ALTVERIFY_VC);
+        FlagDependencies.addRequires(Prover.FLAG_NUM_WORKERS, new Flag[] {
+                CongruenceClassProver.FLAG_PROVE, AlgebraicProver.FLAG_PROVE });
+        FlagDependencies.addRequires(FLAG_PROOF_CACHE,
+                CongruenceClassProver.FLAG_PROVE);
     }
 
     public CongruenceClassProver(TypeGraph g, List<VC> vcs, ModuleScope scope,
@@ -93,37 +112,32 @@ public class CongruenceClassProver {
         else {
             myTimeout = DEFAULTTIMEOUT;
         }
+        if (environment.flags.isFlagSet(Prover.FLAG_NUM_WORKERS)) {
+            myNumWorkers =
+                    Math.max(1, Integer.parseInt(environment.flags
+                            .getFlagArgument(Prover.FLAG_NUM_WORKERS,
+                                    Prover.FLAG_NUM_WORKERS_ARG_NAME)));
+        }
+        else {
+            myNumWorkers = 1;
+        }
         ///////////////////////////////////////////////////////////////
         totalTime = System.currentTimeMillis();
         m_typeGraph = g;
+        m_vcs = vcs;
+        m_library = TheoremLibrary.forScope(g, scope, environment);
+        m_vcClasses = new VCEquivalenceClasses(vcs, m_library.getSymbolNames());
         m_ccVCs = new ArrayList<VerificationConditionCongruenceClosureImpl>();
         int i = 0;
 
         for (VC vc : vcs) {
             //if(!vc.getName().equals("3_1")) continue;
-            m_ccVCs.add(new VerificationConditionCongruenceClosureImpl(g, vc));
-            myModels[i++] = (new PerVCProverModel(g, vc.getName(), vc, null));
+            myModels[i++] =
+                    (new PerVCProverModel(g, vc.getName(), vc,
+                            new TheoremLibraryIndex(null)));
         }
-        m_theorems = new ArrayList<TheoremCongruenceClosureImpl>();
-        List<TheoremEntry> theoremEntries =
-                scope.query(new EntryTypeQuery(TheoremEntry.class,
-                        MathSymbolTable.ImportStrategy.IMPORT_RECURSIVE,
-                        MathSymbolTable.FacilityStrategy.FACILITY_IGNORE));
-
-        for (TheoremEntry e : theoremEntries) {
-            PExp assertion = e.getAssertion();
-
-            if (assertion.isEquality()) {
-                addEqualityTheorem(true, assertion);
-                addEqualityTheorem(false, assertion);
-            }
-            else {
-                TheoremCongruenceClosureImpl t =
-                        new TheoremCongruenceClosureImpl(g, assertion);
-                if (!t.m_unneeded) {
-                    m_theorems.add(t);
-                }
-            }
+        for (VC vc : m_vcClasses.getRepresentatives()) {
+            m_ccVCs.add(new VerificationConditionCongruenceClosureImpl(g, vc));
         }
         m_environment = environment;
         m_scope = scope;
@@ -131,78 +145,54 @@ public class CongruenceClassProver {
 
     }
 
-    private void addEqualityTheorem(boolean matchLeft, PExp theorem) {
-        PExp lhs, rhs;
-
-        if (matchLeft) {
-            lhs = theorem.getSubExpressions().get(0);
-            rhs = theorem.getSubExpressions().get(1);
-        }
-        else {
-            lhs = theorem.getSubExpressions().get(1);
-            rhs = theorem.getSubExpressions().get(0);
-        }
-        // Because only lhs is matched, all quantified variables used must be in lhs
-        Set<PSymbol> lhsQuants = lhs.getQuantifiedVariables();
-        Set<PSymbol> rhsQuants = rhs.getQuantifiedVariables();
-        if (!lhsQuants.containsAll(rhsQuants)) {
-            return;
-        }
-
-        TheoremCongruenceClosureImpl t =
-                new TheoremCongruenceClosureImpl(m_typeGraph, lhs, theorem,
-                        false);
-        if (!t.m_unneeded) {
-            m_theorems.add(t);
-        }
-
-        if (lhs.isEquality()) {
-            t =
-                    new TheoremCongruenceClosureImpl(m_typeGraph, lhs, theorem,
-                            true);
-            if (!t.m_unneeded) {
-                m_theorems.add(t);
-            }
-        }
-    }
-
     public void start() throws IOException {
 
         String summary = "";
-        int i = 0;
-        for (VerificationConditionCongruenceClosureImpl vcc : m_ccVCs) {
-            long startTime = System.nanoTime();
-            String whyQuit = "";
-            VerificationConditionCongruenceClosureImpl.STATUS proved =
-                    prove(vcc);
-            if (proved
-                    .equals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED)) {
-                whyQuit += " Proved ";
-            }
-            else if (proved
-                    .equals(VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)) {
-                whyQuit += " Proved (Assumption(s) false) ";
+        // results from earlier runs, by representative
+        VCProofResult[] cached = new VCProofResult[m_ccVCs.size()];
+        String[] fingerprints = null;
+        ProofCache cache = null;
+        if (m_environment.flags.isFlagSet(FLAG_PROOF_CACHE)) {
+            cache =
+                    new ProofCache(new File(proofFileName() + "cache"),
+                            m_library.getFingerprint());
+            fingerprints = new String[m_ccVCs.size()];
+            for (int r = 0; r < m_ccVCs.size(); ++r) {
+                fingerprints[r] =
+                        ProofCache.fingerprint(m_vcClasses.getRepresentatives()
+                                .get(r));
+                cached[r] = cache.get(fingerprints[r]);
             }
-            else if (proved
-                    .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)) {
-                whyQuit += " Out of theorems, or timed out ";
+        }
+        List<Future<VCProofResult>> pending = null;
+        if (myNumWorkers > 1) {
+            pending = proveInParallel(cached);
+        }
+        // Representatives come in order of first appearance, so each vc's
+        // result is either the next one or one we already have
+        List<VCProofResult> results =
+                new ArrayList<VCProofResult>(m_ccVCs.size());
+        for (int i = 0; i < m_vcs.size(); ++i) {
+            int r = m_vcClasses.getRepresentativeIndex(i);
+            if (r == results.size()) {
+                VCProofResult result = cached[r];
+                if (result == null) {
+                    if (pending != null) {
+                        result = waitFor(pending.get(r));
+                    }
+                    else {
+                        result = proveAndTime(m_ccVCs.get(r));
+                    }
+                    if (cache != null) {
+                        cache.put(fingerprints[r], result);
+                    }
+                }
+                results.add(result);
             }
-            else
-                whyQuit += " Goal false "; // this isn't currently reachable
-
-            long endTime = System.nanoTime();
-            long delayNS = endTime - startTime;
-            long delayMS =
-                    TimeUnit.MILLISECONDS
-                            .convert(delayNS, TimeUnit.NANOSECONDS);
-            summary += vcc.m_name + whyQuit + " time: " + delayMS + " ms\n";
-            if (myProverListener != null)
-                myProverListener
-                        .vcResult(
-                                (proved == (VerificationConditionCongruenceClosureImpl.STATUS.PROVED) || (proved == VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)),
-                                myModels[i], new Metrics(delayMS, myTimeout));
-
-            i++;
+            summary += report(i, results.get(r));
+        }
+        if (cache != null) {
+            cache.save();
         }
         totalTime = System.currentTimeMillis() - totalTime;
         summary +=
@@ -220,6 +210,121 @@ public class CongruenceClassProver {
         }
     }
 
+    /**
+     * <p>Submits every VC without a cached result to a pool of
+     * <code>myNumWorkers</code> threads. Each VC owns its registry and
+     * conjunction, so the only state the workers share is the theorem
+     * library, which never changes.</p>
+     *
+     * @return the pending results, in VC order, with <code>null</code> for
+     * the VCs that were cached.
+     */
+    private List<Future<VCProofResult>> proveInParallel(VCProofResult[] cached) {
+        ExecutorService pool = Executors.newFixedThreadPool(myNumWorkers);
+        List<Future<VCProofResult>> results =
+                new ArrayList<Future<VCProofResult>>(m_ccVCs.size());
+        try {
+            for (int r = 0; r < m_ccVCs.size(); ++r) {
+                if (cached[r] != null) {
+                    results.add(null);
+                    continue;
+                }
+                final VerificationConditionCongruenceClosureImpl vcc =
+                        m_ccVCs.get(r);
+                results.add(pool.submit(new Callable<VCProofResult>() {
+
+                    @Override
+                    public VCProofResult call() {
+                        return proveAndTime(vcc);
+                    }
+                }));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+        return results;
+    }
+
+    private VCProofResult waitFor(Future<VCProofResult> result) {
+        try {
+            return result.get();
+        }
+        catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ie);
+        }
+        catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private VCProofResult proveAndTime(
+            VerificationConditionCongruenceClosureImpl vcc) {
+        long startTime = System.nanoTime();
+        VCProofResult result = prove(vcc);
+        long endTime = System.nanoTime();
+        result.m_delayMS =
+                TimeUnit.MILLISECONDS.convert(endTime - startTime,
+                        TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    // Records the proof of the VC at index i and returns its summary line.
+    private String report(int i, VCProofResult result) {
+        int r = m_vcClasses.getRepresentativeIndex(i);
+        VerificationConditionCongruenceClosureImpl vcc = m_ccVCs.get(r);
+        VC vc = m_vcs.get(i);
+        String name = vc.getName();
+        VerificationConditionCongruenceClosureImpl.STATUS proved =
+                result.m_status;
+        String whyQuit = "";
+        if (proved
+                .equals(VerificationConditionCongruenceClosureImpl.STATUS.PROVED)) {
+            whyQuit += " Proved ";
+        }
+        else if (proved
+                .equals(VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)) {
+            whyQuit += " Proved (Assumption(s) false) ";
+        }
+        else if (proved
+                .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)) {
+            whyQuit += " Out of theorems, or timed out ";
+        }
+        else
+            whyQuit += " Goal false "; // this isn't currently reachable
+
+        if (vc == m_vcClasses.getRepresentatives().get(r)) {
+            m_results += result.m_proof;
+        }
+        else {
+            m_results +=
+                    name + " is the same as " + vcc.m_name
+                            + " up to renaming; see its proof.\n\n";
+            whyQuit += "(as " + vcc.m_name + ") ";
+        }
+        if (result.m_cached) {
+            whyQuit += "(cached) ";
+        }
+        if (myProverListener != null)
+            myProverListener
+                    .vcResult(
+                            (proved == (VerificationConditionCongruenceClosureImpl.STATUS.PROVED) || (proved == VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION)),
+                            myModels[i], new Metrics(result.m_delayMS,
+                                    myTimeout));
+
+        return name + whyQuit + " time: " + result.m_delayMS + " ms (ranking: "
+                + result.m_rankingMS + " ms, matching: " + result.m_matchingMS
+                + " ms)\n";
+    }
+
     private String divLine(String label) {
         if (label.length() > 78) {
             label = label.substring(0, 77);
@@ -243,48 +348,57 @@ public class CongruenceClassProver {
                 choose new top rank
 
      */
-    protected VerificationConditionCongruenceClosureImpl.STATUS prove(
-            VerificationConditionCongruenceClosureImpl vcc) {
+    protected VCProofResult prove(VerificationConditionCongruenceClosureImpl vcc) {
         long startTime = System.currentTimeMillis();
         long endTime = myTimeout + startTime;
-        HashSet<String> applied = new HashSet<String>();
-        Map<String, Integer> theoremAppliedCount =
-                new HashMap<String, Integer>();
+        // keyed structurally: PExp hashes are computed when the node is built
+        HashSet<StructuralPExpKey> applied = new HashSet<StructuralPExpKey>();
+        long rankingNS = 0;
+        long matchingNS = 0;
         VerificationConditionCongruenceClosureImpl.STATUS status =
                 vcc.isProved();
         String div = divLine(vcc.m_name);
         String theseResults =
                 div + ("Before application of theorems: " + vcc + "\n");
-        // add quantified expressions local to the vc to theorems
-        for (PExp p : vcc.forAllQuantifiedPExps) {
-            TheoremCongruenceClosureImpl t =
-                    new TheoremCongruenceClosureImpl(m_typeGraph, p);
-            if (!t.m_unneeded) {
-                m_theorems.add(t);
-            }
-        }
+        // quantified expressions local to the vc only apply to this vc
+        List<TheoremCongruenceClosureImpl> theorems =
+                m_library.withLocalTheorems(m_library
+                        .buildLocalTheorems(vcc.forAllQuantifiedPExps));
+        TheoremPrioritizer rankedTheorems = new TheoremPrioritizer(theorems);
+        TheoremSymbolFilter symbolFilter =
+                new TheoremSymbolFilter(theorems, vcc.getRegistry());
         int iteration = 0;
         while (status
                 .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)
                 && System.currentTimeMillis() <= endTime) {
             // Rank theorems
+            long rankStart = System.nanoTime();
             Map<String, Integer> vcSymbolRelevanceMap = vcc.getGoalSymbols();
             int threshold = 16 * vcSymbolRelevanceMap.keySet().size() + 1;
-            TheoremPrioritizer rankedTheorems =
-                    new TheoremPrioritizer(m_theorems, vcSymbolRelevanceMap,
-                            threshold, theoremAppliedCount);
+            rankedTheorems.update(vcSymbolRelevanceMap);
+            Iterator<TheoremWithScore> ranking = rankedTheorems.iterator();
+            rankingNS += System.nanoTime() - rankStart;
             //theseResults += "Iteration " + iteration++ + "\n";
             int max_Theorems_to_choose = 1;
             int num_Theorems_chosen = 0;
-            while (!rankedTheorems.m_pQueue.isEmpty()
+            // the ranking must not change while it is being iterated, so the
+            // applied count of the chosen theorem is raised after the loop
+            TheoremCongruenceClosureImpl chosen = null;
+            while (ranking.hasNext()
                     && status
                             .equals(VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING)
                     && (num_Theorems_chosen < max_Theorems_to_choose)) {
-                int theoremScore = rankedTheorems.m_pQueue.peek().m_score;
-                TheoremCongruenceClosureImpl cur = rankedTheorems.poll();
+                TheoremWithScore ranked = ranking.next();
+                int theoremScore = ranked.m_score;
+                TheoremCongruenceClosureImpl cur = ranked.m_theorem;
+                if (!symbolFilter.mayMatch(cur)) {
+                    continue;
+                }
 
+                long matchStart = System.nanoTime();
                 ArrayList<InsertExpWithJustification> instantiatedTheorems =
                         cur.applyTo(vcc, endTime);
+                matchingNS += System.nanoTime() - matchStart;
                 if (instantiatedTheorems != null
                         && instantiatedTheorems.size() != 0) {
                     InstantiatedTheoremPrioritizer instPQ =
@@ -296,7 +410,9 @@ public class CongruenceClassProver {
                     while (num_Instantiated_added < max_Instantiated_to_Add
                             && !instPQ.m_pQueue.isEmpty()) {
                         PExpWithScore curP = instPQ.m_pQueue.poll();
-                        if (!applied.contains(curP.m_theorem.toString())) {
+                        StructuralPExpKey key =
+                                new StructuralPExpKey(curP.m_theorem);
+                        if (!applied.contains(key)) {
                             String substitutionMade =
                                     vcc
                                             .getConjunct()
@@ -305,7 +421,7 @@ public class CongruenceClassProver {
                                                     endTime,
                                                     curP.m_theoremDefinitionString);
                             if (substitutionMade != "") {
-                                applied.add(curP.m_theorem.toString());
+                                applied.add(key);
                                 theseResults +=
                                         "Iter:" + ++iteration + "\n["
                                                 + theoremScore + "]"
@@ -313,23 +429,25 @@ public class CongruenceClassProver {
                                                 + substitutionMade + "\n\n";
                                 status = vcc.isProved();
                                 num_Instantiated_added++;
-                                int count = 0;
-                                if (theoremAppliedCount
-                                        .containsKey(cur.m_theoremString))
-                                    count =
-                                            theoremAppliedCount
-                                                    .get(cur.m_theoremString);
-                                theoremAppliedCount.put(cur.m_theoremString,
-                                        ++count);
+                                chosen = cur;
                                 num_Theorems_chosen++;
                             }
                         }
                     }
                 }
             }
+            if (chosen != null) {
+                rankedTheorems.incrementApplied(chosen);
+            }
         }
-        m_results += theseResults + div;
-        return vcc.isProved();
+        theseResults += symbolFilter + "\n";
+        VCProofResult result =
+                new VCProofResult(vcc.isProved(), theseResults + div);
+        result.m_rankingMS =
+                TimeUnit.MILLISECONDS.convert(rankingNS, TimeUnit.NANOSECONDS);
+        result.m_matchingMS =
+                TimeUnit.MILLISECONDS.convert(matchingNS, TimeUnit.NANOSECONDS);
+        return result;
 
     }
 
@@ -345,6 +463,28 @@ public class CongruenceClassProver {
         return mainFileName;
     }
 
+    /**
+     * <p>The outcome of proving a single VC, held until it can be reported in
+     * VC order.</p>
+     */
+    protected static class VCProofResult {
+
+        protected final VerificationConditionCongruenceClosureImpl.STATUS m_status;
+        protected final String m_proof;
+        protected long m_delayMS;
+        protected long m_rankingMS;
+        protected long m_matchingMS;
+        // read from the proof cache rather than proved on this run
+        protected boolean m_cached;
+
+        protected VCProofResult(
+                VerificationConditionCongruenceClosureImpl.STATUS status,
+                String proof) {
+            m_status = status;
+            m_proof = proof;
+        }
+    }
+
     private void outputProofFile() throws IOException {
         FileWriter w = new FileWriter(new File(proofFileName()));
 
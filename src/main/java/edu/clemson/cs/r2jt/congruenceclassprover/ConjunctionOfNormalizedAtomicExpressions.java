@@ -23,9 +23,13 @@ import java.util.*;
 public class ConjunctionOfNormalizedAtomicExpressions {
 
     private final Registry m_registry;
-    private final List<NormalizedAtomicExpressionMapImpl> m_exprList;
+    // kept sorted; the first m_exprCount slots are in use
+    private NormalizedAtomicExpressionMapImpl[] m_exprArray;
+    private int m_exprCount = 0;
     protected long m_timeToEnd = -1;
     private final List<NormalizedAtomicExpressionMapImpl> m_removedExprList;
+    // use lists: symbol index -> expressions in m_exprArray that mention it
+    private final Map<Integer, Set<NormalizedAtomicExpressionMapImpl>> m_useLists;
     protected boolean m_evaluates_to_false = false;
     private int f_num = 0;
     private String m_current_justification = "";
@@ -36,19 +40,29 @@ public class ConjunctionOfNormalizedAtomicExpressions {
      */
     public ConjunctionOfNormalizedAtomicExpressions(Registry registry) {
         m_registry = registry;
-        m_exprList = new LinkedList<NormalizedAtomicExpressionMapImpl>();
-        m_removedExprList = new LinkedList<NormalizedAtomicExpressionMapImpl>();
+        // random access is required: the array is kept sorted and binary
+        // searched, and SearchBox walks it by index. A plain array lets
+        // merges move runs of entries with System.arraycopy.
+        m_exprArray = new NormalizedAtomicExpressionMapImpl[16];
+        m_removedExprList = new ArrayList<NormalizedAtomicExpressionMapImpl>();
+        m_useLists =
+                new HashMap<Integer, Set<NormalizedAtomicExpressionMapImpl>>();
     }
 
     protected int size() {
-        return m_exprList.size();
+        return m_exprCount;
+    }
+
+    // as Collections.binarySearch, over the entries in use
+    private int search(NormalizedAtomicExpressionMapImpl expr) {
+        return Arrays.binarySearch(m_exprArray, 0, m_exprCount, expr);
     }
 
     protected void findNAE(SearchBox box) {
         NormalizedAtomicExpressionMapImpl translQuery = box.m_translated;
-        int lowerBound = Collections.binarySearch(m_exprList, translQuery);
+        int lowerBound = search(translQuery);
         // if it exists in the list...
-        if (lowerBound >= 0 && lowerBound < m_exprList.size()) {
+        if (lowerBound >= 0 && lowerBound < m_exprCount) {
             box.lowerBound = lowerBound;
             box.upperBound = lowerBound;
             box.currentIndex = lowerBound;
@@ -56,17 +70,18 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             return;
         }
         lowerBound = -lowerBound - 1;
-        NormalizedAtomicExpressionMapImpl ubExpr =
-                translQuery.incrementLastKnown();
-
-        box.upperBound = m_exprList.size() - 1;
+        box.upperBound = m_exprCount - 1;
         box.lowerBound = lowerBound;
         box.currentIndex = lowerBound;
         box.directMatch = false;
     }
 
     protected NormalizedAtomicExpressionMapImpl getExprAtPosition(int position) {
-        return m_exprList.get(position);
+        if (position >= m_exprCount) {
+            throw new IndexOutOfBoundsException("Index: " + position
+                    + ", Size: " + m_exprCount);
+        }
+        return m_exprArray[position];
     }
 
     protected String addExpression(PExp expression, long timeToEnd) {
@@ -240,9 +255,9 @@ public class ConjunctionOfNormalizedAtomicExpressions {
      * @return current integer value of root symbol that represents the input.
      */
     private int addAtomicFormula(NormalizedAtomicExpressionMapImpl atomicFormula) {
-        int posIfFound = Collections.binarySearch(m_exprList, atomicFormula);
+        int posIfFound = search(atomicFormula);
         if (posIfFound >= 0) {
-            return m_exprList.get(posIfFound).readRoot();
+            return m_exprArray[posIfFound].readRoot();
         }
         // no such formula exists
         int indexToInsert = -(posIfFound + 1);
@@ -271,10 +286,36 @@ public class ConjunctionOfNormalizedAtomicExpressions {
         }
         int rhs = m_registry.makeSymbol(rangeType, isVar);
         atomicFormula.writeToRoot(rhs);
-        m_exprList.add(indexToInsert, atomicFormula);
+        ensureCapacity(m_exprCount + 1);
+        System.arraycopy(m_exprArray, indexToInsert, m_exprArray,
+                indexToInsert + 1, m_exprCount - indexToInsert);
+        m_exprArray[indexToInsert] = atomicFormula;
+        m_exprCount++;
+        addToUseLists(atomicFormula);
         return rhs;
     }
 
+    private void addToUseLists(NormalizedAtomicExpressionMapImpl expr) {
+        for (Integer k : expr.getKeys()) {
+            Set<NormalizedAtomicExpressionMapImpl> uses = m_useLists.get(k);
+            if (uses == null) {
+                // expressions use identity equality
+                uses = new HashSet<NormalizedAtomicExpressionMapImpl>();
+                m_useLists.put(k, uses);
+            }
+            uses.add(expr);
+        }
+    }
+
+    private void removeFromUseLists(NormalizedAtomicExpressionMapImpl expr) {
+        for (Integer k : expr.getKeys()) {
+            Set<NormalizedAtomicExpressionMapImpl> uses = m_useLists.get(k);
+            if (uses != null) {
+                uses.remove(expr);
+            }
+        }
+    }
+
     protected String mergeOperators(int a, int b) {
         String rString = "";
         if (m_timeToEnd > 0 && System.currentTimeMillis() > m_timeToEnd) {
@@ -300,7 +341,12 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             String aString = m_registry.getSymbolForIndex(opA);
             String bString = m_registry.getSymbolForIndex(opB);
 
-            if (aString.compareTo(bString) > 0) {
+            // Absent any preference below, keep the taller class as root
+            // (union by rank), falling back to symbol order on a tie.
+            int rankA = m_registry.getRank(opA);
+            int rankB = m_registry.getRank(opB);
+            if (rankA < rankB || rankA == rankB
+                    && aString.compareTo(bString) > 0) {
                 int temp = opA;
                 opA = opB;
                 opB = temp;
@@ -391,8 +437,8 @@ public class ConjunctionOfNormalizedAtomicExpressions {
         // loop until end, function op is not =, or =(x,y)=true
         // when found do merge, start again.
         int eqQ = m_registry.getIndexForSymbol("=");
-        for (int i = 0; i < m_exprList.size(); ++i) {
-            NormalizedAtomicExpressionMapImpl cur = m_exprList.get(i);
+        for (int i = 0; i < m_exprCount; ++i) {
+            NormalizedAtomicExpressionMapImpl cur = m_exprArray[i];
             int f = cur.readPosition(0);
             if (f != eqQ) {
                 return;
@@ -416,47 +462,131 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             return null;
         }
 
-        Iterator<NormalizedAtomicExpressionMapImpl> it = m_exprList.iterator();
         Stack<NormalizedAtomicExpressionMapImpl> modifiedEntries =
                 new Stack<NormalizedAtomicExpressionMapImpl>();
         Stack<Integer> coincidentalMergeHoldingTank = new Stack<Integer>();
-        while (it.hasNext()) {
-            NormalizedAtomicExpressionMapImpl curr = it.next();
-            if (curr.replaceOperator(b, a)) {
-                modifiedEntries.push(curr);
-                it.remove();
+        // Only the expressions on b's use list can change. Find each one by
+        // binary search while its keys are still intact, take them out in
+        // list order, then rewrite them.
+        Set<NormalizedAtomicExpressionMapImpl> usesOfB = m_useLists.remove(b);
+        if (usesOfB != null) {
+            int[] positions = new int[usesOfB.size()];
+            int n = 0;
+            for (NormalizedAtomicExpressionMapImpl curr : usesOfB) {
+                int pos = search(curr);
+                assert pos >= 0 && m_exprArray[pos] == curr : "use list out of sync";
+                positions[n++] = pos;
+            }
+            Arrays.sort(positions);
+            for (int pos : positions) {
+                modifiedEntries.push(m_exprArray[pos]);
+            }
+            removeAll(positions);
+            for (NormalizedAtomicExpressionMapImpl curr : modifiedEntries) {
+                curr.replaceOperator(b, a);
             }
         }
+        // Modified entries go back in one merge at the end, so until then a
+        // duplicate may be in the list or among those already put back.
+        TreeSet<NormalizedAtomicExpressionMapImpl> reinserted =
+                new TreeSet<NormalizedAtomicExpressionMapImpl>();
         while (!modifiedEntries.empty()) {
-            int indexToInsert =
-                    Collections
-                            .binarySearch(m_exprList, modifiedEntries.peek());
+            NormalizedAtomicExpressionMapImpl modified = modifiedEntries.pop();
+            NormalizedAtomicExpressionMapImpl existing = null;
+            int posIfFound = search(modified);
+            if (posIfFound >= 0) {
+                existing = m_exprArray[posIfFound];
+            }
+            else {
+                NormalizedAtomicExpressionMapImpl ceiling =
+                        reinserted.ceiling(modified);
+                if (ceiling != null && ceiling.compareTo(modified) == 0) {
+                    existing = ceiling;
+                }
+            }
             // If the modified one is already there, don't put it back
-            if (indexToInsert < 0) {
-                indexToInsert = -(indexToInsert + 1);
+            if (existing == null) {
                 // root of modified expression depends on the changed arg
-                //String fordebug = modifiedEntries.peek().toHumanReadableString(m_registry);
-                int rootOfChangedExpression = modifiedEntries.peek().readRoot();
+                int rootOfChangedExpression = modified.readRoot();
                 m_registry.addDependency(rootOfChangedExpression,
                         m_current_justification, false);
-                m_exprList.add(indexToInsert, modifiedEntries.pop());
+                reinserted.add(modified);
+                addToUseLists(modified);
             }
             else {
                 // the expr is in the list, but are the roots different?
-                int rootA = modifiedEntries.pop().readRoot();
-                int rootB = m_exprList.get(indexToInsert).readRoot();
+                removeFromUseLists(modified);
+                int rootA = modified.readRoot();
+                int rootB = existing.readRoot();
                 if (rootA != rootB) {
                     coincidentalMergeHoldingTank.push(rootA);
                     coincidentalMergeHoldingTank.push(rootB);
                 }
             }
         }
+        insertAll(reinserted);
         //System.err.println(m_registry.getSymbolForIndex(a) + "/" + m_registry.getSymbolForIndex(b));
         m_registry.addDependency(a, m_current_justification, true);
         m_registry.substitute(a, b);
         return coincidentalMergeHoldingTank;
     }
 
+    // removes the entries at the given positions, which are ascending, by
+    // moving each run of entries between them down over the gaps
+    private void removeAll(int[] positions) {
+        if (positions.length == 0) {
+            return;
+        }
+        int to = positions[0];
+        for (int i = 0; i < positions.length; ++i) {
+            int from = positions[i] + 1;
+            int end =
+                    (i + 1 < positions.length) ? positions[i + 1] : m_exprCount;
+            System.arraycopy(m_exprArray, from, m_exprArray, to, end - from);
+            to += end - from;
+        }
+        truncate(to);
+    }
+
+    // merges sorted entries, none of which are in the list yet, into the
+    // list from the back, moving each run of old entries only once
+    private void insertAll(
+            NavigableSet<NormalizedAtomicExpressionMapImpl> sorted) {
+        // old entries before from have not moved; slots before to are free
+        int from = m_exprCount;
+        int to = m_exprCount + sorted.size();
+        ensureCapacity(to);
+        m_exprCount = to;
+
+        Iterator<NormalizedAtomicExpressionMapImpl> newest =
+                sorted.descendingSet().iterator();
+        while (newest.hasNext()) {
+            NormalizedAtomicExpressionMapImpl next = newest.next();
+            int posIfFound = Arrays.binarySearch(m_exprArray, 0, from, next);
+            assert posIfFound < 0 : "inserting an expression already present";
+            int insertAt = -(posIfFound + 1);
+            int run = from - insertAt;
+            to -= run;
+            System.arraycopy(m_exprArray, insertAt, m_exprArray, to, run);
+            m_exprArray[--to] = next;
+            from = insertAt;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > m_exprArray.length) {
+            m_exprArray =
+                    Arrays.copyOf(m_exprArray, Math.max(capacity,
+                            m_exprArray.length * 2));
+        }
+    }
+
+    // drops every entry at or after newSize
+    private void truncate(int newSize) {
+        Arrays.fill(m_exprArray, newSize, m_exprCount, null);
+        m_exprCount = newSize;
+    }
+
     protected Map<String, Integer> getSymbolProximity(Set<String> symbols) {
         boolean done = false;
         Map<Integer, Integer> relatedKeys = new HashMap<Integer, Integer>();
@@ -471,15 +601,15 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             int startSize = relatedKeys.size();
             HashMap<Integer, Integer> relatedKeys2 =
                     new HashMap<Integer, Integer>();
-            for (int i = 0; i < m_exprList.size(); ++i) {
+            for (int i = 0; i < m_exprCount; ++i) {
                 if (relatedSet.contains(i))
                     continue;
                 Set<Integer> intersection =
-                        new HashSet<Integer>(m_exprList.get(i).getKeys());
+                        new HashSet<Integer>(m_exprArray[i].getKeys());
                 intersection.retainAll(relatedKeys.keySet());
                 if (!intersection.isEmpty()) {
                     relatedSet.add(i);
-                    for (Integer k : m_exprList.get(i).getKeys()) {
+                    for (Integer k : m_exprArray[i].getKeys()) {
                         if (!relatedKeys.containsKey(k)) {
                             relatedKeys2.put(k, closeness);
                         }
@@ -492,19 +622,18 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             }
         }
 
-        HashSet<Integer> toRemove = new HashSet<Integer>();
-        for (int i = 0; i < m_exprList.size(); ++i) {
-            toRemove.add(i);
-        }
-        toRemove.removeAll(relatedSet);
-
-        for (Integer i : toRemove) {
-            m_removedExprList.add(m_exprList.get(i));
-        }
-
-        for (NormalizedAtomicExpressionMapImpl r : m_removedExprList) {
-            m_exprList.remove(r);
+        int keep = 0;
+        for (int i = 0; i < m_exprCount; ++i) {
+            NormalizedAtomicExpressionMapImpl cur = m_exprArray[i];
+            if (relatedSet.contains(i)) {
+                m_exprArray[keep++] = cur;
+            }
+            else {
+                m_removedExprList.add(cur);
+                removeFromUseLists(cur);
+            }
         }
+        truncate(keep);
 
         Map<String, Integer> rMap =
                 new HashMap<String, Integer>(relatedKeys.size());
@@ -524,8 +653,8 @@ public class ConjunctionOfNormalizedAtomicExpressions {
             r += key.toString() + ":\n";
             r += m_registry.m_typeToSetOfOperators.get(key) + "\n\n";
         }
-        for (NormalizedAtomicExpressionMapImpl cur : m_exprList) {
-            r += cur.toHumanReadableString(m_registry) + "\n";
+        for (int i = 0; i < m_exprCount; ++i) {
+            r += m_exprArray[i].toHumanReadableString(m_registry) + "\n";
         }
         return r;
     }
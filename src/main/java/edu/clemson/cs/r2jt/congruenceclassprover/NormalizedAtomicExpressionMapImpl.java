@@ -12,25 +12,33 @@
  */
 package edu.clemson.cs.r2jt.congruenceclassprover;
 
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.TreeSet;
 
-// todo: create array impl and compare.
 /**
  * Created by mike on 4/4/2014.
+ * <p>
+ * The expression is stored as one operator per slot: slots
+ * <code>0</code> through <code>m_maxPositions - 1</code> hold the function
+ * symbol and its arguments and the final slot holds the root. Unused slots
+ * are <code>-1</code>. Position reads and comparisons are plain array
+ * accesses, since they sit underneath every sort and search in the
+ * congruence closure prover.</p>
  */
 public class NormalizedAtomicExpressionMapImpl
         implements
             Comparable<NormalizedAtomicExpressionMapImpl> {
 
     private static final int m_maxPositions = 6;
-    private final Map<Integer, Integer> m_expression;
+    private static final int m_rootSlot = m_maxPositions;
+    private final int[] m_expression;
 
     public NormalizedAtomicExpressionMapImpl() {
-        m_expression = new TreeMap<Integer, Integer>();
+        m_expression = new int[m_maxPositions + 1];
+        clear();
     }
 
     /**
@@ -39,14 +47,23 @@ public class NormalizedAtomicExpressionMapImpl
      * @return bit pattern of positions. 0 indicates the operator is not used
      */
     public int readOperator(int operator) {
-        if (m_expression.containsKey(operator)) {
-            return m_expression.get(operator);
+        int positions = 0;
+        for (int i = 0; i <= m_rootSlot; ++i) {
+            if (m_expression[i] == operator) {
+                positions |= 1 << i;
+            }
         }
-        return 0;
+        return positions;
     }
 
     protected Set<Integer> getKeys() {
-        return m_expression.keySet();
+        Set<Integer> keys = new TreeSet<Integer>();
+        for (int i = 0; i <= m_rootSlot; ++i) {
+            if (m_expression[i] >= 0) {
+                keys.add(m_expression[i]);
+            }
+        }
+        return keys;
     }
 
     protected Set<String> getArgumentsAsStrings(Registry reg) {
@@ -70,49 +87,29 @@ public class NormalizedAtomicExpressionMapImpl
         if (position >= m_maxPositions) {
             return -1; // needed for construction of str arrays
         }
-        position = 1 << position;
-        Set<Map.Entry<Integer, Integer>> entries = m_expression.entrySet();
-        // hangs here with some lambda formulae
-        for (Map.Entry<Integer, Integer> e : entries) {
-            if ((e.getValue() & position) != 0) {
-                return e.getKey();
-            }
-            /* todo: possible use for map: multiple operators in a single position.
-             for use in binding quantified variables.
-             */
-        }
-        return -1;
+        return m_expression[position];
     }
 
     /**
      * @param operator integer value of operator
-     * @param position 0 denotes first position.
+     * @param position 0 denotes first position. Positions past the root are
+     *                 ignored.
      */
     public void writeOnto(int operator, int position) {
-        position = 1 << position;
-        Integer curValue = m_expression.get(operator);
-        if (curValue != null) {
-            position = position | curValue;
+        if (position <= m_rootSlot) {
+            m_expression[position] = operator;
         }
-        m_expression.put(operator, position);
     }
 
     public boolean replaceOperator(int orig, int repl) {
-        int origPositions = -1;
-        if (m_expression.containsKey(orig)) {
-            origPositions = m_expression.get(orig);
-        }
-        int replPositions = 0;
-        if (m_expression.containsKey(repl)) {
-            replPositions = m_expression.get(repl);
-        }
-        if (origPositions > 0) {
-            m_expression.remove(orig);
-
-            m_expression.put(repl, origPositions | replPositions);
-            return true;
+        boolean replaced = false;
+        for (int i = 0; i <= m_rootSlot; ++i) {
+            if (m_expression[i] == orig) {
+                m_expression[i] = repl;
+                replaced = true;
+            }
         }
-        return false;
+        return replaced;
     }
 
     /**
@@ -120,29 +117,18 @@ public class NormalizedAtomicExpressionMapImpl
      * @param root
      */
     protected void writeToRoot(int root) {
-        int position = 1 << m_maxPositions;
-        m_expression.put(root, position);
+        m_expression[m_rootSlot] = root;
     }
 
     protected int readRoot() {
-        int position = 1 << m_maxPositions;
-        Set<Map.Entry<Integer, Integer>> entries = m_expression.entrySet();
-        for (Map.Entry<Integer, Integer> e : entries) {
-            if ((e.getValue() & position) != 0) {
-                return e.getKey();
-            }
-            /* todo: possible use for map: multiple operators in a single position.
-             for use in binding quantified variables.
-             */
-        }
-        return -1;
+        return m_expression[m_rootSlot];
     }
 
     // compare left sides of 2 expressions.  If this returns 0, you must compare right hand sides afterwards.
     @Override
     public int compareTo(NormalizedAtomicExpressionMapImpl o) {
         for (int i = 0; i < m_maxPositions; ++i) {
-            int cmp = readPosition(i) - o.readPosition(i);
+            int cmp = m_expression[i] - o.m_expression[i];
             if (cmp != 0) {
                 return cmp;
             }
@@ -151,23 +137,39 @@ public class NormalizedAtomicExpressionMapImpl
     }
 
     public NormalizedAtomicExpressionMapImpl clear() {
-        m_expression.clear();
+        for (int i = 0; i <= m_rootSlot; ++i) {
+            m_expression[i] = -1;
+        }
         return this;
     }
 
+    /**
+     * @return the number of leading positions in use, not counting the root.
+     */
+    public int numPositions() {
+        int n = 0;
+        while (n < m_maxPositions && m_expression[n] >= 0) {
+            n++;
+        }
+        return n;
+    }
+
     public int numOperators() {
-        return m_expression.keySet().size();
+        return getKeys().size();
     }
 
     public NormalizedAtomicExpressionMapImpl translateFromRegParam1ToRegParam2(
-            Registry source, Registry destination,
-            HashMap<String, String> mapping) {
+            Registry source, Registry destination, TheoremBindings bindings) {
 
         NormalizedAtomicExpressionMapImpl translated =
                 new NormalizedAtomicExpressionMapImpl();
-        Set<Integer> keys = m_expression.keySet();
-        for (Integer k : keys) {
-            String sourceName = source.getSymbolForIndex(k);
+        for (int i = 0; i <= m_rootSlot; ++i) {
+            int k = m_expression[i];
+            if (k < 0) {
+                continue;
+            }
+            int sourceRoot = source.findAndCompress(k);
+            String sourceName = source.getSymbolForIndex(sourceRoot);
             String destName = "";
             switch (source.getUsage(sourceName)) {
             case LITERAL:
@@ -181,15 +183,14 @@ public class NormalizedAtomicExpressionMapImpl
                 break;
             case HASARGS_FORALL:
             case FORALL:
-                if (mapping.containsKey(sourceName)) {
-                    destName = mapping.get(sourceName);
+                if (bindings.get(sourceRoot) >= 0) {
+                    translated.m_expression[i] = bindings.get(sourceRoot);
                 }
                 break;
             }
             if (!destName.equals("")) {
-                int trKey = destination.getIndexForSymbol(destName);
-                int positions = m_expression.get(k);
-                translated.m_expression.put(trKey, positions);
+                translated.m_expression[i] =
+                        destination.getIndexForSymbol(destName);
             }
 
         }
@@ -199,27 +200,23 @@ public class NormalizedAtomicExpressionMapImpl
     public NormalizedAtomicExpressionMapImpl incrementLastKnown() {
         NormalizedAtomicExpressionMapImpl incremented =
                 new NormalizedAtomicExpressionMapImpl();
-        int pos = 0;
-        int op = readPosition(pos);
+        int op = readPosition(0);
         if (op < 0) { // function operator unknown, upper bound is end of list
             incremented.writeOnto(Integer.MAX_VALUE, 0);
             incremented.writeToRoot(Integer.MAX_VALUE);
             return incremented;
         }
-        int opPrev = op;
-        while (op >= 0) {
-            incremented.writeOnto(opPrev, pos);
+        int pos = 0;
+        while (pos < m_maxPositions && m_expression[pos] >= 0) {
+            incremented.m_expression[pos] = m_expression[pos];
             pos++;
-            opPrev = op;
-            op = readPosition(pos);
         }
-        incremented.m_expression.remove(opPrev);
-        incremented.writeOnto(++opPrev, pos - 1);
+        incremented.m_expression[pos - 1]++;
         return incremented;
     }
 
     public String toHumanReadableString(Registry registry) {
-        if (m_expression.isEmpty()) {
+        if (getKeys().isEmpty()) {
             return "empty expression";
         }
         String r;
@@ -248,6 +245,11 @@ public class NormalizedAtomicExpressionMapImpl
 
     @Override
     public String toString() {
-        return m_expression.toString();
+        // operator to position bit pattern, as read by readOperator
+        Map<Integer, Integer> asMap = new TreeMap<Integer, Integer>();
+        for (Integer k : getKeys()) {
+            asMap.put(k, readOperator(k));
+        }
+        return asMap.toString();
     }
 }
@@ -0,0 +1,236 @@
+/**
+ * ProofCache.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.VC;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * <p>Proofs kept on disk between runs. Each proof is keyed by a fingerprint
+ * of its VC, which covers the VC's antecedents, consequents and types. Only
+ * VCs that were proved are kept: one that timed out or could not be proved
+ * is attempted again on the next run, where a faster machine or a better
+ * prover may do better.</p>
+ *
+ * <p>The whole cache is only valid for the theorem library and the cache
+ * format it was built with; if either has changed, the cache starts out
+ * empty. An entry that cannot be read is treated as missing.</p>
+ */
+public class ProofCache {
+
+    // Change this whenever what is stored, or how a VC is fingerprinted,
+    // changes, so that caches written by older versions are dropped
+    private static final String FORMAT = "2";
+
+    private static final String FORMAT_KEY = "format";
+    private static final String THEORIES_KEY = "theories";
+    private static final String STATUS_SUFFIX = ".status";
+    private static final String PROOF_SUFFIX = ".proof";
+
+    private final File m_file;
+    private final Properties m_entries = new Properties();
+    private boolean m_changed = false;
+
+    /**
+     * @param file where the cache is kept.
+     * @param theoriesFingerprint identifies the theorems the proofs use.
+     */
+    public ProofCache(File file, String theoriesFingerprint) throws IOException {
+        m_file = file;
+
+        if (file.exists()) {
+            InputStream in = new FileInputStream(file);
+            try {
+                m_entries.load(in);
+            }
+            catch (IllegalArgumentException iae) {
+                // a malformed escape; start over rather than trust the rest
+                m_entries.clear();
+            }
+            finally {
+                in.close();
+            }
+        }
+
+        if (!FORMAT.equals(m_entries.getProperty(FORMAT_KEY))
+                || !theoriesFingerprint.equals(m_entries
+                        .getProperty(THEORIES_KEY))) {
+            m_entries.clear();
+            m_entries.setProperty(FORMAT_KEY, FORMAT);
+            m_entries.setProperty(THEORIES_KEY, theoriesFingerprint);
+            m_changed = true;
+        }
+    }
+
+    /**
+     * @return the cached proof of the VC with the given fingerprint, or null
+     * if there is none or it cannot be read.
+     */
+    public CongruenceClassProver.VCProofResult get(String vcFingerprint) {
+        CongruenceClassProver.VCProofResult result = null;
+        VerificationConditionCongruenceClosureImpl.STATUS status =
+                parseStatus(m_entries
+                        .getProperty(vcFingerprint + STATUS_SUFFIX));
+        String proof = m_entries.getProperty(vcFingerprint + PROOF_SUFFIX);
+
+        if (status != null && proof != null) {
+            result = new CongruenceClassProver.VCProofResult(status, proof);
+            result.m_cached = true;
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Keeps <code>result</code> for the VC with the given fingerprint if
+     * it is a proof. Any other result is not kept.</p>
+     */
+    public void put(String vcFingerprint,
+            CongruenceClassProver.VCProofResult result) {
+        if (isProof(result.m_status)) {
+            m_entries.setProperty(vcFingerprint + STATUS_SUFFIX,
+                    result.m_status.name());
+            m_entries.setProperty(vcFingerprint + PROOF_SUFFIX, result.m_proof);
+            m_changed = true;
+        }
+    }
+
+    /**
+     * <p>Writes the cache back to its file, if anything was added.</p>
+     */
+    public void save() throws IOException {
+        if (m_changed) {
+            OutputStream out = new FileOutputStream(m_file);
+            try {
+                m_entries.store(out, "Congruence class prover proof cache");
+            }
+            finally {
+                out.close();
+            }
+            m_changed = false;
+        }
+    }
+
+    /**
+     * @return the status named <code>name</code> if it is a proof, or null
+     * if it is not or there is no such status.
+     */
+    private static VerificationConditionCongruenceClosureImpl.STATUS parseStatus(
+            String name) {
+        VerificationConditionCongruenceClosureImpl.STATUS result = null;
+
+        for (VerificationConditionCongruenceClosureImpl.STATUS s : VerificationConditionCongruenceClosureImpl.STATUS
+                .values()) {
+            if (s.name().equals(name) && isProof(s)) {
+                result = s;
+            }
+        }
+
+        return result;
+    }
+
+    // a false assumption proves the VC as well
+    private static boolean isProof(
+            VerificationConditionCongruenceClosureImpl.STATUS status) {
+        return status == VerificationConditionCongruenceClosureImpl.STATUS.PROVED
+                || status == VerificationConditionCongruenceClosureImpl.STATUS.FALSE_ASSUMPTION;
+    }
+
+    /**
+     * @return a fingerprint of <code>vc</code> that is the same across runs
+     * for the same antecedents, consequents and types.
+     */
+    public static String fingerprint(VC vc) {
+        StringBuilder sb = new StringBuilder();
+        for (PExp p : vc.getAntecedent()) {
+            serialize(p, sb);
+            sb.append(';');
+        }
+        sb.append("|-");
+        for (PExp p : vc.getConsequent()) {
+            serialize(p, sb);
+            sb.append(';');
+        }
+        return digest(sb);
+    }
+
+    /**
+     * @return a fingerprint of the given theorems, in order.
+     */
+    public static String fingerprint(Iterable<PExp> theorems) {
+        StringBuilder sb = new StringBuilder();
+        for (PExp p : theorems) {
+            serialize(p, sb);
+            sb.append(';');
+        }
+        return digest(sb);
+    }
+
+    private static void serialize(PExp p, StringBuilder sb) {
+        if (p instanceof PSymbol) {
+            PSymbol ps = (PSymbol) p;
+            sb.append(ps.name.length()).append(':').append(ps.name);
+            sb.append('/').append(ps.quantification.name());
+            sb.append('/').append(p.getType()).append('(');
+            for (PExp arg : ps.arguments) {
+                serialize(arg, sb);
+                sb.append(',');
+            }
+            sb.append(')');
+        }
+        else {
+            // lambdas and alternatives print their bound names and branches
+            String s = p.toString();
+            sb.append('#').append(s.length()).append(':').append(s);
+            sb.append('/').append(p.getType()).append('(');
+            for (PExp sub : p.getSubExpressions()) {
+                serialize(sub, sb);
+                sb.append(',');
+            }
+            sb.append(')');
+        }
+    }
+
+    private static String digest(StringBuilder sb) {
+        try {
+            byte[] hash =
+                    MessageDigest.getInstance("SHA-256").digest(
+                            sb.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException nsae) {
+            // every Java platform is required to support SHA-256
+            throw new RuntimeException(nsae);
+        }
+        catch (UnsupportedEncodingException uee) {
+            throw new RuntimeException(uee);
+        }
+    }
+}
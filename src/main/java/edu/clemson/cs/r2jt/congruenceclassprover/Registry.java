@@ -30,7 +30,9 @@ public class Registry {
     public Map<MTType, TreeSet<String>> m_typeToSetOfOperators;
     public ArrayList<String> m_indexToSymbol;
     public ArrayList<MTType> m_indexToType;
-    public ArrayList<Integer> m_symbolIndexParentArray;
+    // union-find over symbol indices; a root is its own parent
+    private int[] m_parents;
+    private int[] m_ranks;
     public Stack<Integer> m_unusedIndices;
     private int m_uniqueCounter = 0;
     protected TypeGraph m_typeGraph;
@@ -51,7 +53,8 @@ public class Registry {
         m_typeToSetOfOperators = new HashMap<MTType, TreeSet<String>>();
         m_indexToSymbol = new ArrayList<String>();
         m_indexToType = new ArrayList<MTType>();
-        m_symbolIndexParentArray = new ArrayList<Integer>();
+        m_parents = new int[16];
+        m_ranks = new int[16];
         m_unusedIndices = new Stack<Integer>();
         m_symbolToUsage = new HashMap<String, Usage>(); // entries won't change
         m_foralls = new HashSet<String>();
@@ -112,7 +115,18 @@ public class Registry {
             m_indexToType.set(opIndexA, bType);
         }
         m_unusedIndices.push(opIndexB);
-        m_symbolIndexParentArray.set(opIndexB, opIndexA);
+        m_parents[opIndexB] = opIndexA;
+        if (m_ranks[opIndexA] <= m_ranks[opIndexB]) {
+            m_ranks[opIndexA] = m_ranks[opIndexB] + 1;
+        }
+    }
+
+    /**
+     * @param index a root index
+     * @return an upper bound on the height of the class rooted at index.
+     */
+    protected int getRank(int index) {
+        return m_ranks[index];
     }
 
     public void addDependency(int opIndex, String justification,
@@ -122,7 +136,7 @@ public class Registry {
         //if(getUsage(getSymbolForIndex(opIndex)).equals(Usage.LITERAL)) return;
         //if(getSymbolForIndex(opIndex).equals("true") && sourceIsRootChange) return;
         // Do not add a dependency if opIndex was the last symbol created
-        if (opIndex == m_symbolIndexParentArray.size() - 1)
+        if (opIndex == m_indexToSymbol.size() - 1)
             return;
         if (m_appliedTheoremDependencyGraph.containsKey(justification)) {
             m_appliedTheoremDependencyGraph.get(justification).add(opIndex);
@@ -147,22 +161,37 @@ public class Registry {
         return rootOfInt == rootOfString;
     }
 
+    // path halving: every other node on the path is pointed at its grandparent
     protected int findAndCompress(int index) {
-        Stack<Integer> needToUpdate = new Stack<Integer>();
-        assert index < m_symbolIndexParentArray.size() : "findAndCompress error";
-        int parent = m_symbolIndexParentArray.get(index);
-        while (parent != index) {
-            needToUpdate.push(index);
-            index = parent;
-            parent = m_symbolIndexParentArray.get(index);
-        }
-        while (!needToUpdate.isEmpty()) {
-            m_symbolIndexParentArray.set(needToUpdate.pop(), index);
+        assert index < m_indexToSymbol.size() : "findAndCompress error";
+        int[] parents = m_parents;
+        while (parents[index] != index) {
+            int grandparent = parents[parents[index]];
+            // never write to a registry that's already compressed
+            if (parents[index] != grandparent) {
+                parents[index] = grandparent;
+            }
+            index = grandparent;
         }
-
         return index;
     }
 
+    /**
+     * <p>Points every index directly at its root, after which looking up a
+     * symbol no longer changes the registry. A theorem's registry is
+     * flattened once built, so it can be read by several threads.</p>
+     */
+    protected void flatten() {
+        int size = m_indexToSymbol.size();
+        for (int i = 0; i < size; ++i) {
+            int root = i;
+            while (m_parents[root] != root) {
+                root = m_parents[root];
+            }
+            m_parents[i] = root;
+        }
+    }
+
     public String getSymbolForIndex(int index) {
         return m_indexToSymbol.get(findAndCompress(index));
     }
@@ -233,7 +262,12 @@ public class Registry {
         m_symbolToIndex.put(symbolName, m_symbolToIndex.size());
         m_indexToSymbol.add(symbolName);
         m_indexToType.add(symbolType);
-        m_symbolIndexParentArray.add(incomingsize);
+        if (incomingsize == m_parents.length) {
+            m_parents = Arrays.copyOf(m_parents, incomingsize * 2);
+            m_ranks = Arrays.copyOf(m_ranks, incomingsize * 2);
+        }
+        m_parents[incomingsize] = incomingsize;
+        m_ranks[incomingsize] = 0;
         assert m_symbolToIndex.size() == m_indexToSymbol.size();
         assert incomingsize < m_symbolToIndex.size();
         return m_symbolToIndex.size() - 1;
@@ -22,6 +22,7 @@ import edu.clemson.cs.r2jt.rewriteprover.ProverListener;
 import edu.clemson.cs.r2jt.rewriteprover.VC;
 import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.model.TheoremLibraryIndex;
 import edu.clemson.cs.r2jt.typeandpopulate.*;
 import edu.clemson.cs.r2jt.typeandpopulate.entry.MathSymbolEntry;
 import edu.clemson.cs.r2jt.typeandpopulate.entry.TheoremEntry;
@@ -105,7 +106,9 @@ public class SMTProver {
         String theoremsInSMTLib = getTheoremSMTStr(useSolvers);
         int i = 0;
         for (VC vc : vcs) {
-            myModels[i] = (new PerVCProverModel(g, vc.getName(), vc, null));
+            myModels[i] =
+                    (new PerVCProverModel(g, vc.getName(), vc,
+                            new TheoremLibraryIndex(null)));
             vcDecls += "(push)\n";
             String vcString = getVCSMTStr(vc);
             vcDecls += vcString;
@@ -17,12 +17,7 @@
  */
 package edu.clemson.cs.r2jt.congruenceclassprover;
 
-import edu.clemson.cs.r2jt.typeandpopulate.MTFunction;
-import edu.clemson.cs.r2jt.typeandpopulate.MTType;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
+import java.util.Map;
 
 /**
  * @author mike
@@ -36,32 +31,55 @@ public class SearchBox {
     protected final NormalizedAtomicExpressionMapImpl m_original;
     protected Registry m_origRegistry;
     protected Registry m_destRegistry;
-    protected HashMap<String, String> m_bindings; // Wildcard to actual. meant to be only for foralls
-    protected final HashMap<String, String> m_bindingsInitial; // bindings sent to constructor
-    protected HashMap<String, String> m_failedBindings; // for troubleshooting
-    // set m_bindings to this before nextMatch
+    protected final TheoremBindings m_bindings; // Wildcard to actual. Shared by the whole box stack.
+    protected final int m_bindingsMark; // trail height at construction; roll back to this before nextMatch
+    protected Map<String, String> m_failedBindings; // for troubleshooting
     protected final ConjunctionOfNormalizedAtomicExpressions m_dataSet;
     public boolean directMatch = false;
     public boolean impossibleToMatch = false; //
-    protected final List<String> m_origAsStrArray;
+    // theorem root indices of the query: positions, then root
+    private final int[] m_origOps;
+    // for query symbols that are not variables, the VC index they must match
+    private final int[] m_literalOps;
+    private final int[] m_candidateOps;
     public int m_indexInList;
     public int m_lastGoodMatchIndex;
-    public List<String> m_last_candidate;
+
+    private static final int ABSENT = -2;
 
     public SearchBox(NormalizedAtomicExpressionMapImpl query,
             Registry queryReg,
             ConjunctionOfNormalizedAtomicExpressions dataSet, Registry dataReg,
-            HashMap<String, String> bindings, int indexInList) {
+            TheoremBindings bindings, int indexInList) {
         m_original = query; // this is the search expr directly from the theorem
         m_origRegistry = queryReg;
         m_dataSet = dataSet;
         m_destRegistry = dataReg;
-        m_origAsStrArray = NAEtoList(query, queryReg);
         m_lastGoodMatchIndex = currentIndex;
         m_bindings = bindings; // created from previous search and mathces
-        m_bindingsInitial = bindings;
+        m_bindingsMark = bindings.mark();
         m_indexInList = indexInList;
 
+        int[] ops = new int[query.numPositions() + 1];
+        int numOps = readOps(query, queryReg, ops);
+        m_origOps = new int[numOps];
+        m_literalOps = new int[numOps];
+        m_candidateOps = new int[ops.length];
+        for (int i = 0; i < numOps; ++i) {
+            m_origOps[i] = ops[i];
+            m_literalOps[i] = ABSENT;
+            if (!bindings.isVariable(ops[i])) {
+                // matches only a VC class whose root has the same name
+                String name = queryReg.getSymbolForIndex(ops[i]);
+                if (dataReg.isSymbolInTable(name)) {
+                    int index = dataReg.m_symbolToIndex.get(name);
+                    if (dataReg.findAndCompress(index) == index) {
+                        m_literalOps[i] = index;
+                    }
+                }
+            }
+        }
+
         // THIS IS NOT UPDATED, BUT IS ONLY USED AT CONSTRUCTION. Only for the find.
         m_translated =
                 m_original.translateFromRegParam1ToRegParam2(m_origRegistry,
@@ -78,20 +96,30 @@ public class SearchBox {
         m_dataSet.findNAE(this);
     }
 
-    public List<String> NAEtoList(NormalizedAtomicExpressionMapImpl atom,
-            Registry atomReg) {
-        ArrayList<String> atomAsStrArray = new ArrayList<String>();
+    /**
+     * <p>Writes the root indices of the positions of <code>atom</code>, then
+     * of its root, into <code>out</code>.</p>
+     *
+     * @return the number of indices written.
+     */
+    private static int readOps(NormalizedAtomicExpressionMapImpl atom,
+            Registry atomReg, int[] out) {
+        int n = 0;
         int op = atom.readPosition(0);
-        int i = 1;
         while (op >= 0) {
-            atomAsStrArray.add(atomReg.getSymbolForIndex(op));
-            op = atom.readPosition(i++);
+            out[n++] = atomReg.findAndCompress(op);
+            op = atom.readPosition(n);
         }
         int root = atom.readRoot();
         if (root >= 0) {
-            atomAsStrArray.add(atomReg.getSymbolForIndex(root));
+            out[n++] = atomReg.findAndCompress(root);
         }
-        return atomAsStrArray;
+        return n;
+    }
+
+    // undo any bindings made by this box
+    public void rollBack() {
+        m_bindings.rollBack(m_bindingsMark);
     }
 
     // return value not currently used
@@ -108,47 +136,23 @@ public class SearchBox {
         return false;
     }
 
-    // True when a search is needed, false if everything is already mapped
-    public boolean unboundInExpression() {
-        for (String curOp : m_origAsStrArray) {
-            // is a variable or created symbol unbound?
-            if (m_origRegistry.getForAlls().contains(curOp)
-                    || m_origRegistry.getUsage(curOp).equals(
-                            Registry.Usage.CREATED)) {
-                if (m_bindings.containsKey(curOp)
-                        && m_bindings.get(curOp).equals("")) {
-                    return true;
-                }
-                if (!m_bindings.containsKey(curOp)) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     // pre: bounds are set. index is in bounds.
     // post returns false or sets bindings
     public boolean compareAndBind() {
         NormalizedAtomicExpressionMapImpl candidate =
                 m_dataSet.getExprAtPosition(currentIndex);
 
-        List<String> candStrArray = NAEtoList(candidate, m_destRegistry);
-        m_last_candidate = candStrArray;
-        if (candStrArray.size() != m_origAsStrArray.size()) {
+        if (candidate.numPositions() + 1 != m_origOps.length
+                || readOps(candidate, m_destRegistry, m_candidateOps) != m_origOps.length) {
             return false;
         }
-        // this loop writes to m_bindings. Must revert on fail or do collision check first.
+        // this loop writes to m_bindings. Must revert on fail.
         // this method is not only called once, it is called until upperbound is exceeded.
-        HashMap<String, String> tempMap =
-                new HashMap<String, String>(m_bindings);
-        for (int i = 0; i < m_origAsStrArray.size(); ++i) {
-            String origOp = m_origAsStrArray.get(i);
-            String boundOp = candStrArray.get(i);
-            assert boundOp.length() != 0 : "error in SearchBox";
-            String origValForComp;
-            // if bound op is mapped, redine it to actual
-            // an unmapped forall should have val "", and should not equal the actual
+        int mark = m_bindings.mark();
+        for (int i = 0; i < m_origOps.length; ++i) {
+            int origOp = m_origOps[i];
+            int boundOp = m_candidateOps[i];
+            int origValForComp;
 
             /* false when: 
              search expr at a pos i contains forall
@@ -160,27 +164,22 @@ public class SearchBox {
              mapped forall value agrees with symbol in vc expr.
              unmapped value (literal) agrees with symbol in vc expr.
              */
-            if (tempMap.containsKey(origOp)) { // only unwritten wildcards
-                if (tempMap.get(origOp).equals("")) {
-                    tempMap.put(origOp, boundOp);
+            if (m_bindings.isVariable(origOp)) { // only unwritten wildcards
+                origValForComp = m_bindings.get(origOp);
+                if (origValForComp < 0) {
+                    m_bindings.bind(origOp, boundOp);
                     continue;
-
-                }
-                else {
-                    origValForComp = tempMap.get(origOp);
                 }
             }
             else {
-                origValForComp = m_origAsStrArray.get(i);
+                origValForComp = m_literalOps[i];
             }
-            if (!origValForComp.equals(boundOp)) { // not a wildcard, if not the same, ret false
-
-                m_failedBindings = tempMap;
-                return false; // problem, need to roll back m_bindings
+            if (origValForComp != boundOp) { // not a wildcard, if not the same, ret false
+                m_bindings.rollBack(mark);
+                return false;
             }
         }
 
-        m_bindings = tempMap;
         m_lastGoodMatchIndex = currentIndex;
         return true;
 
@@ -197,8 +196,9 @@ public class SearchBox {
     @Override
     public String toString() {
         String rString = "";
-        rString += m_origAsStrArray;
-        rString += " " + m_last_candidate;
+        for (int op : m_origOps) {
+            rString += m_origRegistry.getSymbolForIndex(op) + " ";
+        }
         rString += m_bindings + "\n";
         if (m_failedBindings != null) {
             rString += "\n\tfailedBindings: " + m_failedBindings;
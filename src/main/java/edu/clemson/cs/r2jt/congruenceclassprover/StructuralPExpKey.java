@@ -0,0 +1,94 @@
+/**
+ * StructuralPExpKey.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PLambda;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
+
+import java.util.Iterator;
+
+/**
+ * <p>A hash key that compares <code>PExp</code>s by structure: names,
+ * lambda parameters and shape. Unlike <code>PExp.equals()</code>, two
+ * separately built lambdas or alternatives with the same structure are the
+ * same key. The hash is the one each <code>PExp</code> computes when it is
+ * built, so nothing is rendered to text.</p>
+ */
+final class StructuralPExpKey {
+
+    private final PExp m_exp;
+
+    StructuralPExpKey(PExp exp) {
+        m_exp = exp;
+    }
+
+    @Override
+    public int hashCode() {
+        return m_exp.valueHash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return (o instanceof StructuralPExpKey)
+                && sameStructure(m_exp, ((StructuralPExpKey) o).m_exp);
+    }
+
+    @Override
+    public String toString() {
+        return m_exp.toString();
+    }
+
+    static boolean sameStructure(PExp a, PExp b) {
+        if (a == b) {
+            return true;
+        }
+        if (a.valueHash != b.valueHash || a.getClass() != b.getClass()) {
+            return false;
+        }
+
+        if (a instanceof PSymbol) {
+            if (!((PSymbol) a).name.equals(((PSymbol) b).name)) {
+                return false;
+            }
+        }
+        else if (a instanceof PLambda) {
+            Iterator<PLambda.Parameter> aParams =
+                    ((PLambda) a).parameters.iterator();
+            Iterator<PLambda.Parameter> bParams =
+                    ((PLambda) b).parameters.iterator();
+            while (aParams.hasNext() && bParams.hasNext()) {
+                PLambda.Parameter aParam = aParams.next();
+                PLambda.Parameter bParam = bParams.next();
+                if (!aParam.name.equals(bParam.name)
+                        || !aParam.type.equals(bParam.type)) {
+                    return false;
+                }
+            }
+            if (aParams.hasNext() || bParams.hasNext()) {
+                return false;
+            }
+        }
+        // the conditions and results of alternatives are their subexpressions
+
+        Iterator<PExp> aSubs = a.getSubExpressions().iterator();
+        Iterator<PExp> bSubs = b.getSubExpressions().iterator();
+        while (aSubs.hasNext() && bSubs.hasNext()) {
+            if (!sameStructure(aSubs.next(), bSubs.next())) {
+                return false;
+            }
+        }
+
+        return !(aSubs.hasNext() || bSubs.hasNext());
+    }
+}
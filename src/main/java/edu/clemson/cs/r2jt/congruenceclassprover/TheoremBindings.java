@@ -0,0 +1,120 @@
+/**
+ * TheoremBindings.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import java.util.HashMap;
+
+/**
+ * <p>The bindings built up while matching a theorem against a VC. Slots are
+ * indexed by theorem registry index and hold a VC registry index, or -1 when
+ * unbound. Every bind is recorded on a trail, so a <code>SearchBox</code>
+ * undoes its bindings by rolling back to the trail height it started at,
+ * rather than by copying the bindings.</p>
+ */
+public class TheoremBindings {
+
+    private final Registry m_theoremRegistry;
+    private final boolean[] m_isVariable;
+    private final int[] m_values;
+    private final int[] m_trail;
+    private int m_trailSize = 0;
+
+    /**
+     * @param theoremRegistry the registry of the theorem being matched. Its
+     * created, forall and forall function symbols may be bound.
+     */
+    public TheoremBindings(Registry theoremRegistry) {
+        m_theoremRegistry = theoremRegistry;
+        int size = theoremRegistry.m_indexToSymbol.size();
+        m_isVariable = new boolean[size];
+        m_values = new int[size];
+        // each slot is bound at most once between roll backs
+        m_trail = new int[size];
+        for (int i = 0; i < size; ++i) {
+            Registry.Usage us =
+                    theoremRegistry.getUsage(theoremRegistry.m_indexToSymbol
+                            .get(i));
+            m_isVariable[i] =
+                    us == Registry.Usage.CREATED || us == Registry.Usage.FORALL
+                            || us == Registry.Usage.HASARGS_FORALL;
+            m_values[i] = -1;
+        }
+    }
+
+    public boolean isVariable(int slot) {
+        return m_isVariable[slot];
+    }
+
+    /**
+     * @return the VC index bound to <code>slot</code>, or -1 if unbound.
+     */
+    public int get(int slot) {
+        return m_values[slot];
+    }
+
+    /**
+     * @param slot an unbound variable slot.
+     */
+    public void bind(int slot, int value) {
+        assert m_values[slot] < 0 : "slot already bound";
+        m_values[slot] = value;
+        m_trail[m_trailSize++] = slot;
+    }
+
+    /**
+     * @return a mark to later pass to <code>rollBack</code>.
+     */
+    public int mark() {
+        return m_trailSize;
+    }
+
+    /**
+     * <p>Undoes every bind made since <code>mark</code> was taken.</p>
+     */
+    public void rollBack(int mark) {
+        while (m_trailSize > mark) {
+            m_values[m_trail[--m_trailSize]] = -1;
+        }
+    }
+
+    /**
+     * @return theorem symbol to VC symbol for every variable of the theorem,
+     * with "" for those left unbound.
+     */
+    public HashMap<String, String> toMap(Registry destRegistry) {
+        HashMap<String, String> rMap = new HashMap<String, String>();
+        for (int i = 0; i < m_values.length; ++i) {
+            if (m_isVariable[i]) {
+                String bound = "";
+                if (m_values[i] >= 0) {
+                    bound = destRegistry.getSymbolForIndex(m_values[i]);
+                }
+                rMap.put(m_theoremRegistry.m_indexToSymbol.get(i), bound);
+            }
+        }
+        return rMap;
+    }
+
+    @Override
+    public String toString() {
+        String r = "{";
+        for (int i = 0; i < m_values.length; ++i) {
+            if (m_values[i] >= 0) {
+                r +=
+                        m_theoremRegistry.m_indexToSymbol.get(i) + "->"
+                                + m_values[i] + " ";
+            }
+        }
+        return r + "}";
+    }
+}
@@ -20,6 +20,8 @@ import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 
@@ -35,8 +37,8 @@ public class TheoremCongruenceClosureImpl {
     private final PExp m_insertExpr;
     private final PExp m_theorem;
     private final TypeGraph m_typeGraph;
-    protected boolean m_unneeded = false;
-    private Set<String> m_function_names;
+    private volatile Set<String> m_function_names;
+    private final Set<String> m_required_symbols;
 
     // TODO: exclude statements with dummy variables not in matching component, or do another search/match with result
     public TheoremCongruenceClosureImpl(TypeGraph g, PExp p) {
@@ -66,7 +68,8 @@ public class TheoremCongruenceClosureImpl {
             m_matchConj.addFormula(p);
             m_insertExpr = p; // this will add "= true"
         }
-
+        m_required_symbols = findRequiredSymbols();
+        m_theoremRegistry.flatten();
     }
 
     public TheoremCongruenceClosureImpl(TypeGraph g, PExp toMatchAndBind,
@@ -83,6 +86,42 @@ public class TheoremCongruenceClosureImpl {
         else
             m_matchConj.addFormula(toMatchAndBind);
         m_insertExpr = toInsert;
+        m_required_symbols = findRequiredSymbols();
+        m_theoremRegistry.flatten();
+    }
+
+    /**
+     * @return the assertion this theorem was built from.
+     */
+    public PExp getTheorem() {
+        return m_theorem;
+    }
+
+    /**
+     * @return the literals and function names a VC must contain for this
+     * theorem to match. Empty when the theorem is inserted without matching.
+     */
+    public Set<String> getRequiredSymbols() {
+        return m_required_symbols;
+    }
+
+    private Set<String> findRequiredSymbols() {
+        Set<String> rSet = new HashSet<String>();
+        if (m_insertExpr.getQuantifiedVariables().isEmpty()) {
+            return rSet;
+        }
+        // translation into the VC's registry fails on any of these
+        for (int i = 0; i < m_matchConj.size(); ++i) {
+            for (Integer k : m_matchConj.getExprAtPosition(i).getKeys()) {
+                String s = m_theoremRegistry.getSymbolForIndex(k);
+                Registry.Usage us = m_theoremRegistry.getUsage(s);
+                if (us == Registry.Usage.LITERAL
+                        || us == Registry.Usage.HASARGS_SINGULAR) {
+                    rSet.add(s);
+                }
+            }
+        }
+        return rSet;
     }
 
     public Set<String> getFunctionNames() {
@@ -118,7 +157,6 @@ public class TheoremCongruenceClosureImpl {
                 findValidBindings(vc, endTime);
         // temporary: exclude inserting lambdas (causes a hang -- probably in prioritization system)
         if (allValidBindings == null || allValidBindings.size() == 0) {
-            m_unneeded = true;
             return null;
         }
 
@@ -145,20 +183,6 @@ public class TheoremCongruenceClosureImpl {
         return rList;
     }
 
-    private HashMap<String, String> getInitBindings() {
-        HashMap<String, String> initBindings = new HashMap<String, String>();
-        for (int i = 0; i < m_theoremRegistry.m_indexToSymbol.size(); ++i) {
-            String curSym = m_theoremRegistry.m_indexToSymbol.get(i);
-            Registry.Usage us = m_theoremRegistry.getUsage(curSym);
-            if (us == Registry.Usage.CREATED || us == Registry.Usage.FORALL
-                    || us == Registry.Usage.HASARGS_FORALL) {
-                initBindings.put(curSym, "");
-
-            }
-        }
-        return initBindings;
-    }
-
     private boolean pushNewSearchBox(Stack<SearchBox> boxStack) {
         SearchBox top = boxStack.peek();
         int index = top.m_indexInList + 1;
@@ -169,12 +193,12 @@ public class TheoremCongruenceClosureImpl {
         /*
          SearchBox(NormalizedAtomicExpressionMapImpl query, Registry queryReg,
          ConjunctionOfNormalizedAtomicExpressions dataSet, Registry dataReg,
-         HashMap<String,String> bindings, int indexInList)
+         TheoremBindings bindings, int indexInList)
          */
 
         boxStack.push(new SearchBox(m_matchConj.getExprAtPosition(index),
                 m_theoremRegistry, top.m_dataSet, top.m_destRegistry,
-                new HashMap<String, String>(top.m_bindings), index));
+                top.m_bindings, index));
         return true;
     }
 
@@ -212,13 +236,11 @@ public class TheoremCongruenceClosureImpl {
         Stack<SearchBox> boxStack = new Stack<SearchBox>();
         boxStack.push(new SearchBox(m_matchConj.getExprAtPosition(0),
                 m_theoremRegistry, vc.getConjunct(), vc.getRegistry(),
-                getInitBindings(), 0));
+                new TheoremBindings(m_theoremRegistry), 0));
 
         while (!boxStack.isEmpty() && System.currentTimeMillis() < endTime) {
             SearchBox curBox = boxStack.peek();
-            // rollBack
-            curBox.m_bindings =
-                    new HashMap<String, String>(curBox.m_bindingsInitial);
+            curBox.rollBack();
             curBox.getNextMatch();
             if (curBox.impossibleToMatch) {
                 if (extraOutput)
@@ -236,15 +258,15 @@ public class TheoremCongruenceClosureImpl {
                 }
                 // save bindings if for last index, then try and find more
                 if (curBox.m_indexInList + 1 == m_matchConj.size()) {
+                    HashMap<String, String> found =
+                            curBox.m_bindings.toMap(curBox.m_destRegistry);
                     if (allValidBindings.isEmpty()
-                            || !curBox.m_bindings.equals(allValidBindings
-                                    .peek())) {
+                            || !found.equals(allValidBindings.peek())) {
                         // use allBound to disable type checks, otherwise just use typeCheck
-                        if (typeCheck(curBox)) {
-                            allValidBindings.push(curBox.m_bindings);
+                        if (typeCheck(curBox, found)) {
+                            allValidBindings.push(found);
                             if (extraOutput)
-                                System.out
-                                        .println("saved " + curBox.m_bindings);
+                                System.out.println("saved " + found);
                         }
                         else {
                             if (extraOutput) {
@@ -262,14 +284,14 @@ public class TheoremCongruenceClosureImpl {
         return allValidBindings;
     }
 
-    boolean allBound(SearchBox box) {
-        for (String oSymbol : box.m_bindings.keySet()) {
-            String dSymbol = box.m_bindings.get(oSymbol);
+    boolean allBound(SearchBox box, Map<String, String> bindings) {
+        for (String oSymbol : bindings.keySet()) {
+            String dSymbol = bindings.get(oSymbol);
             if (!box.m_destRegistry.isSymbolInTable(dSymbol)) {
                 if (!oSymbol.contains("¢")) {
                     /*System.err.println("Unbound: " + oSymbol + ": " + dSymbol
                             + " in " + m_theoremString);*/
-                    box.m_failedBindings = box.m_bindings;
+                    box.m_failedBindings = bindings;
                     return false;
                 }
                 continue;
@@ -278,16 +300,16 @@ public class TheoremCongruenceClosureImpl {
         return true;
     }
 
-    boolean typeCheck(SearchBox box) {
+    boolean typeCheck(SearchBox box, Map<String, String> bindings) {
         // type check here
         // oSymbols: Theorem symbols
-        for (String oSymbol : box.m_bindings.keySet()) {
-            String dSymbol = box.m_bindings.get(oSymbol);
+        for (String oSymbol : bindings.keySet()) {
+            String dSymbol = bindings.get(oSymbol);
             if (!box.m_destRegistry.isSymbolInTable(dSymbol)) {
                 if (!oSymbol.contains("¢")) {
                     System.err.println("Unbound: " + oSymbol + ":'" + dSymbol
                             + "' in " + m_theoremString);
-                    box.m_failedBindings = box.m_bindings;
+                    box.m_failedBindings = bindings;
                     return false;
                 }
                 continue;
@@ -318,22 +340,16 @@ public class TheoremCongruenceClosureImpl {
                 // Check if these are type variables
 
                 String bDomain, bRange;
-                if (box.m_bindings.containsKey(oRange.toString().replace("'",
-                        ""))) {
-                    bRange =
-                            box.m_bindings.get(oRange.toString().replace("'",
-                                    ""));
+                if (bindings.containsKey(oRange.toString().replace("'", ""))) {
+                    bRange = bindings.get(oRange.toString().replace("'", ""));
                     oRange = box.m_destRegistry.m_typeDictionary.get(bRange);
                     if (oRange == null) {
                         //System.err.println("null type for: " + bRange);
                         return false;
                     }
                 }
-                if (box.m_bindings.containsKey(oDomain.toString().replace("'",
-                        ""))) {
-                    bDomain =
-                            box.m_bindings.get(oDomain.toString().replace("'",
-                                    ""));
+                if (bindings.containsKey(oDomain.toString().replace("'", ""))) {
+                    bDomain = bindings.get(oDomain.toString().replace("'", ""));
                     oDomain = box.m_destRegistry.m_typeDictionary.get(bDomain);
                     if (oDomain == null) {
                         //System.err.println("null type for:" + bDomain);
@@ -357,11 +373,11 @@ public class TheoremCongruenceClosureImpl {
                     + " " + dSymbol + ": " + dType);
             System.err.println(m_theoremString);*/
 
-            box.m_failedBindings = box.m_bindings;
+            box.m_failedBindings = bindings;
             return false;
 
         }
-        //System.out.println(box.m_bindings);
+        //System.out.println(bindings);
 
         return true;
     }
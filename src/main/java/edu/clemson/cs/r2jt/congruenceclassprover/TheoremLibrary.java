@@ -0,0 +1,211 @@
+/**
+ * TheoremLibrary.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.init.CompileEnvironment;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
+import edu.clemson.cs.r2jt.typeandpopulate.MathSymbolTable;
+import edu.clemson.cs.r2jt.typeandpopulate.ModuleScope;
+import edu.clemson.cs.r2jt.typeandpopulate.entry.TheoremEntry;
+import edu.clemson.cs.r2jt.typeandpopulate.query.EntryTypeQuery;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * <p>The matchers built from the <code>TheoremEntry</code>s visible to a
+ * module. Applying a theorem to a VC only reads the theorem, so one library
+ * is shared by every VC of a module, by the prover's worker threads, and by
+ * any later module of the same compile that sees exactly the same theorems.
+ * Quantified expressions local to a VC are layered on top with
+ * {@link #withLocalTheorems(List)} rather than added to the library.</p>
+ */
+public class TheoremLibrary {
+
+    private final TypeGraph m_typeGraph;
+    private final List<TheoremCongruenceClosureImpl> m_theorems;
+    private final List<PExp> m_assertions;
+    private final Set<String> m_symbolNames;
+    private String m_fingerprint;
+
+    private TheoremLibrary(TypeGraph g, List<TheoremEntry> theoremEntries) {
+        m_typeGraph = g;
+        m_assertions = new ArrayList<PExp>(theoremEntries.size());
+        Set<String> symbolNames = new HashSet<String>();
+        List<TheoremCongruenceClosureImpl> theorems =
+                new ArrayList<TheoremCongruenceClosureImpl>();
+        for (TheoremEntry e : theoremEntries) {
+            PExp assertion = e.getAssertion();
+            m_assertions.add(assertion);
+            symbolNames.addAll(assertion.getSymbolNames());
+
+            if (assertion.isEquality()) {
+                addEqualityTheorem(theorems, true, assertion);
+                addEqualityTheorem(theorems, false, assertion);
+            }
+            else {
+                addTheorem(theorems, new TheoremCongruenceClosureImpl(g,
+                        assertion));
+            }
+        }
+        m_theorems = Collections.unmodifiableList(theorems);
+        m_symbolNames = Collections.unmodifiableSet(symbolNames);
+    }
+
+    /**
+     * <p>Returns the library of every theorem visible from <code>scope</code>,
+     * building it only if <code>environment</code> has not already built a
+     * library over the same theorems. The libraries are kept by the
+     * environment, so they last exactly as long as the compile does.</p>
+     *
+     * @param g The type graph the theorems are typed in, which must be the
+     * one <code>environment</code> compiles with.
+     * @param scope The scope of the module being proved.
+     * @param environment The environment of the current compile.
+     *
+     * @return The shared library.
+     */
+    public static TheoremLibrary forScope(TypeGraph g, ModuleScope scope,
+            CompileEnvironment environment) {
+        List<TheoremEntry> theoremEntries =
+                scope.query(new EntryTypeQuery(TheoremEntry.class,
+                        MathSymbolTable.ImportStrategy.IMPORT_RECURSIVE,
+                        MathSymbolTable.FacilityStrategy.FACILITY_IGNORE));
+
+        Map<List<TheoremEntry>, TheoremLibrary> libraries =
+                environment.getTheoremLibraries();
+        synchronized (libraries) {
+            TheoremLibrary result = libraries.get(theoremEntries);
+            if (result == null) {
+                result = new TheoremLibrary(g, theoremEntries);
+                libraries.put(theoremEntries, result);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * <p>The library's theorems. The list is unmodifiable.</p>
+     */
+    public List<TheoremCongruenceClosureImpl> getTheorems() {
+        return m_theorems;
+    }
+
+    /**
+     * <p>The names of every symbol in the library's theorems. The set is
+     * unmodifiable.</p>
+     */
+    public Set<String> getSymbolNames() {
+        return m_symbolNames;
+    }
+
+    /**
+     * <p>Identifies the theorems this library was built from, across runs.
+     * See {@link ProofCache#fingerprint(Iterable)}.</p>
+     */
+    public synchronized String getFingerprint() {
+        if (m_fingerprint == null) {
+            m_fingerprint = ProofCache.fingerprint(m_assertions);
+        }
+        return m_fingerprint;
+    }
+
+    /**
+     * <p>Returns a view of this library followed by <code>local</code>. The
+     * library itself is not copied or changed.</p>
+     *
+     * @param local Theorems that only apply to a single VC.
+     *
+     * @return The combined, unmodifiable list.
+     */
+    public List<TheoremCongruenceClosureImpl> withLocalTheorems(
+            final List<TheoremCongruenceClosureImpl> local) {
+        if (local.isEmpty()) {
+            return m_theorems;
+        }
+
+        return new AbstractList<TheoremCongruenceClosureImpl>() {
+
+            @Override
+            public TheoremCongruenceClosureImpl get(int index) {
+                if (index < m_theorems.size()) {
+                    return m_theorems.get(index);
+                }
+                return local.get(index - m_theorems.size());
+            }
+
+            @Override
+            public int size() {
+                return m_theorems.size() + local.size();
+            }
+        };
+    }
+
+    /**
+     * <p>Builds the matchers for the quantified expressions of a single VC.
+     * </p>
+     */
+    public List<TheoremCongruenceClosureImpl> buildLocalTheorems(
+            List<PExp> forAllQuantifiedPExps) {
+        List<TheoremCongruenceClosureImpl> local =
+                new ArrayList<TheoremCongruenceClosureImpl>();
+        for (PExp p : forAllQuantifiedPExps) {
+            addTheorem(local, new TheoremCongruenceClosureImpl(m_typeGraph, p));
+        }
+        return local;
+    }
+
+    private void addTheorem(List<TheoremCongruenceClosureImpl> theorems,
+            TheoremCongruenceClosureImpl t) {
+        // fill the lazily computed cache now, so sharers only ever read it
+        t.getFunctionNames();
+        theorems.add(t);
+    }
+
+    private void addEqualityTheorem(
+            List<TheoremCongruenceClosureImpl> theorems, boolean matchLeft,
+            PExp theorem) {
+        PExp lhs, rhs;
+
+        if (matchLeft) {
+            lhs = theorem.getSubExpressions().get(0);
+            rhs = theorem.getSubExpressions().get(1);
+        }
+        else {
+            lhs = theorem.getSubExpressions().get(1);
+            rhs = theorem.getSubExpressions().get(0);
+        }
+        // Because only lhs is matched, all quantified variables used must be in lhs
+        Set<PSymbol> lhsQuants = lhs.getQuantifiedVariables();
+        Set<PSymbol> rhsQuants = rhs.getQuantifiedVariables();
+        if (!lhsQuants.containsAll(rhsQuants)) {
+            return;
+        }
+
+        addTheorem(theorems, new TheoremCongruenceClosureImpl(m_typeGraph, lhs,
+                theorem, false));
+
+        if (lhs.isEquality()) {
+            addTheorem(theorems, new TheoremCongruenceClosureImpl(m_typeGraph,
+                    lhs, theorem, true));
+        }
+    }
+}
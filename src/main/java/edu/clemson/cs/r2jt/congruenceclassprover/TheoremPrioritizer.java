@@ -12,63 +12,237 @@
  */
 package edu.clemson.cs.r2jt.congruenceclassprover;
 
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * Created by nabilkabbani on 12/10/14.
+ * <p>
+ * Ranks the theorems for a single VC and keeps the ranking up to date as the
+ * VC's goal symbols and the applied counts change, rather than rescoring
+ * every theorem on every iteration.</p>
+ * <p>
+ * A theorem's score is the smallest goal proximity of its function names
+ * (capped at the number of goal symbols), plus 2000 for each of its function
+ * names that does not occur in the VC, plus the number of times it has been
+ * applied. Every proximity is smaller than the number of goal symbols, so the
+ * cap only applies to theorems with none of their names in the VC. Those are
+ * kept apart and ordered without the cap, so a change in the number of goal
+ * symbols reorders nothing.</p>
  */
 public class TheoremPrioritizer {
 
-    protected PriorityQueue<TheoremWithScore> m_pQueue;
+    private static final int NOT_IN_VC = Integer.MAX_VALUE;
+
+    private final List<TheoremCongruenceClosureImpl> m_theorems;
+    private final Map<String, List<Integer>> m_theoremsBySymbol;
+    private final Map<StructuralPExpKey, List<Integer>> m_theoremsByAssertion;
+    private final int[] m_minProximity;
+    private final int[] m_missing;
+    private final int[] m_applied;
+    // score without the cap: minProximity (0 when far) + 2000 * missing + applied
+    private final int[] m_uncappedScore;
+    private final TreeSet<Integer> m_near;
+    private final TreeSet<Integer> m_far;
     private Map<String, Integer> m_vc_symbols;
-    private Map<String, Integer> m_theoremAppliedCount;
 
-    public TheoremPrioritizer(List<TheoremCongruenceClosureImpl> theoremList,
-            Map<String, Integer> vcSymbols, int threshold,
-            Map<String, Integer> appliedCount) {
-        m_pQueue = new PriorityQueue<TheoremWithScore>(theoremList.size());
-        m_vc_symbols = vcSymbols;
-        m_theoremAppliedCount = appliedCount;
+    public TheoremPrioritizer(List<TheoremCongruenceClosureImpl> theoremList) {
+        m_theorems = theoremList;
+        m_theoremsBySymbol = new HashMap<String, List<Integer>>();
+        m_theoremsByAssertion = new HashMap<StructuralPExpKey, List<Integer>>();
+        m_minProximity = new int[theoremList.size()];
+        m_missing = new int[theoremList.size()];
+        m_applied = new int[theoremList.size()];
+        m_uncappedScore = new int[theoremList.size()];
+        m_vc_symbols = Collections.emptyMap();
 
-        for (TheoremCongruenceClosureImpl t : theoremList) {
-            TheoremWithScore tws = new TheoremWithScore(t);
-            int score = calculateScore(t.getFunctionNames());
-            if (m_theoremAppliedCount.containsKey(t.m_theoremString)) {
-                score += m_theoremAppliedCount.get(t.m_theoremString);
+        Comparator<Integer> byScore = new Comparator<Integer>() {
+
+            @Override
+            public int compare(Integer a, Integer b) {
+                int cmp = m_uncappedScore[a] - m_uncappedScore[b];
+                return cmp != 0 ? cmp : a - b;
             }
-            //if (score <= threshold) {
-            tws.m_score = score;
-            m_pQueue.add(tws);
-            //}
+        };
+        m_near = new TreeSet<Integer>(byScore);
+        m_far = new TreeSet<Integer>(byScore);
 
+        for (int i = 0; i < theoremList.size(); ++i) {
+            TheoremCongruenceClosureImpl t = theoremList.get(i);
+            for (String s : t.getFunctionNames()) {
+                indexUnder(m_theoremsBySymbol, s, i);
+            }
+            indexUnder(m_theoremsByAssertion, new StructuralPExpKey(t
+                    .getTheorem()), i);
+            m_minProximity[i] = NOT_IN_VC;
+            m_missing[i] = t.getFunctionNames().size();
+            m_uncappedScore[i] = m_missing[i] * 2000;
+            m_far.add(i);
         }
+    }
 
+    private static <K> void indexUnder(Map<K, List<Integer>> index, K key,
+            int theorem) {
+        List<Integer> theorems = index.get(key);
+        if (theorems == null) {
+            theorems = new ArrayList<Integer>(2);
+            index.put(key, theorems);
+        }
+        theorems.add(theorem);
     }
 
-    public int calculateScore(Set<String> theorem_symbols) {
-        int count_of_functions_not_in_vc = 0;
-        int size = m_vc_symbols.keySet().size();
-        int score = size;
-        for (String s : theorem_symbols) {
-
-            if (m_vc_symbols.containsKey(s)) {
-                int c_score = m_vc_symbols.get(s);
-                // c_score: the number of steps it takes to reach the goal symbol from s.
-                if (c_score < score)
-                    score = c_score;
+    /**
+     * <p>Brings the ranking up to date with the VC's current goal symbols.
+     * Only theorems mentioning a symbol whose proximity changed are
+     * rescored.</p>
+     *
+     * @param vcSymbols goal symbol to proximity, as returned by
+     * <code>VerificationConditionCongruenceClosureImpl.getGoalSymbols()</code>.
+     *
+     * @return the number of theorems rescored.
+     */
+    public int update(Map<String, Integer> vcSymbols) {
+        Set<Integer> dirty = new HashSet<Integer>();
+        for (Map.Entry<String, Integer> e : vcSymbols.entrySet()) {
+            if (!e.getValue().equals(m_vc_symbols.get(e.getKey()))) {
+                markDirty(e.getKey(), dirty);
+            }
+        }
+        for (String s : m_vc_symbols.keySet()) {
+            if (!vcSymbols.containsKey(s)) {
+                markDirty(s, dirty);
+            }
+        }
+        m_vc_symbols = vcSymbols;
+
+        for (Integer i : dirty) {
+            remove(i);
+            m_minProximity[i] = NOT_IN_VC;
+            m_missing[i] = 0;
+            for (String s : m_theorems.get(i).getFunctionNames()) {
+                Integer proximity = m_vc_symbols.get(s);
+                if (proximity == null) {
+                    m_missing[i]++;
+                }
+                else if (proximity < m_minProximity[i]) {
+                    m_minProximity[i] = proximity;
+                }
             }
-            else
-                count_of_functions_not_in_vc++;
+            add(i);
+        }
+        return dirty.size();
+    }
+
+    private void markDirty(String symbol, Set<Integer> dirty) {
+        List<Integer> theorems = m_theoremsBySymbol.get(symbol);
+        if (theorems != null) {
+            dirty.addAll(theorems);
+        }
+    }
+
+    /**
+     * <p>Records an application of <code>t</code>, lowering its priority and
+     * that of any theorem built from the same assertion.</p>
+     */
+    public void incrementApplied(TheoremCongruenceClosureImpl t) {
+        for (Integer i : m_theoremsByAssertion.get(new StructuralPExpKey(t
+                .getTheorem()))) {
+            remove(i);
+            m_applied[i]++;
+            add(i);
+        }
+    }
+
+    private void remove(int i) {
+        if (m_minProximity[i] == NOT_IN_VC) {
+            m_far.remove(i);
+        }
+        else {
+            m_near.remove(i);
+        }
+    }
+
+    private void add(int i) {
+        boolean near = m_minProximity[i] != NOT_IN_VC;
+        m_uncappedScore[i] =
+                (near ? m_minProximity[i] : 0) + m_missing[i] * 2000
+                        + m_applied[i];
+        if (near) {
+            m_near.add(i);
+        }
+        else {
+            m_far.add(i);
         }
-        //if(score > count) score /=count;
-        return score + (count_of_functions_not_in_vc * 2000);
     }
 
-    public TheoremCongruenceClosureImpl poll() {
-        return m_pQueue.poll().m_theorem;
+    private int score(int i) {
+        if (m_minProximity[i] == NOT_IN_VC) {
+            return m_vc_symbols.size() + m_uncappedScore[i];
+        }
+        return m_uncappedScore[i];
     }
 
+    /**
+     * <p>Returns the theorems from best (lowest) score to worst. The ranking
+     * must not be changed while the iterator is in use.</p>
+     */
+    public Iterator<TheoremWithScore> iterator() {
+        return new Iterator<TheoremWithScore>() {
+
+            private final Iterator<Integer> myNear = m_near.iterator();
+            private final Iterator<Integer> myFar = m_far.iterator();
+            private Integer myNextNear = advance(myNear);
+            private Integer myNextFar = advance(myFar);
+
+            @Override
+            public boolean hasNext() {
+                return myNextNear != null || myNextFar != null;
+            }
+
+            @Override
+            public TheoremWithScore next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int i;
+                if (myNextFar == null
+                        || (myNextNear != null && compare(myNextNear, myNextFar) <= 0)) {
+                    i = myNextNear;
+                    myNextNear = advance(myNear);
+                }
+                else {
+                    i = myNextFar;
+                    myNextFar = advance(myFar);
+                }
+                TheoremWithScore tws = new TheoremWithScore(m_theorems.get(i));
+                tws.m_score = score(i);
+                return tws;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+
+            private int compare(int a, int b) {
+                int cmp = score(a) - score(b);
+                return cmp != 0 ? cmp : a - b;
+            }
+
+            private Integer advance(Iterator<Integer> it) {
+                return it.hasNext() ? it.next() : null;
+            }
+        };
+    }
 }
@@ -0,0 +1,102 @@
+/**
+ * TheoremSymbolFilter.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Rules out theorems whose required symbols
+ * ({@link TheoremCongruenceClosureImpl#getRequiredSymbols()}) do not all occur
+ * in a VC, before any matching is attempted. Each theorem keeps a count of its
+ * required symbols still missing from the VC's registry; an inverted index
+ * from symbol to theorems brings the counts down as symbols are added, so a
+ * check is a single lookup.</p>
+ */
+public class TheoremSymbolFilter {
+
+    private final Registry m_vcRegistry;
+    private final Map<String, List<TheoremCongruenceClosureImpl>> m_theoremsByRequiredSymbol;
+    private final Map<TheoremCongruenceClosureImpl, Integer> m_missingCount;
+    // registry symbols already accounted for in m_missingCount
+    private int m_symbolsSeen = 0;
+    private int m_checked = 0;
+    private int m_skipped = 0;
+
+    public TheoremSymbolFilter(List<TheoremCongruenceClosureImpl> theorems,
+            Registry vcRegistry) {
+        m_vcRegistry = vcRegistry;
+        m_theoremsByRequiredSymbol =
+                new HashMap<String, List<TheoremCongruenceClosureImpl>>();
+        m_missingCount =
+                new IdentityHashMap<TheoremCongruenceClosureImpl, Integer>();
+        for (TheoremCongruenceClosureImpl t : theorems) {
+            for (String s : t.getRequiredSymbols()) {
+                List<TheoremCongruenceClosureImpl> requiring =
+                        m_theoremsByRequiredSymbol.get(s);
+                if (requiring == null) {
+                    requiring = new ArrayList<TheoremCongruenceClosureImpl>();
+                    m_theoremsByRequiredSymbol.put(s, requiring);
+                }
+                requiring.add(t);
+            }
+            m_missingCount.put(t, t.getRequiredSymbols().size());
+        }
+    }
+
+    /**
+     * @return false if <code>t</code> cannot match the VC because some symbol
+     * it requires is not in the VC.
+     */
+    public boolean mayMatch(TheoremCongruenceClosureImpl t) {
+        catchUp();
+        m_checked++;
+        if (m_missingCount.get(t) > 0) {
+            m_skipped++;
+            return false;
+        }
+        return true;
+    }
+
+    // account for symbols added to the registry since the last check
+    private void catchUp() {
+        List<String> symbols = m_vcRegistry.m_indexToSymbol;
+        for (; m_symbolsSeen < symbols.size(); ++m_symbolsSeen) {
+            List<TheoremCongruenceClosureImpl> requiring =
+                    m_theoremsByRequiredSymbol.get(symbols.get(m_symbolsSeen));
+            if (requiring != null) {
+                for (TheoremCongruenceClosureImpl t : requiring) {
+                    m_missingCount.put(t, m_missingCount.get(t) - 1);
+                }
+            }
+        }
+    }
+
+    public int getChecked() {
+        return m_checked;
+    }
+
+    public int getSkipped() {
+        return m_skipped;
+    }
+
+    @Override
+    public String toString() {
+        int percent = m_checked == 0 ? 0 : (100 * m_skipped) / m_checked;
+        return "Symbol filter skipped " + m_skipped + " of " + m_checked
+                + " theorems considered (" + percent + "%)";
+    }
+}
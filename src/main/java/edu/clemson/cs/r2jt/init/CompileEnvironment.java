@@ -24,11 +24,13 @@ import edu.clemson.cs.r2jt.collections.List;
 import edu.clemson.cs.r2jt.collections.Map;
 import edu.clemson.cs.r2jt.collections.Stack;
 import edu.clemson.cs.r2jt.compilereport.CompileReport;
+import edu.clemson.cs.r2jt.congruenceclassprover.TheoremLibrary;
 import edu.clemson.cs.r2jt.data.MetaFile;
 import edu.clemson.cs.r2jt.data.ModuleID;
 import edu.clemson.cs.r2jt.errors.ErrorHandler;
 import edu.clemson.cs.r2jt.rewriteprover.ProverListener;
 import edu.clemson.cs.r2jt.typeandpopulate.ScopeRepository;
+import edu.clemson.cs.r2jt.typeandpopulate.entry.TheoremEntry;
 import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
 import edu.clemson.cs.r2jt.misc.FlagDependencyException;
 import edu.clemson.cs.r2jt.misc.FlagManager;
@@ -66,6 +68,14 @@ public class CompileEnvironment {
     private ProverListener myListener = null;
     private TypeGraph myTypeGraph = null;
 
+    /**
+     * <p>The theorem libraries built so far by this compile, keyed by the
+     * theorem entries they were built from. See
+     * {@link TheoremLibrary#forScope TheoremLibrary.forScope()}.</p>
+     */
+    private final HashMap<java.util.List<TheoremEntry>, TheoremLibrary> myTheoremLibraries =
+            new HashMap<java.util.List<TheoremEntry>, TheoremLibrary>();
+
     // variables brought in from the old Environment class
     private Map<ModuleID, ModuleRecord> map = new Map<ModuleID, ModuleRecord>();
 
@@ -234,6 +244,10 @@ public class CompileEnvironment {
         return myListener;
     }
 
+    public HashMap<java.util.List<TheoremEntry>, TheoremLibrary> getTheoremLibraries() {
+        return myTheoremLibraries;
+    }
+
     /**
      * Returns the array of Std_Fac names
      */
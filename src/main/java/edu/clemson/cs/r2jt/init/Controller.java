@@ -30,6 +30,7 @@ import org.antlr.runtime.CommonTokenStream;
 import org.antlr.runtime.RuleReturnScope;
 import org.antlr.runtime.tree.*;
 
+import edu.clemson.cs.r2jt.Main;
 import edu.clemson.cs.r2jt.ResolveCompiler;
 import edu.clemson.cs.r2jt.absyn.*;
 import edu.clemson.cs.r2jt.archiving.Archiver;
@@ -70,6 +71,9 @@ public class Controller {
     private String[] noImportList =
             { "Std_Location_Linking_Realiz.rb", "Std_Array_Realiz.rb" };
 
+    // null unless parse trees are kept between runs
+    private final ParseTreeCache myParseTreeCache;
+
     // ===========================================================
     // Constructors
     // ===========================================================
@@ -77,6 +81,15 @@ public class Controller {
         myInstanceEnvironment = e;
         err = e.getErrorHandler();
         myCompileReport = e.getCompileReport();
+        if (e.flags.isFlagSet(Main.FLAG_PARSE_CACHE)) {
+            myParseTreeCache =
+                    new ParseTreeCache(new File(e.flags.getFlagArgument(
+                            Main.FLAG_PARSE_CACHE,
+                            Main.FLAG_PARSE_CACHE_ARG_NAME)));
+        }
+        else {
+            myParseTreeCache = null;
+        }
         /*if(myInstanceEnvironment.flags.isFlagSet(Archiver.FLAG_ARCHIVE)){
          myArchive = new Archiver(myInstanceEnvironment);
          }
@@ -715,8 +728,7 @@ public class Controller {
                     importFile.getMyFile(myInstanceEnvironment.getMainDir());
             myInstanceEnvironment.getErrorHandler().setFile(file);
             myInstanceEnvironment.setTargetFile(file);
-            CommonTokenStream tokens = getSourceTokenStream(name, fileSource);
-            CommonTree ast = getParseTree(name, tokens);
+            CommonTree ast = getCachedParseTree(name, fileSource);
             ModuleDec dec = getModuleDec(ast);
             ModuleID id = ModuleID.createID(dec);
 
@@ -755,12 +767,65 @@ public class Controller {
     private ModuleDec buildModuleDec(File file) throws Exception {
         // FIX: Is this the only place we mess with this?
         //err.setFile(file);
-        CommonTokenStream tokens = getFileTokenStream(file);
-        CommonTree ast = getParseTree(file.toString(), tokens);
+        CommonTree ast = null;
+        String key = null;
+        if (useParseTreeCache()) {
+            try {
+                key = ParseTreeCache.key(file);
+                ast = myParseTreeCache.get(key);
+            }
+            catch (IOException ioe) {
+                // Leave reporting the unreadable file to the lexer
+                key = null;
+            }
+        }
+        if (ast == null) {
+            CommonTokenStream tokens = getFileTokenStream(file);
+            ast = getParseTree(file.toString(), tokens);
+            if (key != null) {
+                myParseTreeCache.put(key, ast);
+            }
+        }
+        else {
+            // Locations are built with the file the handler is set to
+            err.setFile(file);
+        }
         ModuleDec dec = getModuleDec(ast);
         return dec;
     }
 
+    /**
+     * <p>Parses an imported module's source, or reuses the tree an earlier
+     * run parsed from the same source.</p>
+     */
+    private CommonTree getCachedParseTree(String name, String fileSource)
+            throws Exception {
+        CommonTree ast = null;
+        String key = null;
+        if (useParseTreeCache()) {
+            key = ParseTreeCache.key(fileSource);
+            ast = myParseTreeCache.get(key);
+        }
+        if (ast == null) {
+            CommonTokenStream tokens = getSourceTokenStream(name, fileSource);
+            ast = getParseTree(name, tokens);
+            if (key != null) {
+                myParseTreeCache.put(key, ast);
+            }
+        }
+        else {
+            err.setFilename(name);
+        }
+        return ast;
+    }
+
+    private boolean useParseTreeCache() {
+        // Exporting the AST needs the tokens, so always parse
+        return myParseTreeCache != null
+                && !myInstanceEnvironment.flags
+                        .isFlagSet(ResolveCompiler.FLAG_EXPORT_AST);
+    }
+
     private CommonTree getParseTree(String fileName, CommonTokenStream tokens)
             throws Exception {
         CommonTree ast = null;
@@ -0,0 +1,264 @@
+/**
+ * ParseTreeCache.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.init;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import edu.clemson.cs.r2jt.parsing.RParser;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.Token;
+import org.antlr.runtime.tree.CommonTree;
+
+/**
+ * <p>Parse trees kept on disk between runs, so that a module whose source has
+ * not changed need not be lexed and parsed again. Each tree is kept in a file
+ * named for a hash of its source and of the parser's token names, so a tree
+ * is only ever reused for the same source parsed by the same grammar. Since
+ * the key is the source itself, the same directory can serve any number of
+ * workspaces.</p>
+ *
+ * <p>A tree is stored as the type, text and position of each node's token,
+ * which is all that building a <code>ModuleDec</code> reads from it. Only
+ * trees of sources that parsed without error are stored. A file that cannot
+ * be read is treated as missing.</p>
+ */
+class ParseTreeCache {
+
+    // Change this whenever the file layout changes, so that trees written
+    // by older versions are ignored
+    private static final int FORMAT = 1;
+
+    private static final String SUFFIX = ".tree";
+
+    private final File myDirectory;
+
+    /**
+     * @param directory where the trees are kept. It is created if need be.
+     */
+    ParseTreeCache(File directory) {
+        myDirectory = directory;
+    }
+
+    /**
+     * <p>Returns the tree stored under <code>key</code>, or
+     * <code>null</code> if there is none or it cannot be read.</p>
+     */
+    CommonTree get(String key) {
+        CommonTree result = null;
+        File file = new File(myDirectory, key + SUFFIX);
+
+        if (file.isFile()) {
+            try {
+                DataInputStream in =
+                        new DataInputStream(new BufferedInputStream(
+                                new FileInputStream(file)));
+                try {
+                    if (in.readInt() == FORMAT) {
+                        result = readTree(in);
+                    }
+                }
+                finally {
+                    in.close();
+                }
+            }
+            catch (IOException ioe) {
+                // Truncated or otherwise unreadable; parse again
+                result = null;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Stores <code>tree</code> under <code>key</code>. The tree is
+     * written to a temporary file first, so a compile running at the same
+     * time never reads half a tree. A tree that cannot be stored is simply
+     * parsed again next time.</p>
+     */
+    void put(String key, CommonTree tree) {
+        try {
+            // createTempFile fails if the directory could not be made
+            myDirectory.mkdirs();
+
+            File temp = File.createTempFile(key, null, myDirectory);
+            try {
+                DataOutputStream out =
+                        new DataOutputStream(new BufferedOutputStream(
+                                new FileOutputStream(temp)));
+                try {
+                    out.writeInt(FORMAT);
+                    writeTree(tree, out);
+                }
+                finally {
+                    out.close();
+                }
+
+                File file = new File(myDirectory, key + SUFFIX);
+                if (!temp.renameTo(file)) {
+                    // Another compile may have stored the same tree first
+                    file.delete();
+                    temp.renameTo(file);
+                }
+            }
+            finally {
+                temp.delete();
+            }
+        }
+        catch (IOException ioe) {
+            // Nothing is lost but the time it would have saved
+        }
+    }
+
+    /**
+     * <p>Returns the key of the tree parsed from the contents of
+     * <code>file</code>.</p>
+     */
+    static String key(File file) throws IOException {
+        MessageDigest digest = newDigest();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        finally {
+            in.close();
+        }
+
+        return toHex(digest.digest());
+    }
+
+    /**
+     * <p>Returns the key of the tree parsed from <code>source</code>.</p>
+     */
+    static String key(String source) {
+        MessageDigest digest = newDigest();
+        digest.update(toBytes(source));
+
+        return toHex(digest.digest());
+    }
+
+    private static void writeTree(CommonTree tree, DataOutputStream out)
+            throws IOException {
+        Token token = tree.getToken();
+        out.writeBoolean(token != null);
+        if (token != null) {
+            out.writeInt(token.getType());
+            writeString(token.getText(), out);
+            out.writeInt(token.getLine());
+            out.writeInt(token.getCharPositionInLine());
+        }
+
+        int childCount = tree.getChildCount();
+        out.writeInt(childCount);
+        for (int i = 0; i < childCount; i++) {
+            writeTree((CommonTree) tree.getChild(i), out);
+        }
+    }
+
+    private static CommonTree readTree(DataInputStream in) throws IOException {
+        CommonToken token = null;
+        if (in.readBoolean()) {
+            token = new CommonToken(in.readInt(), readString(in));
+            token.setLine(in.readInt());
+            token.setCharPositionInLine(in.readInt());
+        }
+
+        CommonTree result = new CommonTree(token);
+        int childCount = in.readInt();
+        for (int i = 0; i < childCount; i++) {
+            result.addChild(readTree(in));
+        }
+
+        return result;
+    }
+
+    private static void writeString(String s, DataOutputStream out)
+            throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeInt(s.length());
+            out.writeChars(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        String result = null;
+        if (in.readBoolean()) {
+            int length = in.readInt();
+            if (length < 0) {
+                throw new IOException("Bad string length: " + length);
+            }
+
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < length; i++) {
+                sb.append(in.readChar());
+            }
+            result = sb.toString();
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>A digest that already covers the grammar, since trees parsed by a
+     * different grammar may use the same token types for other things.</p>
+     */
+    private static MessageDigest newDigest() {
+        try {
+            MessageDigest result = MessageDigest.getInstance("SHA-256");
+            for (String tokenName : RParser.tokenNames) {
+                result.update(toBytes(tokenName));
+                result.update((byte) 0);
+            }
+            return result;
+        }
+        catch (NoSuchAlgorithmException nsae) {
+            // every Java platform is required to support SHA-256
+            throw new RuntimeException(nsae);
+        }
+    }
+
+    private static byte[] toBytes(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException uee) {
+            // every Java platform is required to support UTF-8
+            throw new RuntimeException(uee);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
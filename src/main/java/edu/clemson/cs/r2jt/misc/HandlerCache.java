@@ -0,0 +1,177 @@
+/**
+ * HandlerCache.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.misc;
+
+import edu.clemson.cs.r2jt.misc.Utils.Mapping;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>The visitor methods a tree walker calls for each kind of node, found by
+ * reflection the first time that kind of node is visited and shared by every
+ * walker afterwards.</p>
+ *
+ * <p>Each entry is found in full before it is put in the cache and is never
+ * changed after, so walkers on different threads can share it safely. Two
+ * threads that miss on the same key at once both do the lookup and agree on
+ * whichever result was cached first.</p>
+ */
+public class HandlerCache {
+
+    private final ConcurrentMap<Key, Method[]> myHandlers =
+            new ConcurrentHashMap<Key, Method[]>();
+
+    private final Mapping<Key, Method[]> myLookup;
+
+    /**
+     * @param lookup Finds the handlers for a key that is not cached yet, in
+     *               the order they are to be called.
+     */
+    public HandlerCache(Mapping<Key, Method[]> lookup) {
+        myLookup = lookup;
+    }
+
+    /**
+     * <p>Returns the handlers for <code>key</code>, in the order they are to
+     * be called. The returned array must not be modified.</p>
+     */
+    public Method[] get(Key key) {
+        Method[] result = myHandlers.get(key);
+
+        if (result == null) {
+            result = myLookup.map(key);
+
+            Method[] existing = myHandlers.putIfAbsent(key, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Returns the classes from which <code>nodeClass</code> inherits,
+     * from the first subclass of <code>rootClass</code> down to
+     * <code>nodeClass</code> itself.</p>
+     */
+    public static List<Class<?>> getHierarchy(Class<?> nodeClass,
+            Class<?> rootClass) {
+        List<Class<?>> result = new ArrayList<Class<?>>();
+
+        Class<?> elementClass = nodeClass;
+        while (elementClass != rootClass) {
+            result.add(0, elementClass);
+            elementClass = elementClass.getSuperclass();
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Identifies the handlers of one kind (<tt>walk</tt>, <tt>pre</tt>,
+     * <tt>mid</tt> or <tt>post</tt>) that a visitor class has for one node
+     * class. Handlers for a list of children are named for the list and
+     * typed by its element class, so those are part of the key as well.</p>
+     */
+    public static final class Key {
+
+        private final Class<?> myVisitorClass;
+        private final String myPrefix;
+        private final Class<?> myNodeClass;
+
+        // Only set for lists of children
+        private final String myListName;
+        private final Class<?> myListType;
+
+        private final int myHashCode;
+
+        public Key(Class<?> visitorClass, String prefix, Class<?> nodeClass) {
+            this(visitorClass, prefix, nodeClass, null, null);
+        }
+
+        public Key(Class<?> visitorClass, String prefix, Class<?> nodeClass,
+                String listName, Class<?> listType) {
+            myVisitorClass = visitorClass;
+            myPrefix = prefix;
+            myNodeClass = nodeClass;
+            myListName = listName;
+            myListType = listType;
+
+            int hash = myVisitorClass.hashCode();
+            hash = 31 * hash + myPrefix.hashCode();
+            hash = 31 * hash + myNodeClass.hashCode();
+            if (myListName != null) {
+                hash = 31 * hash + myListName.hashCode();
+                hash = 31 * hash + myListType.hashCode();
+            }
+            myHashCode = hash;
+        }
+
+        public Class<?> getVisitorClass() {
+            return myVisitorClass;
+        }
+
+        public String getPrefix() {
+            return myPrefix;
+        }
+
+        public Class<?> getNodeClass() {
+            return myNodeClass;
+        }
+
+        /**
+         * <p>Returns the name of the list of children, or <code>null</code>
+         * if this key is not for a list.</p>
+         */
+        public String getListName() {
+            return myListName;
+        }
+
+        /**
+         * <p>Returns the element class of the list of children, or
+         * <code>null</code> if this key is not for a list.</p>
+         */
+        public Class<?> getListType() {
+            return myListType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            boolean result = (o instanceof Key);
+
+            if (result) {
+                Key oAsKey = (Key) o;
+                result =
+                        myHashCode == oAsKey.myHashCode
+                                && myVisitorClass == oAsKey.myVisitorClass
+                                && myNodeClass == oAsKey.myNodeClass
+                                && myPrefix.equals(oAsKey.myPrefix)
+                                && (myListName == null ? oAsKey.myListName == null
+                                        : myListName.equals(oAsKey.myListName))
+                                && myListType == oAsKey.myListType;
+            }
+
+            return result;
+        }
+
+        @Override
+        public int hashCode() {
+            return myHashCode;
+        }
+    }
+}
@@ -21,6 +21,7 @@ import edu.clemson.cs.r2jt.rewriteprover.gui.JProverFrame;
 import edu.clemson.cs.r2jt.rewriteprover.justifications.Library;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
 import edu.clemson.cs.r2jt.rewriteprover.model.Theorem;
+import edu.clemson.cs.r2jt.rewriteprover.model.TheoremLibraryIndex;
 import edu.clemson.cs.r2jt.rewriteprover.proofsteps.LabelStep;
 import edu.clemson.cs.r2jt.rewriteprover.proofsteps.ProofStep;
 import edu.clemson.cs.r2jt.rewriteprover.transformations.EliminateTrueConjunctInConsequent;
@@ -46,8 +47,10 @@ import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import javax.swing.JFrame;
 import javax.swing.SwingUtilities;
 
@@ -92,6 +95,8 @@ public class AlgebraicProver {
     private final List<VC> myVCs;
     private final TypeGraph myTypeGraph;
     private final ImmutableList<Theorem> myTheoremLibrary;
+    private final TheoremLibraryIndex myTheoremIndex;
+    private final LibraryTransformations myLibraryTransformations;
     private JProverFrame myUI;
     private boolean myInteractiveModeFlag = false;
     private boolean myRunningFlag = false;
@@ -101,6 +106,19 @@ public class AlgebraicProver {
     private final ModuleScope myModuleScope;
     private final CompileEnvironment myInstanceEnvironment;
     private final int myTimeout;
+    /**
+     * <p>The number of threads each automated prover searches with. Only
+     * used without a UI, since the UI shows the one model being worked
+     * on.</p>
+     */
+    private final int myNumWorkers;
+    /**
+     * <p>For each VC, the index of the VC whose proof stands for its own.
+     * Without a UI, only one VC of each class of VCs that are the same up to
+     * renaming is searched; with one, every VC stands for itself so that each
+     * can be worked on by hand.</p>
+     */
+    private final int[] myProvedAs;
 
     public AlgebraicProver(TypeGraph g, List<VC> vcs, ModuleScope scope,
             final boolean startInteractive, CompileEnvironment environment,
@@ -120,6 +138,17 @@ public class AlgebraicProver {
             myTimeout = -1;
         }
 
+        if (environment.flags.isFlagSet(Prover.FLAG_NUM_WORKERS)
+                && environment.flags.isFlagSet(Prover.FLAG_NOGUI)) {
+            myNumWorkers =
+                    Math.max(1, Integer.parseInt(environment.flags
+                            .getFlagArgument(Prover.FLAG_NUM_WORKERS,
+                                    Prover.FLAG_NUM_WORKERS_ARG_NAME)));
+        }
+        else {
+            myNumWorkers = 1;
+        }
+
         if (listener != null) {
             myProverListeners.add(listener);
         }
@@ -139,13 +168,42 @@ public class AlgebraicProver {
         }
 
         myTheoremLibrary = new ArrayBackedImmutableList<Theorem>(theorems);
+        myTheoremIndex = new TheoremLibraryIndex(myTheoremLibrary);
+        myLibraryTransformations = new LibraryTransformations(myTheoremLibrary);
+
+        myProvedAs = new int[vcs.size()];
+        if (environment.flags.isFlagSet(Prover.FLAG_NOGUI) && !startInteractive) {
+            Set<String> fixedNames = new HashSet<String>();
+            for (Theorem t : theorems) {
+                fixedNames.addAll(t.getAssertion().getSymbolNames());
+            }
+            VCEquivalenceClasses classes =
+                    new VCEquivalenceClasses(vcs, fixedNames);
+
+            // Representatives come in order of first appearance
+            int[] firstOfClass = new int[classes.getRepresentatives().size()];
+            int found = 0;
+            for (int i = 0; i < vcs.size(); i++) {
+                int r = classes.getRepresentativeIndex(i);
+                if (r == found) {
+                    firstOfClass[found++] = i;
+                }
+                myProvedAs[i] = firstOfClass[r];
+            }
+        }
+        else {
+            for (int i = 0; i < vcs.size(); i++) {
+                myProvedAs[i] = i;
+            }
+        }
 
         myModels[0] =
                 new PerVCProverModel(g, vcs.get(0).getName(), vcs.get(0),
-                        myTheoremLibrary);
+                        myTheoremIndex);
         myAutomatedProvers[0] =
-                new AutomatedProver(myModels[0], myTheoremLibrary, scope,
-                        myTimeout);
+                new AutomatedProver(myModels[0], myTheoremLibrary,
+                        myLibraryTransformations, scope, myTimeout,
+                        myNumWorkers);
 
         if (environment.flags.isFlagSet(Prover.FLAG_NOGUI)) {
             myUI = null;
@@ -204,9 +262,13 @@ public class AlgebraicProver {
             if (!FlagManager.getInstance().isFlagSet("nodebug")) {
                 System.out.println("AlgebraicProver - Starting");
             }
+            //A VC that is the same as an earlier one up to renaming takes
+            //that one's result without a search of its own
+            int provedAs = myProvedAs[myVCIndex];
+
             //This will block until it either finishes proving or is told to
             //stop by, e.g., a "pause" action
-            if (!myInteractiveModeFlag) {
+            if (!myInteractiveModeFlag && provedAs == myVCIndex) {
                 myAutomatedProvers[myVCIndex].start();
             }
             if (!FlagManager.getInstance().isFlagSet("nodebug")) {
@@ -214,14 +276,14 @@ public class AlgebraicProver {
                         + myInteractiveModeFlag);
             }
             //myModels[myVCIndex].touch();
-            if (myModels[myVCIndex].noConsequents()
+            if (provedAs != myVCIndex || myModels[myVCIndex].noConsequents()
                     || myAutomatedProvers[myVCIndex].doneSearching()) {
                 //We finished searching--either proved or failed
 
-                boolean proved = myModels[myVCIndex].noConsequents();
+                boolean proved = myModels[provedAs].noConsequents();
                 for (ProverListener l : myProverListeners) {
                     l.vcResult(proved, myModels[myVCIndex], new Metrics(
-                            myAutomatedProvers[myVCIndex].getLastStartLength(),
+                            myAutomatedProvers[provedAs].getLastStartLength(),
                             myTimeout));
                 }
 
@@ -312,12 +374,28 @@ public class AlgebraicProver {
             buffers[i].append(myModels[i].getTheoremName());
             buffers[i].append(" ===================================\n\n");
 
-            if (myModels[i].noConsequents()) {
+            int provedAs = myProvedAs[i];
+            if (provedAs != i) {
+                String provedAsName = myModels[provedAs].getTheoremName();
+                buffers[i].append(myModels[i].getTheoremName());
+                buffers[i].append(" is the same as ");
+                buffers[i].append(provedAsName);
+                buffers[i].append(" up to renaming; see its proof.\n\n");
+
+                w.write("\t" + myModels[i].getTheoremName() + "\t......... ");
+                if (myModels[provedAs].noConsequents()) {
+                    w.write("proved as " + provedAsName + "\n");
+                }
+                else {
+                    w.write("[SKIPPED] as " + provedAsName + "\n");
+                }
+            }
+            else if (myModels[i].noConsequents()) {
                 buffers[i].append("[PROVED] via:\n\n");
 
                 PerVCProverModel workingModel =
                         new PerVCProverModel(myTypeGraph, myVCs.get(i)
-                                .getName(), myVCs.get(i), myTheoremLibrary);
+                                .getName(), myVCs.get(i), myTheoremIndex);
 
                 buffers[i].append(workingModel.toString());
                 buffers[i].append("\n\n");
@@ -369,17 +447,20 @@ public class AlgebraicProver {
                 buffers[i].append("[NOT PROVED]\n\n");
             }
 
-            w.write("\t" + myModels[i].getTheoremName() + "\t......... ");
+            if (provedAs == i) {
+                w.write("\t" + myModels[i].getTheoremName() + "\t......... ");
 
-            if (myModels[i].noConsequents()) {
-                w.write("proved in "
-                        + myAutomatedProvers[i].getLastStartLength()
-                        + "ms via " + stepCount[i] + " steps ("
-                        + searchStepCount[i] + " search)\n");
-            }
-            else {
-                w.write("[SKIPPED] after "
-                        + myAutomatedProvers[i].getLastStartLength() + "ms\n");
+                if (myModels[i].noConsequents()) {
+                    w.write("proved in "
+                            + myAutomatedProvers[i].getLastStartLength()
+                            + "ms via " + stepCount[i] + " steps ("
+                            + searchStepCount[i] + " search)\n");
+                }
+                else {
+                    w.write("[SKIPPED] after "
+                            + myAutomatedProvers[i].getLastStartLength()
+                            + "ms\n");
+                }
             }
         }
 
@@ -404,10 +485,15 @@ public class AlgebraicProver {
         if (myModels[myVCIndex] == null) {
             myModels[myVCIndex] =
                     new PerVCProverModel(myTypeGraph, myVCs.get(myVCIndex)
-                            .getName(), myVCs.get(myVCIndex), myTheoremLibrary);
-            myAutomatedProvers[myVCIndex] =
-                    new AutomatedProver(myModels[myVCIndex], myTheoremLibrary,
-                            myModuleScope, myTimeout);
+                            .getName(), myVCs.get(myVCIndex), myTheoremIndex);
+
+            //A VC proved as another one is never searched
+            if (myProvedAs[myVCIndex] == myVCIndex) {
+                myAutomatedProvers[myVCIndex] =
+                        new AutomatedProver(myModels[myVCIndex],
+                                myTheoremLibrary, myLibraryTransformations,
+                                myModuleScope, myTimeout, myNumWorkers);
+            }
         }
 
         if (myUI != null) {
@@ -437,7 +523,7 @@ public class AlgebraicProver {
             }
         }
 
-        if (!myInteractiveModeFlag) {
+        if (!myInteractiveModeFlag && myAutomatedProvers[previousIndex] != null) {
             myAutomatedProvers[previousIndex].pause();
             //The prover thread will take care of starting the appropriate
             //automated prover now
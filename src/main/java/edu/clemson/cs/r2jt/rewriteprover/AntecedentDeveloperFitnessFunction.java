@@ -12,11 +12,8 @@
  */
 package edu.clemson.cs.r2jt.rewriteprover;
 
-import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
 import edu.clemson.cs.r2jt.rewriteprover.model.Conjunct;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
-import edu.clemson.cs.r2jt.rewriteprover.transformations.ExpandAntecedentBySubstitution;
-import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -26,7 +23,7 @@ import java.util.Set;
  */
 public class AntecedentDeveloperFitnessFunction
         implements
-            FitnessFunction<Transformation> {
+            FitnessFunction<TransformationFeatures> {
 
     private Set<String> myConsequentVariableNames = new HashSet<String>();
 
@@ -38,25 +35,15 @@ public class AntecedentDeveloperFitnessFunction
     }
 
     @Override
-    public double calculateFitness(Transformation t) {
+    public double calculateFitness(TransformationFeatures t) {
         double result = 0;
 
         if (t.couldAffectConsequent() || t.introducesQuantifiedVariables()) {
             result = -1;
         }
         else if (AutomatedProver.H_DETECT_IDENTITY_EXPANSION
-                && t instanceof ExpandAntecedentBySubstitution) {
-            ExpandAntecedentBySubstitution tAsSIPIC =
-                    (ExpandAntecedentBySubstitution) t;
-
-            PExp pattern = tAsSIPIC.getMatchPattern();
-            PExp replacement = tAsSIPIC.getTransformationTemplate();
-            if (pattern.getFunctionApplications().isEmpty()
-                    && pattern.getQuantifiedVariables().size() == 1
-                    && replacement.getQuantifiedVariables().contains(
-                            pattern.getQuantifiedVariables().iterator().next())) {
-                result = -1;
-            }
+                && t.isIdentityExpansion()) {
+            result = -1;
         }
 
         return result;
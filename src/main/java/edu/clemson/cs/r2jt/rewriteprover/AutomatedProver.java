@@ -22,6 +22,7 @@ import edu.clemson.cs.r2jt.rewriteprover.automators.Automator;
 import edu.clemson.cs.r2jt.rewriteprover.automators.EliminateObviousAntecedents;
 import edu.clemson.cs.r2jt.rewriteprover.automators.EliminateRedundantAntecedents;
 import edu.clemson.cs.r2jt.rewriteprover.automators.MainProofLevel;
+import edu.clemson.cs.r2jt.rewriteprover.automators.ParallelProofSearch;
 import edu.clemson.cs.r2jt.rewriteprover.automators.Minimizer;
 import edu.clemson.cs.r2jt.rewriteprover.automators.PushSequence;
 import edu.clemson.cs.r2jt.rewriteprover.automators.Simplify;
@@ -42,14 +43,13 @@ import edu.clemson.cs.r2jt.typeandpopulate.entry.SymbolTableEntry;
 import edu.clemson.cs.r2jt.typeandpopulate.query.NameQuery;
 import edu.clemson.cs.r2jt.misc.FlagManager;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
 import java.util.Set;
 import javax.swing.SwingUtilities;
 
@@ -95,10 +95,26 @@ public class AutomatedProver {
     private final int myTimeout;
     private long myStartTime;
     private long myEndTime;
+    private long myStopTime = Long.MAX_VALUE;
 
     public AutomatedProver(PerVCProverModel m,
             ImmutableList<Theorem> theoremLibrary, ModuleScope moduleScope,
             int timeout) {
+        this(m, theoremLibrary, new LibraryTransformations(theoremLibrary),
+                moduleScope, timeout, 1);
+    }
+
+    /**
+     * <p>Creates a prover that orders the given transformations of
+     * <code>theoremLibrary</code>, which may be shared with the provers of
+     * other VCs, and, if <code>numWorkers</code> is greater than one,
+     * searches for a proof on that many threads once the antecedent has been
+     * developed. See {@link ParallelProofSearch ParallelProofSearch}.</p>
+     */
+    public AutomatedProver(PerVCProverModel m,
+            ImmutableList<Theorem> theoremLibrary,
+            LibraryTransformations libraryTransformations,
+            ModuleScope moduleScope, int timeout, int numWorkers) {
         myModel = m;
         myMainProofFitnessFunction = new MainProofFitnessFunction(m);
         myAntecedentDeveloperFitnessFunction =
@@ -123,14 +139,14 @@ public class AutomatedProver {
                     .println("###################### consequent transformations");
         }
         List<Transformation> consequentTransformations =
-                orderByFitnessFunction(myTheoremLibrary,
+                orderByFitnessFunction(libraryTransformations,
                         myMainProofFitnessFunction);
         if (!FlagManager.getInstance().isFlagSet(ResolveCompiler.FLAG_NO_DEBUG)) {
             System.out
                     .println("###################### antecedent transformations");
         }
         List<Transformation> antecedentTransformations =
-                orderByFitnessFunction(myTheoremLibrary,
+                orderByFitnessFunction(libraryTransformations,
                         myAntecedentDeveloperFitnessFunction);
 
         List<Automator> steps = new LinkedList<Automator>();
@@ -167,52 +183,42 @@ public class AutomatedProver {
         steps.add(new ApplyN(new NoOpLabel(this, SEARCH_START_LABEL), 1));
 
         steps.add(Simplify.INSTANCE);
-        steps.add(new MainProofLevel(m, 3, consequentTransformations));
+        if (numWorkers > 1) {
+            steps.add(new ParallelProofSearch(this, 3,
+                    consequentTransformations, numWorkers));
+        }
+        else {
+            steps.add(new MainProofLevel(m, 3, consequentTransformations));
+        }
 
         myAutomatorStack.push(new PushSequence(steps));
     }
 
     private List<Transformation> orderByFitnessFunction(
-            Iterable<Theorem> theorems, FitnessFunction<Transformation> f) {
+            LibraryTransformations libraryTransformations,
+            FitnessFunction<TransformationFeatures> f) {
 
-        PriorityQueue<Transformation> transformationHeap =
-                new PriorityQueue<Transformation>(11,
-                        new TransformationComparator(f));
-        List<Transformation> theoremTransformations;
-        for (Theorem t : theorems) {
-            theoremTransformations = t.getTransformations();
-
-            for (Transformation transformation : theoremTransformations) {
-                transformationHeap.add(transformation);
-            }
-        }
+        boolean debug =
+                !FlagManager.getInstance().isFlagSet(
+                        ResolveCompiler.FLAG_NO_DEBUG);
 
-        List<Transformation> transformations = new LinkedList<Transformation>();
-        Transformation top;
-        while (!transformationHeap.isEmpty()
-                && f.calculateFitness(transformationHeap.peek()) >= 0) {
+        List<Transformation> transformations = new ArrayList<Transformation>();
+        boolean recommendedAgainst = false;
+        for (LibraryTransformations.Scored scored : libraryTransformations
+                .orderByFitness(f)) {
+            Transformation t = scored.transformation.getTransformation();
 
-            top = transformationHeap.poll();
-            transformations.add(top);
-            if (!FlagManager.getInstance().isFlagSet(
-                    ResolveCompiler.FLAG_NO_DEBUG)) {
-                System.out.println(top + " (" + top.getClass() + ") -- "
-                        + f.calculateFitness(top));
+            if (scored.fitness >= 0) {
+                transformations.add(t);
             }
-        }
-
-        if (transformationHeap.size() > 0) {
-            if (!FlagManager.getInstance().isFlagSet(
-                    ResolveCompiler.FLAG_NO_DEBUG)) {
+            else if (debug && !recommendedAgainst) {
+                recommendedAgainst = true;
                 System.out.println("<<<<<<<<<<<<<<< recommend against");
             }
-            while (!transformationHeap.isEmpty()) {
-                top = transformationHeap.poll();
-                if (!FlagManager.getInstance().isFlagSet(
-                        ResolveCompiler.FLAG_NO_DEBUG)) {
-                    System.out.println(top + " (" + top.getClass() + ") -- "
-                            + f.calculateFitness(top));
-                }
+
+            if (debug) {
+                System.out.println(t + " (" + t.getClass() + ") -- "
+                        + scored.fitness);
             }
         }
 
@@ -357,10 +363,14 @@ public class AutomatedProver {
                 System.out
                         .println("============= AutomatedProver - start() ==============");
             }
-            long stopTime = System.currentTimeMillis() + myTimeout;
+            if (myTimeout == -1) {
+                myStopTime = Long.MAX_VALUE;
+            }
+            else {
+                myStopTime = System.currentTimeMillis() + myTimeout;
+            }
             myRunningFlag = true;
-            while (myRunningFlag
-                    && (myTimeout == -1 || System.currentTimeMillis() < stopTime)) {
+            while (myRunningFlag && System.currentTimeMillis() < myStopTime) {
                 workerStep();
             }
 
@@ -380,6 +390,16 @@ public class AutomatedProver {
         }
     }
 
+    /**
+     * <p>Returns the time, in the terms of
+     * <code>System.currentTimeMillis()</code>, at which the current call to
+     * {@link #start() start()} will stop searching, or
+     * <code>Long.MAX_VALUE</code> if there is no timeout.</p>
+     */
+    public long getStopTime() {
+        return myStopTime;
+    }
+
     public long getLastStartLength() {
         return myEndTime - myStartTime;
     }
@@ -485,36 +505,4 @@ public class AutomatedProver {
 
         myTakingStepFlag = false;
     }
-
-    private class TransformationComparator
-            implements
-                Comparator<Transformation> {
-
-        private final FitnessFunction<Transformation> myFitnessFunction;
-
-        public TransformationComparator(FitnessFunction<Transformation> f) {
-            myFitnessFunction = f;
-        }
-
-        @Override
-        public int compare(Transformation o1, Transformation o2) {
-            int result;
-
-            double fitness1 = myFitnessFunction.calculateFitness(o1);
-            double fitness2 = myFitnessFunction.calculateFitness(o2);
-
-            if (fitness1 > fitness2) {
-                result = -1;
-            }
-            else if (fitness2 > fitness1) {
-                result = 1;
-            }
-            else {
-                //Give us a consistent, if arbitrary, order
-                result = o1.getKey().compareTo(o2.getKey());
-            }
-
-            return result;
-        }
-    }
 }
@@ -0,0 +1,106 @@
+/**
+ * LibraryTransformations.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.model.Theorem;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * <p>The transformations of every theorem in a theorem library, each with
+ * its {@link TransformationFeatures TransformationFeatures}. Built once per
+ * library and shared by the automated provers of all the VCs proved with it,
+ * so that each prover only has to score the transformations against its own
+ * VC.</p>
+ */
+public class LibraryTransformations {
+
+    private final List<TransformationFeatures> myTransformations;
+
+    public LibraryTransformations(Iterable<Theorem> theorems) {
+        List<TransformationFeatures> transformations =
+                new ArrayList<TransformationFeatures>();
+
+        for (Theorem t : theorems) {
+            for (Transformation transformation : t.getTransformations()) {
+                transformations.add(new TransformationFeatures(transformation));
+            }
+        }
+
+        myTransformations = Collections.unmodifiableList(transformations);
+    }
+
+    public List<TransformationFeatures> getTransformations() {
+        return myTransformations;
+    }
+
+    /**
+     * <p>Scores every transformation with <code>f</code>, once each, and
+     * returns them best first. Ties are broken by key, so the order is
+     * consistent, if arbitrary.</p>
+     */
+    public List<Scored> orderByFitness(FitnessFunction<TransformationFeatures> f) {
+        Scored[] result = new Scored[myTransformations.size()];
+
+        int i = 0;
+        for (TransformationFeatures t : myTransformations) {
+            result[i++] = new Scored(t, f.calculateFitness(t));
+        }
+
+        Arrays.sort(result, BEST_FIRST);
+
+        return Arrays.asList(result);
+    }
+
+    private static final Comparator<Scored> BEST_FIRST =
+            new Comparator<Scored>() {
+
+                @Override
+                public int compare(Scored o1, Scored o2) {
+                    int result;
+
+                    if (o1.fitness > o2.fitness) {
+                        result = -1;
+                    }
+                    else if (o2.fitness > o1.fitness) {
+                        result = 1;
+                    }
+                    else {
+                        result =
+                                o1.transformation.getKey().compareTo(
+                                        o2.transformation.getKey());
+                    }
+
+                    return result;
+                }
+            };
+
+    /**
+     * <p>A transformation together with its fitness for a particular
+     * VC.</p>
+     */
+    public static class Scored {
+
+        public final TransformationFeatures transformation;
+        public final double fitness;
+
+        public Scored(TransformationFeatures transformation, double fitness) {
+            this.transformation = transformation;
+            this.fitness = fitness;
+        }
+    }
+}
@@ -12,12 +12,9 @@
  */
 package edu.clemson.cs.r2jt.rewriteprover;
 
-import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
 import edu.clemson.cs.r2jt.rewriteprover.model.Conjunct;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
 import edu.clemson.cs.r2jt.rewriteprover.transformations.StrengthenConsequent;
-import edu.clemson.cs.r2jt.rewriteprover.transformations.SubstituteInPlaceInConsequent;
-import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -27,7 +24,7 @@ import java.util.Set;
  */
 public class MainProofFitnessFunction
         implements
-            FitnessFunction<Transformation> {
+            FitnessFunction<TransformationFeatures> {
 
     private Set<String> myConsequentVariableNames = new HashSet<String>();
 
@@ -39,40 +36,33 @@ public class MainProofFitnessFunction
     }
 
     @Override
-    public double calculateFitness(Transformation t) {
+    public double calculateFitness(TransformationFeatures t) {
         double result = 0;
 
         if (t.couldAffectAntecedent()
-                || (!(t instanceof StrengthenConsequent) && t
+                || (!(t.getTransformation() instanceof StrengthenConsequent) && t
                         .introducesQuantifiedVariables())) {
             result = -1;
         }
         else if (AutomatedProver.H_DETECT_IDENTITY_EXPANSION
-                && t instanceof SubstituteInPlaceInConsequent) {
-            SubstituteInPlaceInConsequent tAsSIPIC =
-                    (SubstituteInPlaceInConsequent) t;
-
-            PExp pattern = tAsSIPIC.getPattern();
-            PExp replacement = tAsSIPIC.getReplacement();
-            if (pattern.getFunctionApplications().isEmpty()
-                    && pattern.getQuantifiedVariables().size() == 1
-                    && replacement.getQuantifiedVariables().contains(
-                            pattern.getQuantifiedVariables().iterator().next())) {
-                result = -1;
-            }
+                && t.isIdentityExpansion()) {
+            result = -1;
         }
 
         if (result == 0 && AutomatedProver.H_BEST_FIRST_CONSEQUENT_EXPLORATION) {
-            Set<String> introduced =
-                    new HashSet<String>(t.getReplacementSymbolNames());
-            introduced.removeAll(myConsequentVariableNames);
+            int introduced = 0;
+            for (String name : t.getReplacementSymbolNames()) {
+                if (!myConsequentVariableNames.contains(name)) {
+                    introduced++;
+                }
+            }
 
             double simplificationFactor =
                     unitAtan(t.functionApplicationCountDelta() * -1);
 
             result =
-                    Math.min(Math.pow(0.5, introduced.size())
-                            * simplificationFactor, 1.0);
+                    Math.min(Math.pow(0.5, introduced) * simplificationFactor,
+                            1.0);
         }
 
         return result;
@@ -114,6 +114,27 @@ public final class Prover {
             new Flag(FLAG_SECTION_NAME, "timeout", FLAG_DESC_TIMEOUT,
                     FLAG_TIMEOUT_ARGS, Flag.Type.HIDDEN);
 
+    public static final String FLAG_NUM_WORKERS_ARG_NAME = "count";
+
+    private static final String[] FLAG_NUM_WORKERS_ARGS =
+            { FLAG_NUM_WORKERS_ARG_NAME };
+
+    private static final String FLAG_DESC_NUM_WORKERS =
+            "Takes a number of worker threads to use when proving VCs with "
+                    + "-ccprove.  VCs are proved concurrently, but results are "
+                    + "still reported in VC order.  With -newprove and -nogui, "
+                    + "each VC's proof search is split among the threads.";
+
+    /**
+     * <p>
+     * Lets the congruence class prover work on several VCs at once, and
+     * the integrated prover search for each proof on several threads.
+     * </p>
+     */
+    public static final Flag FLAG_NUM_WORKERS =
+            new Flag(FLAG_SECTION_NAME, "workers", FLAG_DESC_NUM_WORKERS,
+                    FLAG_NUM_WORKERS_ARGS, Flag.Type.HIDDEN);
+
     /**
      * <p>
      * Prints additional debugging information.
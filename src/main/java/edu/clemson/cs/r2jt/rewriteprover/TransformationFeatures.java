@@ -0,0 +1,120 @@
+/**
+ * TransformationFeatures.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.ExpandAntecedentBySubstitution;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.SubstituteInPlaceInConsequent;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>The properties of a {@link Transformation Transformation} that the
+ * {@link FitnessFunction FitnessFunction}s of the automated prover look at,
+ * calculated once when it is created. None of them depend on the VC being
+ * proved, so the features of a library's transformations can be shared by
+ * every VC proved with that library.</p>
+ */
+public final class TransformationFeatures {
+
+    private final Transformation myTransformation;
+    private final String myKey;
+    private final boolean myCouldAffectAntecedentFlag;
+    private final boolean myCouldAffectConsequentFlag;
+    private final boolean myIntroducesQuantifiedVariablesFlag;
+    private final boolean myIdentityExpansionFlag;
+    private final int myFunctionApplicationCountDelta;
+    private final Set<String> myReplacementSymbolNames;
+
+    public TransformationFeatures(Transformation t) {
+        myTransformation = t;
+        myKey = t.getKey();
+        myCouldAffectAntecedentFlag = t.couldAffectAntecedent();
+        myCouldAffectConsequentFlag = t.couldAffectConsequent();
+        myIntroducesQuantifiedVariablesFlag = t.introducesQuantifiedVariables();
+        myFunctionApplicationCountDelta = t.functionApplicationCountDelta();
+        myReplacementSymbolNames =
+                Collections.unmodifiableSet(new HashSet<String>(t
+                        .getReplacementSymbolNames()));
+
+        if (t instanceof SubstituteInPlaceInConsequent) {
+            SubstituteInPlaceInConsequent tAsSIPIC =
+                    (SubstituteInPlaceInConsequent) t;
+            myIdentityExpansionFlag =
+                    isIdentityExpansion(tAsSIPIC.getPattern(), tAsSIPIC
+                            .getReplacement());
+        }
+        else if (t instanceof ExpandAntecedentBySubstitution) {
+            ExpandAntecedentBySubstitution tAsEABS =
+                    (ExpandAntecedentBySubstitution) t;
+            myIdentityExpansionFlag =
+                    isIdentityExpansion(tAsEABS.getMatchPattern(), tAsEABS
+                            .getTransformationTemplate());
+        }
+        else {
+            myIdentityExpansionFlag = false;
+        }
+    }
+
+    public Transformation getTransformation() {
+        return myTransformation;
+    }
+
+    public String getKey() {
+        return myKey;
+    }
+
+    public boolean couldAffectAntecedent() {
+        return myCouldAffectAntecedentFlag;
+    }
+
+    public boolean couldAffectConsequent() {
+        return myCouldAffectConsequentFlag;
+    }
+
+    public boolean introducesQuantifiedVariables() {
+        return myIntroducesQuantifiedVariablesFlag;
+    }
+
+    /**
+     * <p>Returns whether this is a substitution that would take some
+     * <code>i</code> and make it, for example, <code>i + 0</code>, i.e.,
+     * whose pattern is a lone quantified variable that appears in its
+     * replacement.</p>
+     */
+    public boolean isIdentityExpansion() {
+        return myIdentityExpansionFlag;
+    }
+
+    public int functionApplicationCountDelta() {
+        return myFunctionApplicationCountDelta;
+    }
+
+    public Set<String> getReplacementSymbolNames() {
+        return myReplacementSymbolNames;
+    }
+
+    @Override
+    public String toString() {
+        return myTransformation.toString();
+    }
+
+    private static boolean isIdentityExpansion(PExp pattern, PExp replacement) {
+        return pattern.getFunctionApplications().isEmpty()
+                && pattern.getQuantifiedVariables().size() == 1
+                && replacement.getQuantifiedVariables().contains(
+                        pattern.getQuantifiedVariables().iterator().next());
+    }
+}
@@ -0,0 +1,254 @@
+/**
+ * VCEquivalenceClasses.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
+import edu.clemson.cs.r2jt.typeandpopulate.MTType;
+
+/**
+ * <p>Partitions a list of VCs into classes of VCs that are the same up to a
+ * consistent renaming of their variables, so that a prover need only prove
+ * one VC of each class.</p>
+ *
+ * <p>A VC is implicitly universally quantified over its free variables, so
+ * those may be renamed as well as explicitly quantified ones. A variable here
+ * is any symbol without arguments that is not a literal and is not named by
+ * any of the theorems the VCs are proved with, since a theorem can tell such
+ * a name apart from every other.</p>
+ *
+ * <p>Two VCs are in the same class if their antecedents and consequents have
+ * the same conjuncts in the same order, where corresponding subexpressions
+ * have the same name (or are variables with the same quantification, in
+ * one-to-one correspondence) and types that are <code>equals()</code>, which
+ * for <code>MTType</code>s is alpha equivalence.</p>
+ */
+public class VCEquivalenceClasses {
+
+    private final List<VC> myRepresentatives = new ArrayList<VC>();
+
+    /**
+     * <p>The names of the theorems' symbols, which are never renamed.</p>
+     */
+    private final Set<String> myFixedNames;
+
+    /**
+     * <p>For each VC, the index in <code>myRepresentatives</code> of the VC
+     * proved in its place.</p>
+     */
+    private final int[] myRepresentativeIndices;
+
+    /**
+     * @param vcs The VCs to partition.
+     * @param fixedNames The names of every symbol in the theorems the VCs
+     *                   will be proved with.
+     */
+    public VCEquivalenceClasses(List<VC> vcs, Set<String> fixedNames) {
+        myFixedNames = fixedNames;
+        myRepresentativeIndices = new int[vcs.size()];
+
+        Map<Integer, List<Integer>> representativesByHash =
+                new HashMap<Integer, List<Integer>>();
+
+        int vcIndex = 0;
+        for (VC vc : vcs) {
+            int hash = hash(vc);
+
+            List<Integer> candidates = representativesByHash.get(hash);
+            if (candidates == null) {
+                candidates = new ArrayList<Integer>(1);
+                representativesByHash.put(hash, candidates);
+            }
+
+            int representative = -1;
+            Iterator<Integer> candidateIter = candidates.iterator();
+            while (representative == -1 && candidateIter.hasNext()) {
+                int candidate = candidateIter.next();
+                if (equivalent(myRepresentatives.get(candidate), vc)) {
+                    representative = candidate;
+                }
+            }
+
+            if (representative == -1) {
+                representative = myRepresentatives.size();
+                myRepresentatives.add(vc);
+                candidates.add(representative);
+            }
+
+            myRepresentativeIndices[vcIndex++] = representative;
+        }
+    }
+
+    /**
+     * <p>Returns one VC of each class, in the order of their first
+     * appearance.</p>
+     *
+     * @return The VCs to prove.
+     */
+    public List<VC> getRepresentatives() {
+        return myRepresentatives;
+    }
+
+    /**
+     * <p>Returns the index, in <code>getRepresentatives()</code>, of the VC
+     * whose proof stands for the proof of the given VC.</p>
+     *
+     * @param vcIndex The index of a VC in the original list.
+     *
+     * @return The index of its class's representative.
+     */
+    public int getRepresentativeIndex(int vcIndex) {
+        return myRepresentativeIndices[vcIndex];
+    }
+
+    private int hash(VC vc) {
+        return 31 * hash(vc.getAntecedent()) + hash(vc.getConsequent());
+    }
+
+    private int hash(ImmutableConjuncts conjuncts) {
+        int result = conjuncts.size();
+
+        for (PExp conjunct : conjuncts) {
+            result = 31 * result + hash(conjunct);
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>A hash that does not depend on the names of variables or on
+     * types.</p>
+     */
+    private int hash(PExp e) {
+        int result;
+
+        if (e instanceof PSymbol) {
+            PSymbol eAsPSymbol = (PSymbol) e;
+
+            if (isVariable(eAsPSymbol)) {
+                result = eAsPSymbol.quantification.hashCode();
+            }
+            else {
+                result = eAsPSymbol.name.hashCode();
+                for (PExp argument : eAsPSymbol.arguments) {
+                    result = 31 * result + hash(argument);
+                }
+            }
+        }
+        else {
+            result = e.hashCode();
+        }
+
+        return result;
+    }
+
+    private boolean equivalent(VC vc1, VC vc2) {
+        Map<String, String> renaming = new HashMap<String, String>();
+        Map<String, String> inverse = new HashMap<String, String>();
+
+        return equivalent(vc1.getAntecedent(), vc2.getAntecedent(), renaming,
+                inverse)
+                && equivalent(vc1.getConsequent(), vc2.getConsequent(),
+                        renaming, inverse);
+    }
+
+    private boolean equivalent(ImmutableConjuncts c1, ImmutableConjuncts c2,
+            Map<String, String> renaming, Map<String, String> inverse) {
+        boolean result = (c1.size() == c2.size());
+
+        Iterator<PExp> c1Iter = c1.iterator();
+        Iterator<PExp> c2Iter = c2.iterator();
+        while (result && c1Iter.hasNext()) {
+            result =
+                    equivalent(c1Iter.next(), c2Iter.next(), renaming, inverse);
+        }
+
+        return result;
+    }
+
+    private boolean equivalent(PExp e1, PExp e2, Map<String, String> renaming,
+            Map<String, String> inverse) {
+        boolean result = sameType(e1.getType(), e2.getType());
+
+        if (result && e1 instanceof PSymbol && e2 instanceof PSymbol) {
+            PSymbol s1 = (PSymbol) e1;
+            PSymbol s2 = (PSymbol) e2;
+
+            if (isVariable(s1) || isVariable(s2)) {
+                result =
+                        s1.quantification == s2.quantification
+                                && isVariable(s1) && isVariable(s2)
+                                && rename(s1.name, s2.name, renaming, inverse);
+            }
+            else {
+                // Other names map to themselves, so no variable can be
+                // renamed to one of them
+                result =
+                        s1.name.equals(s2.name)
+                                && s1.quantification == s2.quantification
+                                && s1.arguments.size() == s2.arguments.size()
+                                && rename(s1.name, s2.name, renaming, inverse);
+
+                Iterator<PExp> args1 = s1.arguments.iterator();
+                Iterator<PExp> args2 = s2.arguments.iterator();
+                while (result && args1.hasNext()) {
+                    result =
+                            equivalent(args1.next(), args2.next(), renaming,
+                                    inverse);
+                }
+            }
+        }
+        else if (result) {
+            // Lambdas and alternatives bind names of their own, so they are
+            // only considered equivalent when they are equal
+            result = e1.equals(e2);
+        }
+
+        return result;
+    }
+
+    private static boolean rename(String name1, String name2,
+            Map<String, String> renaming, Map<String, String> inverse) {
+        String existing = renaming.get(name1);
+        String existingInverse = inverse.get(name2);
+        boolean result;
+
+        if (existing == null && existingInverse == null) {
+            renaming.put(name1, name2);
+            inverse.put(name2, name1);
+            result = true;
+        }
+        else {
+            result = name2.equals(existing) && name1.equals(existingInverse);
+        }
+
+        return result;
+    }
+
+    private static boolean sameType(MTType t1, MTType t2) {
+        return (t1 == null) ? t2 == null : t1.equals(t2);
+    }
+
+    private boolean isVariable(PSymbol s) {
+        return s.arguments.size() == 0
+                && (s.quantification != PSymbol.Quantification.NONE || !(s
+                        .isLiteral() || myFixedNames.contains(s.name)));
+    }
+}
@@ -294,18 +294,17 @@ public class PAlternatives extends PExp {
     }
 
     @Override
-    public void bindTo(PExp target, Map<PExp, PExp> accumulator)
-            throws BindingException {
+    public boolean tryBindTo(PExp target, Map<PExp, PExp> accumulator) {
 
         if (!(target instanceof PAlternatives)) {
-            throw BINDING_EXCEPTION;
+            return false;
         }
 
         PAlternatives targetAsPAlternatives = (PAlternatives) target;
 
         if (myAlternatives.size() != targetAsPAlternatives.myAlternatives
                 .size()) {
-            throw BINDING_EXCEPTION;
+            return false;
         }
 
         Iterator<Alternative> thisAlternatives = myAlternatives.iterator();
@@ -317,11 +316,14 @@ public class PAlternatives extends PExp {
             curThisAlt = thisAlternatives.next();
             curTargetAlt = targetAlternatives.next();
 
-            curThisAlt.result.bindTo(curTargetAlt.result, accumulator);
-            curThisAlt.condition.bindTo(curTargetAlt.condition, accumulator);
+            if (!curThisAlt.result.tryBindTo(curTargetAlt.result, accumulator)
+                    || !curThisAlt.condition.tryBindTo(curTargetAlt.condition,
+                            accumulator)) {
+                return false;
+            }
         }
 
-        myOtherwiseClauseResult.bindTo(
+        return myOtherwiseClauseResult.tryBindTo(
                 targetAsPAlternatives.myOtherwiseClauseResult, accumulator);
     }
 
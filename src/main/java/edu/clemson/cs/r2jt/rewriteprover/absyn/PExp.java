@@ -44,9 +44,9 @@ public abstract class PExp {
     protected final MTType myType;
     protected final MTType myTypeValue;
 
-    private Set<String> myCachedSymbolNames = null;
-    private List<PExp> myCachedFunctionApplications = null;
-    private Set<PSymbol> myCachedQuantifiedVariables = null;
+    private volatile Set<String> myCachedSymbolNames = null;
+    private volatile List<PExp> myCachedFunctionApplications = null;
+    private volatile Set<PSymbol> myCachedQuantifiedVariables = null;
 
     public PExp(HashDuple hashes, MTType type, MTType typeValue) {
         this(hashes.structureHash, hashes.valueHash, type, typeValue);
@@ -539,15 +539,48 @@ public abstract class PExp {
     }
 
     public final Map<PExp, PExp> bindTo(PExp target) throws BindingException {
+        Map<PExp, PExp> bindings = tryBindTo(target);
+
+        if (bindings == null) {
+            throw BINDING_EXCEPTION;
+        }
+
+        return bindings;
+    }
+
+    /**
+     * <p>As <code>bindTo()</code>, but returns <code>null</code> rather than
+     * throwing if this expression does not bind to <code>target</code>.</p>
+     */
+    public final Map<PExp, PExp> tryBindTo(PExp target) {
         Map<PExp, PExp> bindings = new HashMap<PExp, PExp>();
 
-        bindTo(target, bindings);
+        if (!tryBindTo(target, bindings)) {
+            bindings = null;
+        }
 
         return bindings;
     }
 
-    public abstract void bindTo(PExp target, Map<PExp, PExp> accumulator)
-            throws BindingException;
+    public final void bindTo(PExp target, Map<PExp, PExp> accumulator)
+            throws BindingException {
+
+        if (!tryBindTo(target, accumulator)) {
+            throw BINDING_EXCEPTION;
+        }
+    }
+
+    /**
+     * <p>Binds the free variables of this expression so that it matches
+     * <code>target</code>, adding the bindings to <code>accumulator</code>.
+     * Binding fails often while searching for a match, so failure is
+     * reported by the result rather than by an exception.</p>
+     *
+     * @return <code>true</code> if this expression binds to
+     *         <code>target</code>. If not, <code>accumulator</code> may hold
+     *         some bindings made before the mismatch was found.
+     */
+    public abstract boolean tryBindTo(PExp target, Map<PExp, PExp> accumulator);
 
     @Override
     public int hashCode() {
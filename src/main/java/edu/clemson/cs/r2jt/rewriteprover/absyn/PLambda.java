@@ -132,18 +132,17 @@ public class PLambda extends PExp {
     }
 
     @Override
-    public void bindTo(PExp target, Map<PExp, PExp> accumulator)
-            throws BindingException {
+    public boolean tryBindTo(PExp target, Map<PExp, PExp> accumulator) {
 
         if (!(target instanceof PLambda) || !typeMatches(target)) {
-            throw BINDING_EXCEPTION;
+            return false;
         }
 
         PLambda targetAsPLambda = (PLambda) target;
 
         targetAsPLambda = (PLambda) targetAsPLambda.substitute(accumulator);
 
-        myBody.bindTo(targetAsPLambda.myBody, accumulator);
+        return myBody.tryBindTo(targetAsPLambda.myBody, accumulator);
     }
 
     @Override
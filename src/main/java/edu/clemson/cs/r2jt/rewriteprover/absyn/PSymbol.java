@@ -169,10 +169,9 @@ public class PSymbol extends PExp {
     final DisplayType displayType;
     final String leftPrint, rightPrint;
 
-    private MTType myPreApplicationType;
+    private volatile MTType myPreApplicationType;
 
-    private int myArgumentsSize;
-    private final PExp[] myScratchSpace;
+    private final int myArgumentsSize;
 
     public PSymbol(MTType type, MTType typeValue, String leftPrint,
             String rightPrint, Collection<PExp> arguments,
@@ -199,7 +198,6 @@ public class PSymbol extends PExp {
 
         this.arguments = arguments;
         myArgumentsSize = arguments.size();
-        myScratchSpace = new PExp[myArgumentsSize];
 
         this.quantification = quantification;
         this.leftPrint = leftPrint;
@@ -435,6 +433,8 @@ public class PSymbol extends PExp {
                 }
             }
 
+            // Local, since a PExp may be substituted into by several threads
+            PExp[] newArguments = new PExp[myArgumentsSize];
             boolean argumentChanged = false;
             int argIndex = 0;
             Iterator<PExp> argumentsIter = arguments.iterator();
@@ -443,18 +443,21 @@ public class PSymbol extends PExp {
             while (argumentsIter.hasNext()) {
                 argument = argumentsIter.next();
 
-                myScratchSpace[argIndex] = argument.substitute(substitutions);
+                newArguments[argIndex] = argument.substitute(substitutions);
 
-                argumentChanged |= (myScratchSpace[argIndex] != argument);
+                argumentChanged |= (newArguments[argIndex] != argument);
                 argIndex++;
             }
 
             if (argumentChanged) {
                 retval =
-                        new PSymbol(myType, myTypeValue, newLeft, newRight,
-                                new ArrayBackedImmutableList<PExp>(
-                                        myScratchSpace), newQuantification,
-                                displayType);
+                        new PSymbol(
+                                myType,
+                                myTypeValue,
+                                newLeft,
+                                newRight,
+                                new ArrayBackedImmutableList<PExp>(newArguments),
+                                newQuantification, displayType);
             }
             else {
                 // changed this to handle case where func name changes but args don't -- mike
@@ -499,6 +502,7 @@ public class PSymbol extends PExp {
     public PExp flipQuantifiers() {
         PExp retval;
 
+        PExp[] newArguments = new PExp[myArgumentsSize];
         boolean argumentChanged = false;
         int argIndex = 0;
         Iterator<PExp> argumentsIter = arguments.iterator();
@@ -507,16 +511,16 @@ public class PSymbol extends PExp {
         while (argumentsIter.hasNext()) {
             argument = argumentsIter.next();
 
-            myScratchSpace[argIndex] = argument.flipQuantifiers();
+            newArguments[argIndex] = argument.flipQuantifiers();
 
-            argumentChanged |= (myScratchSpace[argIndex] != argument);
+            argumentChanged |= (newArguments[argIndex] != argument);
             argIndex++;
         }
 
         if (argumentChanged) {
             retval =
                     new PSymbol(myType, myTypeValue, leftPrint, rightPrint,
-                            Arrays.asList(myScratchSpace), quantification
+                            Arrays.asList(newArguments), quantification
                                     .flipped(), displayType);
         }
         else {
@@ -541,24 +545,20 @@ public class PSymbol extends PExp {
     }
 
     @Override
-    public void bindTo(PExp target, Map<PExp, PExp> accumulator)
-            throws BindingException {
+    public boolean tryBindTo(PExp target, Map<PExp, PExp> accumulator) {
 
-        PSymbol sTarget;
-        try {
-            sTarget = (PSymbol) target;
-        }
-        catch (ClassCastException e) {
+        if (!(target instanceof PSymbol)) {
             //We can only bind against other instances of PSymbol
-            throw BINDING_EXCEPTION;
+            return false;
         }
+        PSymbol sTarget = (PSymbol) target;
 
         //Note that at this point we're guaranteed that target is of the same
         //type as us
         if (quantification == Quantification.FOR_ALL) {
             if (!typeMatches(target)) {
                 //We can only bind against something in a subset of us
-                throw BINDING_EXCEPTION;
+                return false;
             }
 
             if (myArgumentsSize == 0) {
@@ -568,7 +568,7 @@ public class PSymbol extends PExp {
                 if (myArgumentsSize != sTarget.arguments.size()) {
                     //If we're a function, we can only bind against another
                     //function with the same number of arguments
-                    throw BINDING_EXCEPTION;
+                    return false;
                 }
 
                 accumulator.put(new PSymbol(myType, myTypeValue, name),
@@ -579,8 +579,10 @@ public class PSymbol extends PExp {
                 Iterator<PExp> targetArgumentsIter =
                         sTarget.arguments.iterator();
                 while (thisArgumentsIter.hasNext()) {
-                    thisArgumentsIter.next().substitute(accumulator).bindTo(
-                            targetArgumentsIter.next(), accumulator);
+                    if (!thisArgumentsIter.next().substitute(accumulator)
+                            .tryBindTo(targetArgumentsIter.next(), accumulator)) {
+                        return false;
+                    }
                 }
             }
         }
@@ -591,25 +593,29 @@ public class PSymbol extends PExp {
             if (!(myType.isSubtypeOf(target.myType) || target.myType
                     .isSubtypeOf(myType))) {
                 //We can only match something we're a subset of
-                throw BINDING_EXCEPTION;
+                return false;
             }
 
             if (!name.equals(sTarget.name)) {
-                throw BINDING_EXCEPTION;
+                return false;
             }
 
             if (myArgumentsSize != sTarget.arguments.size()) {
                 //We aren't a "for all", so everything better be exact
-                throw BINDING_EXCEPTION;
+                return false;
             }
 
             Iterator<PExp> thisArgumentsIter = arguments.iterator();
             Iterator<PExp> targetArgumentsIter = sTarget.arguments.iterator();
             while (thisArgumentsIter.hasNext()) {
-                thisArgumentsIter.next().substitute(accumulator).bindTo(
-                        targetArgumentsIter.next(), accumulator);
+                if (!thisArgumentsIter.next().substitute(accumulator)
+                        .tryBindTo(targetArgumentsIter.next(), accumulator)) {
+                    return false;
+                }
             }
         }
+
+        return true;
     }
 
     @Override
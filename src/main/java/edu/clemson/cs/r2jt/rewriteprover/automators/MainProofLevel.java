@@ -18,13 +18,17 @@ import edu.clemson.cs.r2jt.rewriteprover.AutomatedProver;
 import edu.clemson.cs.r2jt.rewriteprover.model.Theorem;
 import edu.clemson.cs.r2jt.rewriteprover.applications.Application;
 import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.model.ProofStateFingerprint;
 import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * <p><code>MainProofLevel</code> is an @{link Automator Automator} that 
@@ -44,6 +48,23 @@ import java.util.Set;
  * one less than its spawner.  A <code>MainProofLevel</code> with a tether
  * length of zero will not spawn further levels, but simply pop itself off the
  * stack.</p>
+ *
+ * <p>Proof states are identified by their
+ * {@link ProofStateFingerprint ProofStateFingerprint}. A level does not spawn a
+ * sub-level for a state that is already being explored further up the stack
+ * (a cycle), nor for one that some earlier level has already explored to
+ * completion with at least as much tether remaining. Skipping a cycle cuts
+ * the search short in a way that depends on the path taken to reach the
+ * state, so a level only records its state as explored if nothing in the
+ * search under it was skipped because of a cycle. A search from a recorded
+ * state found no proof without any help from the path above it, and a search
+ * with less tether would find none either.</p>
+ *
+ * <p>When several provers search the same proof state in parallel, each with
+ * its own copy of the model, their top-level <code>MainProofLevel</code>s
+ * share a counter of transformations. Each level claims the next unclaimed
+ * transformation from the counter whenever it finishes the last one it
+ * claimed, and skips the transformations claimed by the others.</p>
  */
 public class MainProofLevel implements Automator {
 
@@ -59,23 +80,84 @@ public class MainProofLevel implements Automator {
 
     private Restore myRestore;
 
-    private final Set<Integer> myPreviousProofStates;
+    /**
+     * <p>The states of the levels currently on the stack.</p>
+     */
+    private final Set<ProofStateFingerprint> myPreviousProofStates;
+
+    /**
+     * <p>The states whose levels have run to completion, mapped to the
+     * greatest tether length each has been explored with.</p>
+     */
+    private final Map<ProofStateFingerprint, Integer> myExploredProofStates;
+
+    private ProofStateFingerprint myStartingState;
 
-    private boolean myDetectedCycleFlag;
+    private boolean mySpawnedLevelFlag;
+
+    /**
+     * <p>The level that spawned this one, or <code>null</code> if this is a
+     * top-level <code>MainProofLevel</code>.</p>
+     */
+    private final MainProofLevel myParent;
+
+    /**
+     * <p>Whether some part of the search under this level has been skipped
+     * because it led back to a state further up the stack.</p>
+     */
+    private boolean myCutByCycleFlag;
+
+    /**
+     * <p>The counter of transformations claimed so far, if this level shares
+     * its transformations with others, otherwise <code>null</code>.</p>
+     */
+    private final AtomicInteger myTransformationClaims;
+    private int myTransformationIndex;
+    private int myClaimedTransformationIndex = -1;
 
     public MainProofLevel(PerVCProverModel model, int tetherLength,
             Iterable<Transformation> transformations) {
-        this(model, tetherLength, transformations, new HashSet<Integer>());
+        this(model, tetherLength, transformations,
+                new HashSet<ProofStateFingerprint>(),
+                new HashMap<ProofStateFingerprint, Integer>());
+    }
+
+    /**
+     * <p>Creates a top-level <code>MainProofLevel</code> that applies only
+     * the transformations it claims from <code>transformationClaims</code>.
+     * Every level sharing the counter must be working on a copy of the same
+     * proof state with the same transformations.</p>
+     */
+    public MainProofLevel(PerVCProverModel model, int tetherLength,
+            Iterable<Transformation> transformations,
+            AtomicInteger transformationClaims) {
+        this(model, tetherLength, transformations,
+                new HashSet<ProofStateFingerprint>(),
+                new HashMap<ProofStateFingerprint, Integer>(),
+                transformationClaims, null);
     }
 
     public MainProofLevel(PerVCProverModel model, int tetherLength,
             Iterable<Transformation> transformations,
-            Set<Integer> previousProofStates) {
+            Set<ProofStateFingerprint> previousProofStates,
+            Map<ProofStateFingerprint, Integer> exploredProofStates) {
+        this(model, tetherLength, transformations, previousProofStates,
+                exploredProofStates, null, null);
+    }
+
+    private MainProofLevel(PerVCProverModel model, int tetherLength,
+            Iterable<Transformation> transformations,
+            Set<ProofStateFingerprint> previousProofStates,
+            Map<ProofStateFingerprint, Integer> exploredProofStates,
+            AtomicInteger transformationClaims, MainProofLevel parent) {
 
         myModel = model;
         myTetherLength = tetherLength;
         myTransformations = transformations;
         myPreviousProofStates = previousProofStates;
+        myExploredProofStates = exploredProofStates;
+        myTransformationClaims = transformationClaims;
+        myParent = parent;
 
         myCurrentApplications =
                 DummyIterator.getInstance(myCurrentApplications);
@@ -100,21 +182,45 @@ public class MainProofLevel implements Automator {
                         .iterator(), myTransformations.iterator());
     }
 
+    /**
+     * <p>Returns whether this level should apply the transformation just
+     * taken from <code>myTransformationsIterator</code>.</p>
+     */
+    private boolean claimNextTransformation() {
+        boolean result = true;
+
+        if (myTransformationClaims != null) {
+            int index = myTransformationIndex++;
+
+            //Claims only ever increase, so once we've passed our last claim
+            //the next one can't be behind us
+            if (myClaimedTransformationIndex < index) {
+                myClaimedTransformationIndex =
+                        myTransformationClaims.getAndIncrement();
+            }
+
+            result = (index == myClaimedTransformationIndex);
+        }
+
+        return result;
+    }
+
     /**
      * <p>Performs bookkeeping before a restore happens.</p>
      */
     public void prepForRestore() {
-        if (!myDetectedCycleFlag) {
-            myPreviousProofStates.remove(myModel.implicationHashCode());
+        if (mySpawnedLevelFlag) {
+            myPreviousProofStates.remove(myModel.getProofStateFingerprint());
         }
-        myDetectedCycleFlag = false;
+        mySpawnedLevelFlag = false;
     }
 
     @Override
     public void step(Deque<Automator> stack, PerVCProverModel model) {
         if (myTransformationsIterator == null) {
             prepTransformationIterator();
-            myPreviousProofStates.add(model.implicationHashCode());
+            myStartingState = model.getProofStateFingerprint();
+            myPreviousProofStates.add(myStartingState);
             myRestore = new Restore(model, this);
         }
 
@@ -125,14 +231,33 @@ public class MainProofLevel implements Automator {
                     && myTransformationsIterator.hasNext()) {
 
                 myCurrentTransformation = myTransformationsIterator.next();
-                myCurrentApplications =
-                        myCurrentTransformation.getApplications(model);
+                if (claimNextTransformation()) {
+                    myCurrentApplications =
+                            myCurrentTransformation.getApplications(model);
+                }
             }
 
             if (myCurrentApplications.hasNext()) {
                 myCurrentApplications.next().apply(model);
             }
             else {
+                //Every application has been restored, so the model is back
+                //in our starting state.  A level that shared its
+                //transformations has only explored part of it.
+                if (myCutByCycleFlag) {
+                    if (myParent != null) {
+                        myParent.myCutByCycleFlag = true;
+                    }
+                }
+                else if (myTransformationClaims == null) {
+                    Integer explored =
+                            myExploredProofStates.get(myStartingState);
+                    if (explored == null || explored < myTetherLength) {
+                        myExploredProofStates.put(myStartingState,
+                                myTetherLength);
+                    }
+                }
+
                 stack.pop();
             }
             break;
@@ -144,14 +269,27 @@ public class MainProofLevel implements Automator {
             //Next level
             stack.push(myRestore);
 
-            myDetectedCycleFlag =
-                    AutomatedProver.H_DETECT_CYCLES
-                            && myPreviousProofStates.contains(myModel
-                                    .implicationHashCode());
+            if (myTetherLength > 0) {
+                ProofStateFingerprint state =
+                        myModel.getProofStateFingerprint();
+
+                boolean detectedCycle =
+                        AutomatedProver.H_DETECT_CYCLES
+                                && myPreviousProofStates.contains(state);
+
+                Integer explored = myExploredProofStates.get(state);
+                boolean alreadyExplored =
+                        AutomatedProver.H_DETECT_CYCLES && explored != null
+                                && explored >= myTetherLength - 1;
 
-            if (myTetherLength > 0 && !myDetectedCycleFlag) {
-                stack.push(new MainProofLevel(myModel, myTetherLength - 1,
-                        myTransformations, myPreviousProofStates));
+                myCutByCycleFlag |= detectedCycle;
+
+                mySpawnedLevelFlag = !detectedCycle && !alreadyExplored;
+                if (mySpawnedLevelFlag) {
+                    stack.push(new MainProofLevel(myModel, myTetherLength - 1,
+                            myTransformations, myPreviousProofStates,
+                            myExploredProofStates, null, this));
+                }
             }
             break;
         default:
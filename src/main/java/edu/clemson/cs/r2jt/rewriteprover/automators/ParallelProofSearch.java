@@ -0,0 +1,223 @@
+/**
+ * ParallelProofSearch.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.automators;
+
+import edu.clemson.cs.r2jt.rewriteprover.AutomatedProver;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.proofsteps.ProofStep;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p><code>ParallelProofSearch</code> is an {@link Automator Automator} that
+ * does the work of a top-level {@link MainProofLevel MainProofLevel} on
+ * several threads at once. Each thread works on its own
+ * {@link PerVCProverModel#copy() copy} of the model, under a top-level
+ * <code>MainProofLevel</code> that claims transformations from a shared
+ * counter, so idle threads take the next unexplored transformation until
+ * none are left.</p>
+ *
+ * <p>As soon as any copy is proved, the other threads stop and the winning
+ * copy's proof steps are {@link PerVCProverModel#mimic(ProofStep) mimicked}
+ * on the real model, which is then left in the same state, with the same
+ * kind of proof steps, as if the sequential search had found the proof.
+ * If the search space is exhausted without a proof, this automator pops
+ * itself off the stack. If it is stopped by the prover's timeout or by an
+ * interrupt, it leaves itself on the stack and the model untouched.</p>
+ *
+ * <p>The copies share nothing that changes: the transformations, and the
+ * patterns and templates inside them, are only ever read, substituted into,
+ * and bound, none of which write to a <code>PExp</code>, and the global
+ * theorems are never altered. Everything a transformation changes lives in
+ * the local theorems and consequents of the copy it was applied to.</p>
+ */
+public class ParallelProofSearch implements Automator {
+
+    private final AutomatedProver myProver;
+    private final int myTetherLength;
+    private final Iterable<Transformation> myTransformations;
+    private final int myNumWorkers;
+
+    public ParallelProofSearch(AutomatedProver prover, int tetherLength,
+            Iterable<Transformation> transformations, int numWorkers) {
+        myProver = prover;
+        myTetherLength = tetherLength;
+        myTransformations = transformations;
+        myNumWorkers = numWorkers;
+    }
+
+    @Override
+    public void step(Deque<Automator> stack, PerVCProverModel model) {
+        if (search(model, myProver.getStopTime())) {
+            stack.pop();
+        }
+    }
+
+    /**
+     * <p>Searches copies of <code>model</code> until one of them is proved,
+     * the search space is exhausted, <code>stopTime</code> passes, or this
+     * thread is interrupted. If a copy is proved, its proof steps are
+     * mimicked on <code>model</code>.</p>
+     *
+     * @return Whether the search is over, either because <code>model</code>
+     * has been proved or because there was no proof to find.
+     */
+    boolean search(PerVCProverModel model, final long stopTime) {
+        final AtomicInteger transformationClaims = new AtomicInteger();
+        final AtomicReference<PerVCProverModel> winner =
+                new AtomicReference<PerVCProverModel>();
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        ExecutorService pool = Executors.newFixedThreadPool(myNumWorkers);
+        List<Future<Boolean>> workers =
+                new ArrayList<Future<Boolean>>(myNumWorkers);
+        try {
+            for (int i = 0; i < myNumWorkers; i++) {
+                final PerVCProverModel copy = model.copy();
+
+                workers.add(pool.submit(new Callable<Boolean>() {
+
+                    @Override
+                    public Boolean call() {
+                        return search(copy, transformationClaims, winner,
+                                stopped, stopTime);
+                    }
+                }));
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        boolean exhausted = true;
+        boolean interrupted = false;
+        for (Future<Boolean> worker : workers) {
+            try {
+                exhausted &= waitFor(worker, stopped);
+            }
+            catch (InterruptedException ie) {
+                //Wait for the rest to wind down before passing it on
+                interrupted = true;
+                stopped.set(true);
+                exhausted &= waitForStopped(worker);
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        PerVCProverModel proved = winner.get();
+        if (proved != null) {
+            for (ProofStep step : proved.getProofSteps()) {
+                model.mimic(step);
+            }
+        }
+
+        return proved != null || exhausted;
+    }
+
+    /**
+     * <p>Runs a top-level <code>MainProofLevel</code> on <code>copy</code>
+     * until it proves it, runs out of transformations to claim, or is
+     * told to stop.</p>
+     *
+     * @return Whether the search ran to completion.
+     */
+    private boolean search(PerVCProverModel copy,
+            AtomicInteger transformationClaims,
+            AtomicReference<PerVCProverModel> winner, AtomicBoolean stopped,
+            long stopTime) {
+
+        Deque<Automator> stack = new ArrayDeque<Automator>(20);
+        stack.push(new MainProofLevel(copy, myTetherLength, myTransformations,
+                transformationClaims));
+
+        while (!stack.isEmpty() && !copy.noConsequents()
+                && winner.get() == null && !stopped.get()
+                && System.currentTimeMillis() < stopTime) {
+            stack.peek().step(stack, copy);
+        }
+
+        if (copy.noConsequents()) {
+            winner.compareAndSet(null, copy);
+        }
+
+        return stack.isEmpty();
+    }
+
+    /**
+     * <p>Waits for <code>worker</code> to finish.</p>
+     *
+     * @throws InterruptedException If this thread is interrupted, as by
+     * {@link AutomatedProver#pause() pause()}.
+     */
+    private boolean waitFor(Future<Boolean> worker, AtomicBoolean stopped)
+            throws InterruptedException {
+        try {
+            return worker.get();
+        }
+        catch (ExecutionException ee) {
+            stopped.set(true);
+            throw unwrap(ee);
+        }
+    }
+
+    /**
+     * <p>Waits, uninterruptibly, for a worker that has been told to stop.</p>
+     */
+    private boolean waitForStopped(Future<Boolean> worker) {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    return worker.get();
+                }
+                catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+                catch (ExecutionException ee) {
+                    throw unwrap(ee);
+                }
+            }
+        }
+        finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static RuntimeException unwrap(ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return new RuntimeException(cause);
+    }
+}
@@ -30,7 +30,7 @@ public class AtLeastOneLocalTheoremBinder extends AbstractBinder {
     @Override
     public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
             List<Site> boundSitesSoFar) {
-        Iterator<Site> result = m.topLevelAntecedentSiteIterator();
+        Iterator<Site> result = m.topLevelAntecedentSiteIterator(getPattern());
 
         boolean includeGlobal = true;
         if (boundSitesSoFar.size() == (myTotalBindingCount - 1)) {
@@ -47,7 +47,7 @@ public class AtLeastOneLocalTheoremBinder extends AbstractBinder {
         if (includeGlobal) {
             result =
                     new ChainingIterator<Site>(result, m
-                            .topLevelGlobalTheoremsIterator());
+                            .topLevelGlobalTheoremsIterator(getPattern()));
         }
 
         return result;
@@ -79,6 +79,13 @@ public final class PerVCProverModel {
 
                 return (eventCount % 300 == 0);
             }
+        },
+        NEVER {
+
+            @Override
+            public boolean report(boolean important) {
+                return false;
+            }
         };
 
         public abstract boolean report(boolean important);
@@ -130,6 +137,23 @@ public final class PerVCProverModel {
             new SimpleArrayList<Consequent>();
     private int myLocalTheoremsHash;
     private int myConsequentsHash;
+    private ProofStateFingerprint myProofStateFingerprint =
+            ProofStateFingerprint.EMPTY;
+    /**
+     * <p>The local theorems and consequents whose expressions are function
+     * applications, indexed by the name and arity of their top-level
+     * symbol. The global theorems are indexed the same way by
+     * <code>myTheoremIndex</code>. Each list is in the same relative order as
+     * the list it indexes, so a binder whose pattern has a fixed top-level
+     * symbol can visit just the sites it could bind to, in the order it would
+     * have visited them anyway. Lists are never removed from these maps, so
+     * they may be iterated while conjuncts are temporarily removed and
+     * restored, as with the lists they index.</p>
+     */
+    private final Map<String, List<Conjunct>> myLocalTheoremsBySymbol =
+            new HashMap<String, List<Conjunct>>();
+    private final Map<String, List<Conjunct>> myConsequentsBySymbol =
+            new HashMap<String, List<Conjunct>>();
     /**
      * <p>A list of the current proof under consideration. Starting with a fresh
      * <code>PerVCProverModel</code> initialized with the consequents,
@@ -145,6 +169,7 @@ public final class PerVCProverModel {
      * <p>A link to the global theorem library.</p>
      */
     private final ImmutableList<Theorem> myTheoremLibrary;
+    private final TheoremLibraryIndex myTheoremIndex;
     /**
      * <p>A list of listeners to be contacted when the model changes. Note that
      * the behavior of change listening is modified by
@@ -172,6 +197,13 @@ public final class PerVCProverModel {
     public PerVCProverModel(TypeGraph g, String proofFor,
             List<PExp> antecedents, List<PExp> consequents,
             ImmutableList<Theorem> theoremLibrary) {
+        this(g, proofFor, antecedents, consequents, new TheoremLibraryIndex(
+                theoremLibrary));
+    }
+
+    public PerVCProverModel(TypeGraph g, String proofFor,
+            List<PExp> antecedents, List<PExp> consequents,
+            TheoremLibraryIndex theoremIndex) {
 
         myTheoremName = proofFor;
 
@@ -185,14 +217,47 @@ public final class PerVCProverModel {
 
         myLocalTheoremSetForReturning = myLocalTheoremsSet.keySet();
 
-        myTheoremLibrary = theoremLibrary;
+        myTheoremLibrary = theoremIndex.getLibrary();
+        myTheoremIndex = theoremIndex;
         myTypeGraph = g;
     }
 
     public PerVCProverModel(TypeGraph g, String proofFor, VC vc,
             ImmutableList<Theorem> theoremLibrary) {
+        this(g, proofFor, vc, new TheoremLibraryIndex(theoremLibrary));
+    }
+
+    public PerVCProverModel(TypeGraph g, String proofFor, VC vc,
+            TheoremLibraryIndex theoremIndex) {
         this(g, proofFor, listFromIterable(vc.getAntecedent()),
-                listFromIterable(vc.getConsequent()), theoremLibrary);
+                listFromIterable(vc.getConsequent()), theoremIndex);
+    }
+
+    /**
+     * <p>Returns a new model with the same local theorems and consequents as
+     * this one, in the same order, but none of its proof steps. The copy
+     * shares this model's theorem library and its index, and sends no change
+     * events, so it can be worked on by another thread while this one is left
+     * alone. Its proof steps can be replayed on this model with
+     * {@link #mimic(ProofStep) mimic()}.</p>
+     */
+    public PerVCProverModel copy() {
+        PerVCProverModel result =
+                new PerVCProverModel(myTypeGraph, myTheoremName, Collections
+                        .<PExp> emptyList(), Collections.<PExp> emptyList(),
+                        myTheoremIndex);
+        result.myChangeEventMode = ChangeEventMode.NEVER;
+
+        for (LocalTheorem t : myLocalTheoremsList) {
+            result.addLocalTheorem(t.getAssertion(), t.getJustification(), t
+                    .amTryingToProveThis());
+        }
+
+        for (Consequent c : myConsequents) {
+            result.addConsequent(c.getExpression());
+        }
+
+        return result;
     }
 
     public String getTheoremName() {
@@ -527,8 +592,12 @@ public final class PerVCProverModel {
     }
 
     public void insertConsequent(Consequent c, int index) {
+        indexConjunct(myConsequentsBySymbol, myConsequents, index, c);
         myConsequents.add(index, c);
         myConsequentsHash += c.getExpression().hashCode();
+        myProofStateFingerprint =
+                myProofStateFingerprint.plus(ProofStateFingerprint
+                        .ofConsequent(c.getExpression()));
 
         //This is an important change if it took us away from a proved state
         modelChanged(myConsequents.size() == 1);
@@ -570,6 +639,10 @@ public final class PerVCProverModel {
         boolean removed = myConsequents.remove(c);
         if (removed) {
             myConsequentsHash -= c.getExpression().hashCode();
+            myProofStateFingerprint =
+                    myProofStateFingerprint.minus(ProofStateFingerprint
+                            .ofConsequent(c.getExpression()));
+            unindexConjunct(myConsequentsBySymbol, c);
         }
         else {
             throw new IllegalArgumentException("No such consequent.");
@@ -667,6 +740,10 @@ public final class PerVCProverModel {
         PExp tAssertion = t.getAssertion();
 
         myLocalTheoremsHash += tAssertion.hashCode();
+        myProofStateFingerprint =
+                myProofStateFingerprint.plus(ProofStateFingerprint
+                        .ofAntecedent(tAssertion));
+        indexConjunct(myLocalTheoremsBySymbol, myLocalTheoremsList, index, t);
         myLocalTheoremsList.add(index, t);
 
         Integer count = myLocalTheoremsSet.get(tAssertion);
@@ -702,6 +779,10 @@ public final class PerVCProverModel {
         boolean removed = myLocalTheoremsList.remove(t);
         if (removed) {
             myLocalTheoremsHash -= tAssertion.hashCode();
+            myProofStateFingerprint =
+                    myProofStateFingerprint.minus(ProofStateFingerprint
+                            .ofAntecedent(tAssertion));
+            unindexConjunct(myLocalTheoremsBySymbol, t);
         }
         else {
             throw new RuntimeException("No such theorem.");
@@ -801,6 +882,166 @@ public final class PerVCProverModel {
                 topLevelGlobalTheoremsIterator());
     }
 
+    /**
+     * <p>Returns an iterator over the top-level antecedent sites that
+     * <code>pattern</code> might bind to, in the same order as
+     * {@link #topLevelAntecedentSiteIterator()}.</p>
+     */
+    public Iterator<Site> topLevelAntecedentSiteIterator(PExp pattern) {
+        String key = patternKey(pattern);
+        Iterator<Site> result;
+
+        if (key == null) {
+            result = topLevelAntecedentSiteIterator();
+        }
+        else {
+            result =
+                    new LazyMappingIterator<Conjunct, Site>(getBucket(
+                            myLocalTheoremsBySymbol, key).iterator(),
+                            CONJUNCT_TO_SITE);
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Returns an iterator over the top-level consequent sites that
+     * <code>pattern</code> might bind to, in the same order as
+     * {@link #topLevelConsequentSiteIterator()}.</p>
+     */
+    public Iterator<Site> topLevelConsequentSiteIterator(PExp pattern) {
+        String key = patternKey(pattern);
+        Iterator<Site> result;
+
+        if (key == null) {
+            result = topLevelConsequentSiteIterator();
+        }
+        else {
+            result =
+                    new LazyMappingIterator<Conjunct, Site>(getBucket(
+                            myConsequentsBySymbol, key).iterator(),
+                            CONJUNCT_TO_SITE);
+        }
+
+        return result;
+    }
+
+    public Iterator<Site> topLevelAntecedentAndConsequentSiteIterator(
+            PExp pattern) {
+        return new ChainingIterator<Site>(
+                topLevelAntecedentSiteIterator(pattern),
+                topLevelConsequentSiteIterator(pattern));
+    }
+
+    /**
+     * <p>Returns an iterator over the global theorem sites that
+     * <code>pattern</code> might bind to, in the same order as
+     * {@link #topLevelGlobalTheoremsIterator()}.</p>
+     */
+    public Iterator<Site> topLevelGlobalTheoremsIterator(PExp pattern) {
+        String key = patternKey(pattern);
+        Iterator<Site> result;
+
+        if (key == null) {
+            result = topLevelGlobalTheoremsIterator();
+        }
+        else {
+            result =
+                    new LazyMappingIterator<Conjunct, Site>(myTheoremIndex
+                            .getTheorems(key).iterator(), CONJUNCT_TO_SITE);
+        }
+
+        return result;
+    }
+
+    public Iterator<Site> topLevelAntecedentAndGlobalTheoremSiteIterator(
+            PExp pattern) {
+        return new ChainingIterator<Site>(
+                topLevelAntecedentSiteIterator(pattern),
+                topLevelGlobalTheoremsIterator(pattern));
+    }
+
+    /**
+     * <p>Returns the key of the only sites <code>pattern</code> could bind
+     * to, or <code>null</code> if it could bind to sites with any top-level
+     * symbol. A pattern that is not a universally quantified symbol only
+     * binds to a symbol with the same name and number of arguments.</p>
+     */
+    private static String patternKey(PExp pattern) {
+        String result = null;
+
+        if (pattern instanceof PSymbol
+                && ((PSymbol) pattern).quantification != Quantification.FOR_ALL) {
+            result = topSymbolKey(pattern);
+        }
+
+        return result;
+    }
+
+    static String topSymbolKey(PExp e) {
+        String result = null;
+
+        if (e instanceof PSymbol) {
+            PSymbol eAsPSymbol = (PSymbol) e;
+            result = eAsPSymbol.name + "/" + eAsPSymbol.arguments.size();
+        }
+
+        return result;
+    }
+
+    private static boolean hasTopSymbol(PExp e, String name, int arity) {
+        return (e instanceof PSymbol) && ((PSymbol) e).name.equals(name)
+                && ((PSymbol) e).arguments.size() == arity;
+    }
+
+    private static List<Conjunct> getBucket(Map<String, List<Conjunct>> index,
+            String key) {
+        List<Conjunct> result = index.get(key);
+
+        if (result == null) {
+            result = new UnsafeIteratorLinkedList<Conjunct>();
+            index.put(key, result);
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Adds <code>c</code> to <code>index</code>, given that it is about
+     * to be inserted into <code>conjuncts</code> at <code>position</code>.
+     * </p>
+     */
+    private static void indexConjunct(Map<String, List<Conjunct>> index,
+            Iterable<? extends Conjunct> conjuncts, int position, Conjunct c) {
+        PExp e = c.getExpression();
+
+        if (e instanceof PSymbol) {
+            PSymbol eAsPSymbol = (PSymbol) e;
+            String name = eAsPSymbol.name;
+            int arity = eAsPSymbol.arguments.size();
+
+            int bucketPosition = 0;
+            Iterator<? extends Conjunct> conjunctsIter = conjuncts.iterator();
+            for (int i = 0; i < position; i++) {
+                if (hasTopSymbol(conjunctsIter.next().getExpression(), name,
+                        arity)) {
+                    bucketPosition++;
+                }
+            }
+
+            getBucket(index, topSymbolKey(e)).add(bucketPosition, c);
+        }
+    }
+
+    private static void unindexConjunct(Map<String, List<Conjunct>> index,
+            Conjunct c) {
+        String key = topSymbolKey(c.getExpression());
+
+        if (key != null) {
+            getBucket(index, key).remove(c);
+        }
+    }
+
     public Iterator<BindResult> bind(Set<Binder> binders) {
         return new BinderSatisfyingIterator(binders, new HashMap<PExp, PExp>());
     }
@@ -809,6 +1050,15 @@ public final class PerVCProverModel {
         return myLocalTheoremsHash + (51 * myConsequentsHash);
     }
 
+    /**
+     * <p>Returns a fingerprint of the current local theorems and consequents
+     * that, unlike {@link #implicationHashCode()}, can be taken to identify
+     * them. It is kept up to date as conjuncts are added and removed.</p>
+     */
+    public ProofStateFingerprint getProofStateFingerprint() {
+        return myProofStateFingerprint;
+    }
+
     private class BinderSatisfyingIterator implements Iterator<BindResult> {
 
         private final Binder myFirstBinder;
@@ -879,22 +1129,20 @@ public final class PerVCProverModel {
 
                     myCurFirstSite = myFirstBinderSites.next();
 
-                    try {
-                        myCurFirstSiteBindings.clear();
-
-                        myFirstBinder.considerSite(myCurFirstSite,
-                                myAssumedBindings, myCurFirstSiteBindings);
-
-                        //This prevents a binder from binding to a global 
-                        //theorem that contains quantified variables.  So we'd
-                        //like to be able to notice that 0 < 1, for example,
-                        //but we shouldn't be incorporating a theorem like
-                        //For all i : Z, i - 1 < i into our bindings.
-                        if (myCurFirstSite.conjunct.libraryTheorem()
-                                && !myCurFirstSite.exp.getQuantifiedVariables()
-                                        .isEmpty()) {
-                            throw new BindingException();
-                        }
+                    myCurFirstSiteBindings.clear();
+
+                    //If we can't bind the current site, no worries--just keep
+                    //searching.
+                    //
+                    //The second check prevents a binder from binding to a
+                    //global theorem that contains quantified variables.  So
+                    //we'd like to be able to notice that 0 < 1, for example,
+                    //but we shouldn't be incorporating a theorem like
+                    //For all i : Z, i - 1 < i into our bindings.
+                    if (myFirstBinder.tryConsiderSite(myCurFirstSite,
+                            myAssumedBindings, myCurFirstSiteBindings)
+                            && !(myCurFirstSite.conjunct.libraryTheorem() && !myCurFirstSite.exp
+                                    .getQuantifiedVariables().isEmpty())) {
 
                         myInductiveBindingsScratch.clear();
                         myInductiveBindingsScratch.putAll(myAssumedBindings);
@@ -905,10 +1153,6 @@ public final class PerVCProverModel {
                                 new BinderSatisfyingIterator(myOtherBinders,
                                         myInductiveBindingsScratch);
                     }
-                    catch (BindingException be) {
-                        //Can't bind the current site.  No worries--just keep
-                        //searching.
-                    }
                 }
 
                 //Either !myFirstBinderSites.hasNext(), or 
@@ -974,6 +1218,18 @@ public final class PerVCProverModel {
 
         public void considerSite(Site s, Map<PExp, PExp> assumedBindings,
                 Map<PExp, PExp> accumulator) throws BindingException;
+
+        /**
+         * <p>As <code>considerSite()</code>, but reports a rejected site by
+         * returning <code>false</code> rather than by throwing, since most
+         * sites considered are rejected.</p>
+         *
+         * @return <code>true</code> if the site is accepted, in which case
+         *         the newly-bound free variables have been added to
+         *         <code>accumulator</code>.
+         */
+        public boolean tryConsiderSite(Site s, Map<PExp, PExp> assumedBindings,
+                Map<PExp, PExp> accumulator);
     }
 
     public static class TopLevelAntecedentBinder extends AbstractBinder {
@@ -985,7 +1241,7 @@ public final class PerVCProverModel {
         @Override
         public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
                 List<Site> boundSitesSoFar) {
-            return m.topLevelAntecedentSiteIterator();
+            return m.topLevelAntecedentSiteIterator(getPattern());
         }
     }
 
@@ -998,7 +1254,7 @@ public final class PerVCProverModel {
         @Override
         public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
                 List<Site> boundSitesSoFar) {
-            return m.topLevelConsequentSiteIterator();
+            return m.topLevelConsequentSiteIterator(getPattern());
         }
     }
 
@@ -1041,7 +1297,7 @@ public final class PerVCProverModel {
         @Override
         public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
                 List<Site> boundSitesSoFar) {
-            return m.topLevelAntecedentAndConsequentSiteIterator();
+            return m.topLevelAntecedentAndConsequentSiteIterator(getPattern());
         }
     }
 
@@ -1053,6 +1309,10 @@ public final class PerVCProverModel {
             myPattern = pattern;
         }
 
+        protected PExp getPattern() {
+            return myPattern;
+        }
+
         @Override
         public Map<PExp, PExp> considerSite(Site s,
                 Map<PExp, PExp> assumedBindings) throws BindingException {
@@ -1066,18 +1326,22 @@ public final class PerVCProverModel {
         @Override
         public void considerSite(Site s, Map<PExp, PExp> assumedBindings,
                 Map<PExp, PExp> accumulator) throws BindingException {
+            if (!tryConsiderSite(s, assumedBindings, accumulator)) {
+                throw BINDING_EXCEPTION;
+            }
+        }
+
+        @Override
+        public boolean tryConsiderSite(Site s, Map<PExp, PExp> assumedBindings,
+                Map<PExp, PExp> accumulator) {
             PExp substituted = myPattern.substitute(assumedBindings);
 
             //This is a simple optimization that prevents us from traversing the
             //expression if there's no way we could match
-            if ((substituted instanceof PSymbol && ((PSymbol) substituted).quantification != Quantification.NONE)
-                    || s.exp.getSymbolNames().contains(
-                            substituted.getTopLevelOperation())) {
-                substituted.bindTo(s.exp, accumulator);
-            }
-            else {
-                throw BINDING_EXCEPTION;
-            }
+            return ((substituted instanceof PSymbol && ((PSymbol) substituted).quantification != Quantification.NONE) || s.exp
+                    .getSymbolNames().contains(
+                            substituted.getTopLevelOperation()))
+                    && substituted.tryBindTo(s.exp, accumulator);
         }
     }
 
@@ -0,0 +1,144 @@
+/**
+ * ProofStateFingerprint.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.model;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PSymbol;
+
+/**
+ * <p>A 128-bit fingerprint of the local theorems and consequents of a
+ * {@link PerVCProverModel PerVCProverModel}, for recognizing proof states that
+ * have been seen before.</p>
+ *
+ * <p>Each conjunct is hashed, in two independent 64-bit lanes, from the names
+ * and structure of its expression, with antecedents and consequents hashed
+ * differently. The fingerprint of a state is the sum of the fingerprints of
+ * its conjuncts, so it does not depend on their order and can be kept up to
+ * date as conjuncts are added and removed. Unlike the sum of the
+ * conjuncts' <code>hashCode()</code>s, two different states are vanishingly
+ * unlikely to share a fingerprint.</p>
+ */
+public final class ProofStateFingerprint {
+
+    public static final ProofStateFingerprint EMPTY =
+            new ProofStateFingerprint(0, 0);
+
+    private static final long ANTECEDENT_HIGH_SEED = 0x6A09E667F3BCC908L;
+    private static final long ANTECEDENT_LOW_SEED = 0xBB67AE8584CAA73BL;
+    private static final long CONSEQUENT_HIGH_SEED = 0x3C6EF372FE94F82BL;
+    private static final long CONSEQUENT_LOW_SEED = 0xA54FF53A5F1D36F1L;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final long myHigh;
+    private final long myLow;
+
+    private ProofStateFingerprint(long high, long low) {
+        myHigh = high;
+        myLow = low;
+    }
+
+    public static ProofStateFingerprint ofAntecedent(PExp e) {
+        return new ProofStateFingerprint(hash(e, ANTECEDENT_HIGH_SEED), hash(e,
+                ANTECEDENT_LOW_SEED));
+    }
+
+    public static ProofStateFingerprint ofConsequent(PExp e) {
+        return new ProofStateFingerprint(hash(e, CONSEQUENT_HIGH_SEED), hash(e,
+                CONSEQUENT_LOW_SEED));
+    }
+
+    public ProofStateFingerprint plus(ProofStateFingerprint other) {
+        return new ProofStateFingerprint(myHigh + other.myHigh, myLow
+                + other.myLow);
+    }
+
+    public ProofStateFingerprint minus(ProofStateFingerprint other) {
+        return new ProofStateFingerprint(myHigh - other.myHigh, myLow
+                - other.myLow);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        boolean result = (o instanceof ProofStateFingerprint);
+
+        if (result) {
+            ProofStateFingerprint oAsFingerprint = (ProofStateFingerprint) o;
+            result =
+                    myHigh == oAsFingerprint.myHigh
+                            && myLow == oAsFingerprint.myLow;
+        }
+
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (myLow ^ (myLow >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", myHigh, myLow);
+    }
+
+    /**
+     * <p>Hashes the names and structure of <code>e</code>, so that
+     * separately built copies of the same expression hash alike.</p>
+     */
+    private static long hash(PExp e, long seed) {
+        long result;
+
+        if (e instanceof PSymbol) {
+            PSymbol eAsPSymbol = (PSymbol) e;
+
+            result =
+                    step(hash(eAsPSymbol.name, seed), eAsPSymbol.arguments
+                            .size());
+            for (PExp argument : eAsPSymbol.arguments) {
+                result = step(result, hash(argument, seed));
+            }
+        }
+        else {
+            // Lambdas and alternatives print their parameters and branches
+            result = hash(e.toString(), ~seed);
+            for (PExp subexpression : e.getSubExpressions()) {
+                result = step(result, hash(subexpression, seed));
+            }
+        }
+
+        return result;
+    }
+
+    private static long hash(String s, long seed) {
+        long result = seed;
+
+        int length = s.length();
+        for (int i = 0; i < length; i++) {
+            result = (result ^ s.charAt(i)) * FNV_PRIME;
+        }
+
+        return mix(result);
+    }
+
+    private static long step(long h, long value) {
+        return mix(h * GOLDEN_GAMMA + value);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * TheoremLibraryIndex.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.model;
+
+import edu.clemson.cs.r2jt.rewriteprover.immutableadts.ImmutableList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A theorem library together with its theorems indexed by the name and
+ * arity of their top-level symbol, as {@link PerVCProverModel
+ * PerVCProverModel} indexes its local theorems and consequents. The library
+ * never changes, so the index is built once and shared, unmodified, by the
+ * models of every VC proved with it and by all of their copies.</p>
+ */
+public class TheoremLibraryIndex {
+
+    private final ImmutableList<Theorem> myLibrary;
+    private final Map<String, List<Conjunct>> myTheoremsBySymbol =
+            new HashMap<String, List<Conjunct>>();
+
+    /**
+     * <p>Indexes <code>library</code>, which may be <code>null</code> for a
+     * model with no library.</p>
+     */
+    public TheoremLibraryIndex(ImmutableList<Theorem> library) {
+        myLibrary = library;
+
+        if (library != null) {
+            for (Theorem t : library) {
+                String key = PerVCProverModel.topSymbolKey(t.getExpression());
+                if (key != null) {
+                    List<Conjunct> bucket = myTheoremsBySymbol.get(key);
+
+                    if (bucket == null) {
+                        bucket = new ArrayList<Conjunct>();
+                        myTheoremsBySymbol.put(key, bucket);
+                    }
+
+                    bucket.add(t);
+                }
+            }
+        }
+
+        for (Map.Entry<String, List<Conjunct>> e : myTheoremsBySymbol
+                .entrySet()) {
+            e.setValue(Collections.unmodifiableList(e.getValue()));
+        }
+    }
+
+    public ImmutableList<Theorem> getLibrary() {
+        return myLibrary;
+    }
+
+    /**
+     * <p>Returns the theorems whose top-level symbol has the given key, in
+     * library order. Never modifies the index, so it may be called from
+     * several threads at once.</p>
+     */
+    List<Conjunct> getTheorems(String key) {
+        List<Conjunct> result = myTheoremsBySymbol.get(key);
+
+        if (result == null) {
+            result = Collections.emptyList();
+        }
+
+        return result;
+    }
+}
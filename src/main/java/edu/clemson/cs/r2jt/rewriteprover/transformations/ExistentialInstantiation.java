@@ -136,7 +136,8 @@ public class ExistentialInstantiation implements Transformation {
         @Override
         public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
                 List<Site> boundSitesSoFar) {
-            return m.topLevelAntecedentAndGlobalTheoremSiteIterator();
+            return m
+                    .topLevelAntecedentAndGlobalTheoremSiteIterator(getPattern());
         }
     }
 
@@ -17,6 +17,8 @@ import java.util.*;
 
 import edu.clemson.cs.r2jt.absyn.*;
 import edu.clemson.cs.r2jt.collections.List;
+import edu.clemson.cs.r2jt.misc.HandlerCache;
+import edu.clemson.cs.r2jt.misc.Utils.Mapping;
 
 /**
  * <p>The <code>TreeWalker</code> is used to apply the visitor pattern to the
@@ -25,6 +27,27 @@ import edu.clemson.cs.r2jt.collections.List;
  */
 public class TreeWalker {
 
+    /**
+     * <p>The walk, pre, mid and post visitor methods found for each
+     * combination of visitor class, prefix and node, so the reflective lookup
+     * is only done the first time a kind of node is visited.</p>
+     */
+    private static final HandlerCache HANDLERS =
+            new HandlerCache(new Mapping<HandlerCache.Key, Method[]>() {
+
+                @Override
+                public Method[] map(HandlerCache.Key key) {
+                    Method[] result;
+                    if (key.getPrefix().equals("walk")) {
+                        result = findWalkMethods(key);
+                    }
+                    else {
+                        result = findVisitorMethods(key);
+                    }
+                    return result;
+                }
+            });
+
     private TreeWalkerVisitor myVisitor;
 
     /**
@@ -75,76 +98,103 @@ public class TreeWalker {
 
     private void invokeVisitorMethods(String prefix,
             ResolveConceptualElement... e) {
-        boolean pre = prefix.equals("pre"), post = prefix.equals("post"), mid =
-                prefix.equals("mid"), list = (e[0] instanceof VirtualListNode);
+        boolean pre = prefix.equals("pre"), post = prefix.equals("post");
 
         // Invoke generic visitor methods (preAny, postAny)
         if (pre) {
             myVisitor.preAny(e[0]);
         }
 
-        // Get the heirarchy of classes from which this node inherits
-        // e.g., [ConceptModuleDec, ModuleDec, Dec, ResolveConceptualElement]
-        Class<?> elementClass = e[0].getClass();
-        ArrayList<Class<?>> classHierarchy = new ArrayList<Class<?>>();
+        ResolveConceptualElement[] parent = e;
+        if (e[0] instanceof VirtualListNode) {
+            parent = Arrays.copyOf(e, e.length);
+            parent[0] = ((VirtualListNode) e[0]).getParent();
+        }
 
-        if (list) {
-            classHierarchy.add(((VirtualListNode) e[0]).getParent().getClass());
+        for (Method visitorMethod : getVisitorMethods(prefix, e[0])) {
+            invoke(visitorMethod, (Object[]) parent);
         }
-        else if (pre || post) {
-            while (elementClass != ResolveConceptualElement.class) {
-                if (post) {
-                    classHierarchy.add(elementClass);
-                }
-                else {
-                    classHierarchy.add(0, elementClass);
-                }
-                elementClass = elementClass.getSuperclass();
+
+        if (post) {
+            myVisitor.postAny(e[0]);
+        }
+    }
+
+    /**
+     * <p>Returns the visitor methods to call, in order, for the given prefix
+     * and node. The lookup depends only on the visitor's class, the prefix
+     * and the node's class (plus the list name and element type for a
+     * <code>VirtualListNode</code>), so it is done once per combination and
+     * shared by every walker. Missing handlers for virtual list nodes are
+     * simply left out of the result.</p>
+     */
+    private Method[] getVisitorMethods(String prefix, ResolveConceptualElement e) {
+        HandlerCache.Key key;
+        if (e instanceof VirtualListNode) {
+            VirtualListNode listNode = (VirtualListNode) e;
+            key =
+                    new HandlerCache.Key(myVisitor.getClass(), prefix, listNode
+                            .getParent().getClass(), listNode.getNodeName(),
+                            listNode.getListType());
+        }
+        else {
+            key =
+                    new HandlerCache.Key(myVisitor.getClass(), prefix, e
+                            .getClass());
+        }
+
+        return HANDLERS.get(key);
+    }
+
+    private static Method[] findVisitorMethods(HandlerCache.Key key) {
+        String prefix = key.getPrefix();
+        boolean pre = prefix.equals("pre"), post = prefix.equals("post"), list =
+                (key.getListName() != null);
+
+        // Get the heirarchy of classes from which this node inherits
+        // e.g., [ConceptModuleDec, ModuleDec, Dec, ResolveConceptualElement]
+        java.util.List<Class<?>> classHierarchy;
+        if (!list && (pre || post)) {
+            classHierarchy =
+                    HandlerCache.getHierarchy(key.getNodeClass(),
+                            ResolveConceptualElement.class);
+            if (post) {
+                Collections.reverse(classHierarchy);
             }
         }
         else {
-            classHierarchy.add(elementClass);
+            classHierarchy =
+                    Collections.<Class<?>> singletonList(key.getNodeClass());
         }
 
-        // Iterate over the class hierarchy
-        Iterator<Class<?>> iter = classHierarchy.iterator();
-        while (iter.hasNext()) {
-            Class<?> currentClass = iter.next();
+        // Get parent and child types if this is a list node
+        Class<?> paramType = ResolveConceptualElement.class;
+        if (list) {
+            paramType = key.getListType();
+        }
 
+        ArrayList<Method> methods = new ArrayList<Method>();
+        for (Class<?> currentClass : classHierarchy) {
             // Construct name of method
-            String className, methodName;
+            String className;
             if (!list) {
                 className = currentClass.getSimpleName();
             }
             else {
-                className = ((VirtualListNode) e[0]).getNodeName();
-            }
-            methodName = prefix + className;
-
-            ResolveConceptualElement[] parent = Arrays.copyOf(e, e.length);
-            // Get parent and child types if this is a list node
-            Class<?> paramType = ResolveConceptualElement.class;
-            if (list) {
-                paramType = ((VirtualListNode) e[0]).getListType();
-                parent[0] = ((VirtualListNode) e[0]).getParent();
+                className = key.getListName();
             }
+            String methodName = prefix + className;
 
             // Now try to obtain the proper visitor method
             try {
-                Method visitorMethod;
                 if (pre || post) { // pre and post methods
-                    visitorMethod =
-                            this.myVisitor.getClass().getMethod(methodName,
-                                    currentClass);
+                    methods.add(key.getVisitorClass().getMethod(methodName,
+                            currentClass));
                 }
                 else { // mid methods
-                    visitorMethod =
-                            this.myVisitor.getClass().getMethod(methodName,
-                                    currentClass, paramType, paramType);
+                    methods.add(key.getVisitorClass().getMethod(methodName,
+                            currentClass, paramType, paramType));
                 }
-
-                // Invoking the visitor method now!!!
-                visitorMethod.invoke(this.myVisitor, (Object[]) parent);
             }
             catch (NoSuchMethodException nsme) {
                 //This is fine if we're dealing with a virtual node, otherwise
@@ -153,68 +203,61 @@ public class TreeWalker {
                     throw new RuntimeException(nsme);
                 }
             }
-            catch (IllegalAccessException iae) {
-                throw new RuntimeException(iae);
-            }
-            catch (InvocationTargetException ite) {
-                Throwable iteCause = ite.getCause();
-
-                if (iteCause instanceof RuntimeException) {
-                    throw (RuntimeException) iteCause;
-                }
-
-                throw new RuntimeException(iteCause);
-            }
         }
 
-        if (post) {
-            myVisitor.postAny(e[0]);
-        }
+        return methods.toArray(new Method[methods.size()]);
     }
 
     private boolean walkOverride(ResolveConceptualElement e) {
-        Class<?> elementClass = e.getClass();
-        ArrayList<Class<?>> classHierarchy = new ArrayList<Class<?>>();
-        while (elementClass != ResolveConceptualElement.class) {
-            classHierarchy.add(0, elementClass);
-            elementClass = elementClass.getSuperclass();
-        }
+        Method[] walkMethods =
+                HANDLERS.get(new HandlerCache.Key(myVisitor.getClass(), "walk",
+                        e.getClass()));
 
         boolean foundOverride = false;
-        Iterator<Class<?>> iter = classHierarchy.iterator();
-        while (iter.hasNext() && !foundOverride) {
-            Class<?> c = iter.next();
+        for (int i = 0; i < walkMethods.length && !foundOverride; i++) {
+            foundOverride = ((Boolean) invoke(walkMethods[i], e));
+        }
+
+        return foundOverride;
+    }
 
+    private static Method[] findWalkMethods(HandlerCache.Key key) {
+        ArrayList<Method> walkMethods = new ArrayList<Method>();
+        for (Class<?> c : HandlerCache.getHierarchy(key.getNodeClass(),
+                ResolveConceptualElement.class)) {
             if (!c.equals(VirtualListNode.class)) {
                 String walkMethodName = "walk" + c.getSimpleName();
                 try {
-                    Method walkMethod =
-                            this.myVisitor.getClass().getMethod(walkMethodName,
-                                    c);
-                    foundOverride =
-                            ((Boolean) walkMethod.invoke(this.myVisitor, e));
+                    walkMethods.add(key.getVisitorClass().getMethod(
+                            walkMethodName, c));
                 }
                 catch (NoSuchMethodException nsme) {
                     //Shouldn't be possible
                     throw new RuntimeException(nsme);
                 }
-                catch (IllegalAccessException iae) {
-                    //Shouldn't be possible
-                    throw new RuntimeException(iae);
-                }
-                catch (InvocationTargetException ite) {
-                    //An exception was thrown inside the corresponding walk method
-                    Throwable iteCause = ite.getCause();
+            }
+        }
 
-                    if (iteCause instanceof RuntimeException) {
-                        throw (RuntimeException) iteCause;
-                    }
+        return walkMethods.toArray(new Method[walkMethods.size()]);
+    }
 
-                    throw new RuntimeException(iteCause);
-                }
-            }
+    private Object invoke(Method m, Object... args) {
+        try {
+            return m.invoke(this.myVisitor, args);
         }
+        catch (IllegalAccessException iae) {
+            //Shouldn't be possible
+            throw new RuntimeException(iae);
+        }
+        catch (InvocationTargetException ite) {
+            //An exception was thrown inside the corresponding visitor method
+            Throwable iteCause = ite.getCause();
 
-        return foundOverride;
+            if (iteCause instanceof RuntimeException) {
+                throw (RuntimeException) iteCause;
+            }
+
+            throw new RuntimeException(iteCause);
+        }
     }
 }
@@ -83,6 +83,14 @@ public abstract class MTType {
      */
     @Override
     public final boolean equals(Object o) {
+        //The alpha equivalency checker and our caches are shared with any
+        //other thread reasoning over the same type graph
+        synchronized (myTypeGraph) {
+            return alphaEquals(o);
+        }
+    }
+
+    private boolean alphaEquals(Object o) {
         myEqualsDepth++;
 
         boolean result;
@@ -129,6 +137,14 @@ public abstract class MTType {
     public final Map<String, MTType> getSyntacticSubtypeBindings(MTType o)
             throws NoSolutionException {
 
+        synchronized (myTypeGraph) {
+            return syntacticSubtypeBindings(o);
+        }
+    }
+
+    private Map<String, MTType> syntacticSubtypeBindings(MTType o)
+            throws NoSolutionException {
+
         Map<String, MTType> result;
 
         if (myKnownSyntacticSubtypeBindings.containsKey(o)) {
@@ -48,7 +48,10 @@ public class TypeGraph {
      * <p>A set of non-thread-safe resources to be used during general type
      * reasoning. This really doesn't belong here, but anything that's reasoning
      * about types should already have access to a type graph, and only one type
-     * graph is created per thread, so this is a convenient place to put it.</p>
+     * graph is created per thread, so this is a convenient place to put it.
+     * When a graph is shared by several threads (as by the congruence class
+     * prover's worker threads), these resources are guarded by the graph's
+     * monitor, which the public reasoning methods hold.</p>
      */
     public final PerThreadReasoningResources threadResources =
             new PerThreadReasoningResources();
@@ -145,7 +148,7 @@ public class TypeGraph {
      *         <code>subtype</code> must necessarily be in
      *         <code>supertype</code>.
      */
-    public boolean isSubtype(MTType subtype, MTType supertype) {
+    public synchronized boolean isSubtype(MTType subtype, MTType supertype) {
         boolean result;
 
         EstablishedRelationship r =
@@ -204,7 +207,7 @@ public class TypeGraph {
      * @return <code>true</code> <strong>iff</strong> <code>value</code> is
      *         definitely in <code>expected</code>.
      */
-    public boolean isKnownToBeIn(Exp value, MTType expected) {
+    public synchronized boolean isKnownToBeIn(Exp value, MTType expected) {
 
         boolean result;
 
@@ -240,7 +243,7 @@ public class TypeGraph {
      * @return <code>true</code> <strong>iff</strong> <code>value</code> is
      *         definitely in <code>expected</code>.
      */
-    public boolean isKnownToBeIn(MTType value, MTType expected) {
+    public synchronized boolean isKnownToBeIn(MTType value, MTType expected) {
         boolean result;
 
         EstablishedRelationship r =
@@ -401,7 +404,7 @@ public class TypeGraph {
      *         which <code>value</code> could be demonstrated to be in
      *         <code>expected</code>.
      */
-    public Exp getValidTypeConditions(Exp value, MTType expected)
+    public synchronized Exp getValidTypeConditions(Exp value, MTType expected)
             throws TypeMismatchException {
 
         Exp result;
@@ -49,9 +49,11 @@ public class AssertiveCode {
 
     /**
      * <p>List of verification statements that we
-     * need to apply proof rules to./p>
+     * need to apply proof rules to, as a stack whose top is the last
+     * statement. Nodes are never modified, so copies of this object share
+     * every statement they have in common.</p>
      */
-    private List<VerificationStatement> myVerificationStmtList;
+    private VerificationStmtNode myLastVerificationStmt;
 
     // ===========================================================
     // Constructors
@@ -63,20 +65,26 @@ public class AssertiveCode {
                 new ConfirmStmt(null, Exp.getTrueVarExp(env.getTypeGraph()),
                         true);
         myFreeVars = new ArrayList<Exp>();
-        myVerificationStmtList = new ArrayList<VerificationStatement>();
+        myLastVerificationStmt = null;
         myInstantiatingElement = instantiatingElement;
     }
 
+    /**
+     * <p>Makes a copy for another branch of the code. The verification
+     * statements and the final confirm are shared with <code>old</code>
+     * rather than copied: neither is ever modified in place (the final
+     * confirm is only handed out as a clone), so the copy only costs as
+     * much as the free variables.</p>
+     *
+     * @param old The assertive code to copy.
+     */
     public AssertiveCode(AssertiveCode old) {
-        myConfirm = old.myConfirm.clone();
+        myConfirm = old.myConfirm;
         myFreeVars = new ArrayList<Exp>();
         for (Exp exp : old.myFreeVars) {
             myFreeVars.add(Exp.copy(exp));
         }
-        myVerificationStmtList = new ArrayList<VerificationStatement>();
-        for (VerificationStatement stmt : old.myVerificationStmtList) {
-            myVerificationStmtList.add(stmt);
-        }
+        myLastVerificationStmt = old.myLastVerificationStmt;
         myInstantiatingElement = old.myInstantiatingElement;
     }
 
@@ -105,7 +113,7 @@ public class AssertiveCode {
      * <p>Add the changing clause to the list</p>
      */
     public void addChange(List<VariableExp> changeList) {
-        myVerificationStmtList.add(new VerificationStatement(
+        addVerificationStmt(new VerificationStatement(
                 VerificationStatement.CHANGE, changeList));
     }
 
@@ -115,7 +123,7 @@ public class AssertiveCode {
      * @param stmt The corresponding <code>Statement</code>.
      */
     public void addCode(Statement stmt) {
-        myVerificationStmtList.add(new VerificationStatement(
+        addVerificationStmt(new VerificationStatement(
                 VerificationStatement.CODE, stmt));
     }
 
@@ -163,7 +171,7 @@ public class AssertiveCode {
      * <p>Add a Remember statement to the list</p>
      */
     public void addRemember() {
-        myVerificationStmtList.add(new VerificationStatement(
+        addVerificationStmt(new VerificationStatement(
                 VerificationStatement.REMEMBER, null));
     }
 
@@ -192,7 +200,7 @@ public class AssertiveCode {
         Iterator<VarDec> i = variableList.iterator();
         while (i.hasNext()) {
             VarDec dec = i.next();
-            myVerificationStmtList.add(new VerificationStatement(
+            addVerificationStmt(new VerificationStatement(
                     VerificationStatement.VARIABLE, dec.clone()));
         }
     }
@@ -226,7 +234,7 @@ public class AssertiveCode {
 
         // Verification Statements
         Iterator<VerificationStatement> vsIt =
-                myVerificationStmtList.iterator();
+                verificationStmtsInOrder().iterator();
         while (vsIt.hasNext()) {
             VerificationStatement current = vsIt.next();
 
@@ -333,9 +341,11 @@ public class AssertiveCode {
      * @return <code>VerificationStatement</code> from the list
      */
     public VerificationStatement getLastAssertion() {
-        if (!myVerificationStmtList.isEmpty())
-            return myVerificationStmtList
-                    .remove(myVerificationStmtList.size() - 1);
+        if (myLastVerificationStmt != null) {
+            VerificationStatement last = myLastVerificationStmt.myStmt;
+            myLastVerificationStmt = myLastVerificationStmt.myPrevious;
+            return last;
+        }
         else
             return new VerificationStatement();
     }
@@ -346,7 +356,7 @@ public class AssertiveCode {
      * @return Boolean
      */
     public boolean hasAnotherAssertion() {
-        return (!myVerificationStmtList.isEmpty());
+        return (myLastVerificationStmt != null);
     }
 
     /**
@@ -362,4 +372,46 @@ public class AssertiveCode {
                     new ConfirmStmt(confirm.getLocation(), confirm, simplify);
         }
     }
+
+    // ===========================================================
+    // Private Methods
+    // ===========================================================
+
+    private void addVerificationStmt(VerificationStatement stmt) {
+        myLastVerificationStmt =
+                new VerificationStmtNode(stmt, myLastVerificationStmt);
+    }
+
+    /**
+     * <p>Returns the verification statements from first to last.</p>
+     */
+    private List<VerificationStatement> verificationStmtsInOrder() {
+        LinkedList<VerificationStatement> stmts =
+                new LinkedList<VerificationStatement>();
+        for (VerificationStmtNode n = myLastVerificationStmt; n != null; n =
+                n.myPrevious) {
+            stmts.addFirst(n.myStmt);
+        }
+
+        return stmts;
+    }
+
+    // ===========================================================
+    // Helper Classes
+    // ===========================================================
+
+    /**
+     * <p>One verification statement and the ones before it.</p>
+     */
+    private static class VerificationStmtNode {
+
+        private final VerificationStatement myStmt;
+        private final VerificationStmtNode myPrevious;
+
+        private VerificationStmtNode(VerificationStatement stmt,
+                VerificationStmtNode previous) {
+            myStmt = stmt;
+            myPrevious = previous;
+        }
+    }
 }
@@ -68,17 +68,16 @@ public class OutputVCs {
     private Map<String, List<Location>> myVCDetails;
 
     /**
-     * <p>This string buffer holds all the steps
-     * the VC generator takes to generate VCs.</p>
+     * <p>The steps the VC generator takes to generate VCs.</p>
      */
-    private StringBuffer myVCSteps;
+    private VCGenerationTrace myVCSteps;
 
     // ===========================================================
     // Constructors
     // ===========================================================
 
     public OutputVCs(final CompileEnvironment env,
-            Collection<AssertiveCode> assertiveCode, StringBuffer steps) {
+            Collection<AssertiveCode> assertiveCode, VCGenerationTrace steps) {
         myInstanceEnvironment = env;
         myFinalAssertiveCode = assertiveCode;
         myVCDetails = new HashMap<String, List<Location>>();
@@ -126,6 +125,9 @@ public class OutputVCs {
 
     public void outputToJSON() {
         JSONObject jsonObject = jsonVCs();
+        if (myVCSteps.isEnabled()) {
+            jsonObject.put("vcSteps", myVCSteps.toJSON());
+        }
         CompileReport report = myInstanceEnvironment.getCompileReport();
         StringBuffer outBuffer = new StringBuffer();
         outBuffer.append("<vcFile>");
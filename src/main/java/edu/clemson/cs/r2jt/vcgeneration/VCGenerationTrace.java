@@ -0,0 +1,257 @@
+/**
+ * VCGenerationTrace.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.vcgeneration;
+
+/*
+ * Libraries
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * <p>The steps the VC generator takes to generate VCs, kept as a list of
+ * events rather than as text. A trace that is not enabled records nothing,
+ * so none of the assertive codes are converted to strings unless the steps
+ * are going to be output.</p>
+ */
+public class VCGenerationTrace {
+
+    // ===========================================================
+    // Global Variables
+    // ===========================================================
+
+    /**
+     * <p>The events so far, or <code>null</code> if this trace is not
+     * enabled.</p>
+     */
+    private final List<Event> myEvents;
+
+    // ===========================================================
+    // Constructors
+    // ===========================================================
+
+    public VCGenerationTrace(boolean enabled) {
+        if (enabled) {
+            myEvents = new ArrayList<Event>();
+        }
+        else {
+            myEvents = null;
+        }
+    }
+
+    // ===========================================================
+    // Public Methods
+    // ===========================================================
+
+    /**
+     * <p>Returns whether this trace records anything.</p>
+     *
+     * @return True if events are recorded, false otherwise.
+     */
+    public boolean isEnabled() {
+        return myEvents != null;
+    }
+
+    /**
+     * <p>Records the module VCs are being generated for.</p>
+     *
+     * @param details Label to name, in the order they should be shown.
+     */
+    public void addModuleDetails(Map<String, String> details) {
+        if (myEvents != null) {
+            Event e = new Event(Kind.DETAILS, "VC Generation Details", null);
+            e.myDetails = details;
+            myEvents.add(e);
+        }
+    }
+
+    /**
+     * <p>Records the start of a new section, such as a procedure.</p>
+     *
+     * @param title Title of the section.
+     */
+    public void addSection(String title) {
+        if (myEvents != null) {
+            myEvents.add(new Event(Kind.SECTION, title, null));
+        }
+    }
+
+    /**
+     * <p>Records that a proof rule has been applied. The assertive code is
+     * converted to a string now, as the rules go on to modify it.</p>
+     *
+     * @param ruleName Name of the rule, as in "Assume Rule Applied".
+     * @param assertiveCode The assertive code after the rule was applied.
+     */
+    public void addRuleApplied(String ruleName, AssertiveCode assertiveCode) {
+        if (myEvents != null) {
+            myEvents.add(new Event(Kind.RULE, ruleName, assertiveCode
+                    .assertionToString()));
+        }
+    }
+
+    /**
+     * <p>Records the boundary of the processing of one assertive code.</p>
+     */
+    public void addSeparator() {
+        if (myEvents != null) {
+            myEvents.add(new Event(Kind.SEPARATOR, null, null));
+        }
+    }
+
+    /**
+     * <p>Returns an empty trace for events that are to be added to this one
+     * later, using <code>append()</code>. A trace that is not enabled
+     * simply returns itself.</p>
+     *
+     * @return A trace enabled if and only if this one is.
+     */
+    public VCGenerationTrace newFragment() {
+        VCGenerationTrace result = this;
+
+        if (myEvents != null) {
+            result = new VCGenerationTrace(true);
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Adds the events of <code>other</code> to the end of this trace.</p>
+     *
+     * @param other A trace from <code>newFragment()</code>.
+     */
+    public void append(VCGenerationTrace other) {
+        if (myEvents != null && other != this) {
+            myEvents.addAll(other.myEvents);
+        }
+    }
+
+    /**
+     * <p>Returns the events as an array of JSON objects, each with a
+     * <code>kind</code> and, depending on the kind, a <code>title</code>,
+     * <code>details</code> and/or <code>assertiveCode</code>.</p>
+     *
+     * @return The JSON array.
+     */
+    public JSONArray toJSON() {
+        JSONArray result = new JSONArray();
+
+        if (myEvents != null) {
+            for (Event e : myEvents) {
+                result.put(e.toJSON());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Returns the events in the text format of the VC output file.</p>
+     *
+     * @return The trace as a string, or the empty string if this trace is
+     *         not enabled.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+
+        if (myEvents != null) {
+            for (Event e : myEvents) {
+                e.appendTo(sb);
+            }
+        }
+
+        return sb.toString();
+    }
+
+    // ===========================================================
+    // Helper Classes
+    // ===========================================================
+
+    private enum Kind {
+        DETAILS, SECTION, RULE, SEPARATOR
+    }
+
+    /**
+     * <p>A single step taken by the VC generator.</p>
+     */
+    private static class Event {
+
+        private final Kind myKind;
+        private final String myTitle;
+        private final String myAssertiveCode;
+        private Map<String, String> myDetails;
+
+        private Event(Kind kind, String title, String assertiveCode) {
+            myKind = kind;
+            myTitle = title;
+            myAssertiveCode = assertiveCode;
+        }
+
+        private void appendTo(StringBuilder sb) {
+            switch (myKind) {
+            case DETAILS:
+                sb.append("\n========================= ");
+                sb.append(myTitle);
+                sb.append("  =========================\n");
+                for (Map.Entry<String, String> d : myDetails.entrySet()) {
+                    sb.append("\n ");
+                    sb.append(d.getKey());
+                    sb.append(":\t");
+                    sb.append(d.getValue());
+                }
+                sb.append("\n");
+                sb.append("\n====================================");
+                sb.append("======================================\n");
+                sb.append("\n");
+                break;
+            case SECTION:
+                sb.append("\n========================= ");
+                sb.append(myTitle);
+                sb.append(" =========================\n");
+                break;
+            case RULE:
+                sb.append("\n");
+                sb.append(myTitle);
+                sb.append(": \n");
+                sb.append(myAssertiveCode);
+                sb.append("\n_____________________ \n");
+                break;
+            default:
+                sb.append("\n***********************");
+                sb.append("***********************\n");
+                break;
+            }
+        }
+
+        private JSONObject toJSON() {
+            JSONObject result = new JSONObject();
+            result.put("kind", myKind.name().toLowerCase());
+            if (myTitle != null) {
+                result.put("title", myTitle);
+            }
+            if (myDetails != null) {
+                result.put("details", new JSONObject(myDetails));
+            }
+            if (myAssertiveCode != null) {
+                result.put("assertiveCode", myAssertiveCode);
+            }
+
+            return result;
+        }
+    }
+}
@@ -98,7 +98,7 @@ public class VCGenerator extends TreeWalkerVisitor {
      * haven't printed for the <code>AssertiveCode</code>
      * that we still need to apply proof rules to.</p>
      */
-    private Stack<String> myIncAssertiveCodeStackInfo;
+    private Stack<VCGenerationTrace> myIncAssertiveCodeStackInfo;
 
     /**
      * <p>The current compile environment used throughout
@@ -112,10 +112,10 @@ public class VCGenerator extends TreeWalkerVisitor {
     private OutputVCs myOutputGenerator;
 
     /**
-     * <p>This string buffer holds all the steps
-     * the VC generator takes to generate VCs.</p>
+     * <p>The steps the VC generator takes to generate VCs. Only
+     * recorded when the verbose flag is set.</p>
      */
-    private StringBuffer myVCBuffer;
+    private VCGenerationTrace myVCTrace;
 
     // ===========================================================
     // Flag Strings
@@ -125,6 +125,8 @@ public class VCGenerator extends TreeWalkerVisitor {
     private static final String FLAG_DESC_ATLVERIFY_VC = "Generate VCs.";
     private static final String FLAG_DESC_ATTPVCS_VC =
             "Generate Performance VCs";
+    private static final String FLAG_DESC_VERBOSE_VC =
+            "Output the steps taken to generate the VCs.";
 
     // ===========================================================
     // Flags
@@ -136,8 +138,12 @@ public class VCGenerator extends TreeWalkerVisitor {
     public static final Flag FLAG_ALTPVCS_VC =
             new Flag(FLAG_ALTSECTION_NAME, "PVCs", FLAG_DESC_ATTPVCS_VC);
 
+    public static final Flag FLAG_VERBOSE_VC =
+            new Flag(FLAG_ALTSECTION_NAME, "verboseVCs", FLAG_DESC_VERBOSE_VC);
+
     public static final void setUpFlags() {
         FlagDependencies.addImplies(FLAG_ALTPVCS_VC, FLAG_ALTVERIFY_VC);
+        FlagDependencies.addRequires(FLAG_VERBOSE_VC, FLAG_ALTVERIFY_VC);
     }
 
     // ===========================================================
@@ -170,9 +176,9 @@ public class VCGenerator extends TreeWalkerVisitor {
         myFacilityFormalActualMap = new HashMap<FacilityDec, List<EqualsExp>>();
         myFinalAssertiveCodeList = new LinkedList<AssertiveCode>();
         myIncAssertiveCodeStack = new Stack<AssertiveCode>();
-        myIncAssertiveCodeStackInfo = new Stack<String>();
+        myIncAssertiveCodeStackInfo = new Stack<VCGenerationTrace>();
         myOutputGenerator = null;
-        myVCBuffer = new StringBuffer();
+        myVCTrace = new VCGenerationTrace(env.flags.isFlagSet(FLAG_VERBOSE_VC));
     }
 
     // ===========================================================
@@ -186,17 +192,12 @@ public class VCGenerator extends TreeWalkerVisitor {
     @Override
     public void preConceptBodyModuleDec(ConceptBodyModuleDec dec) {
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\n=========================");
-        myVCBuffer.append(" VC Generation Details ");
-        myVCBuffer.append(" =========================\n");
-        myVCBuffer.append("\n Concept Realization Name:\t");
-        myVCBuffer.append(dec.getName().getName());
-        myVCBuffer.append("\n Concept Name:\t");
-        myVCBuffer.append(dec.getConceptName().getName());
-        myVCBuffer.append("\n");
-        myVCBuffer.append("\n====================================");
-        myVCBuffer.append("======================================\n");
-        myVCBuffer.append("\n");
+        if (myVCTrace.isEnabled()) {
+            Map<String, String> details = new LinkedHashMap<String, String>();
+            details.put("Concept Realization Name", dec.getName().getName());
+            details.put("Concept Name", dec.getConceptName().getName());
+            myVCTrace.addModuleDetails(details);
+        }
 
         // Set the current module scope
         try {
@@ -254,19 +255,15 @@ public class VCGenerator extends TreeWalkerVisitor {
     @Override
     public void preEnhancementBodyModuleDec(EnhancementBodyModuleDec dec) {
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\n=========================");
-        myVCBuffer.append(" VC Generation Details ");
-        myVCBuffer.append(" =========================\n");
-        myVCBuffer.append("\n Enhancement Realization Name:\t");
-        myVCBuffer.append(dec.getName().getName());
-        myVCBuffer.append("\n Enhancement Name:\t");
-        myVCBuffer.append(dec.getEnhancementName().getName());
-        myVCBuffer.append("\n Concept Name:\t");
-        myVCBuffer.append(dec.getConceptName().getName());
-        myVCBuffer.append("\n");
-        myVCBuffer.append("\n====================================");
-        myVCBuffer.append("======================================\n");
-        myVCBuffer.append("\n");
+        if (myVCTrace.isEnabled()) {
+            Map<String, String> details = new LinkedHashMap<String, String>();
+            details
+                    .put("Enhancement Realization Name", dec.getName()
+                            .getName());
+            details.put("Enhancement Name", dec.getEnhancementName().getName());
+            details.put("Concept Name", dec.getConceptName().getName());
+            myVCTrace.addModuleDetails(details);
+        }
 
         // Set the current module scope
         try {
@@ -356,15 +353,11 @@ public class VCGenerator extends TreeWalkerVisitor {
     @Override
     public void preFacilityModuleDec(FacilityModuleDec dec) {
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\n=========================");
-        myVCBuffer.append(" VC Generation Details ");
-        myVCBuffer.append(" =========================\n");
-        myVCBuffer.append("\n Facility Name:\t");
-        myVCBuffer.append(dec.getName().getName());
-        myVCBuffer.append("\n");
-        myVCBuffer.append("\n====================================");
-        myVCBuffer.append("======================================\n");
-        myVCBuffer.append("\n");
+        if (myVCTrace.isEnabled()) {
+            Map<String, String> details = new LinkedHashMap<String, String>();
+            details.put("Facility Name", dec.getName().getName());
+            myVCTrace.addModuleDetails(details);
+        }
 
         // Set the current module scope
         try {
@@ -420,10 +413,7 @@ public class VCGenerator extends TreeWalkerVisitor {
     @Override
     public void postFacilityOperationDec(FacilityOperationDec dec) {
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\n=========================");
-        myVCBuffer.append(" Procedure: ");
-        myVCBuffer.append(dec.getName().getName());
-        myVCBuffer.append(" =========================\n");
+        myVCTrace.addSection("Procedure: " + dec.getName().getName());
 
         // The current assertive code
         myCurrentAssertiveCode = new AssertiveCode(myInstanceEnvironment, dec);
@@ -489,7 +479,7 @@ public class VCGenerator extends TreeWalkerVisitor {
 
         // Add this to our stack of to be processed assertive codes.
         myIncAssertiveCodeStack.push(myCurrentAssertiveCode);
-        myIncAssertiveCodeStackInfo.push("");
+        myIncAssertiveCodeStackInfo.push(myVCTrace.newFragment());
 
         // Set the current assertive code to null
         // YS: (We the modify requires and ensures clause needs to have
@@ -514,7 +504,7 @@ public class VCGenerator extends TreeWalkerVisitor {
         // Create the output generator and finalize output
         myOutputGenerator =
                 new OutputVCs(myInstanceEnvironment, myFinalAssertiveCodeList,
-                        myVCBuffer);
+                        myVCTrace);
 
         // Check if it is generating VCs for WebIDE or not.
         if (myInstanceEnvironment.flags.isFlagSet(ResolveCompiler.FLAG_XML_OUT)) {
@@ -559,10 +549,7 @@ public class VCGenerator extends TreeWalkerVisitor {
     @Override
     public void postProcedureDec(ProcedureDec dec) {
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\n=========================");
-        myVCBuffer.append(" Procedure: ");
-        myVCBuffer.append(dec.getName().getName());
-        myVCBuffer.append(" =========================\n");
+        myVCTrace.addSection("Procedure: " + dec.getName().getName());
 
         // The current assertive code
         myCurrentAssertiveCode = new AssertiveCode(myInstanceEnvironment, dec);
@@ -630,7 +617,7 @@ public class VCGenerator extends TreeWalkerVisitor {
 
         // Add this to our stack of to be processed assertive codes.
         myIncAssertiveCodeStack.push(myCurrentAssertiveCode);
-        myIncAssertiveCodeStackInfo.push("");
+        myIncAssertiveCodeStackInfo.push(myVCTrace.newFragment());
 
         // Set the current assertive code to null
         // YS: (We the modify requires and ensures clause needs to have
@@ -925,6 +912,12 @@ public class VCGenerator extends TreeWalkerVisitor {
 
     /**
      * <p>Loop through our stack of incomplete assertive codes.</p>
+     *
+     * <p>The assertive codes are processed one at a time. The proof rules
+     * rewrite <code>Exp</code> trees in place, and some of those trees, such
+     * as the global requires and constraint clauses and the facility
+     * specifications, are shared between assertive codes. They must not be
+     * processed concurrently until each has its own copies.</p>
      */
     private void loopAssertiveCodeStack() {
         // Loop until our to process assertive code stack is empty
@@ -933,18 +926,16 @@ public class VCGenerator extends TreeWalkerVisitor {
             // code we are working on.
             myCurrentAssertiveCode = myIncAssertiveCodeStack.pop();
 
-            myVCBuffer.append("\n***********************");
-            myVCBuffer.append("***********************\n");
+            myVCTrace.addSeparator();
 
             // Append any information that still needs to be added to our
-            // Debug VC Buffer
-            myVCBuffer.append(myIncAssertiveCodeStackInfo.pop());
+            // trace
+            myVCTrace.append(myIncAssertiveCodeStackInfo.pop());
 
             // Apply proof rules
             applyRules();
 
-            myVCBuffer.append("\n***********************");
-            myVCBuffer.append("***********************\n");
+            myVCTrace.addSeparator();
 
             // Add it to our list of final assertive codes if we don't have confirm true
             // as our goal.
@@ -1923,9 +1914,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         if (assertion instanceof VarExp
                 && assertion.equals(myTypeGraph.getTrueVarExp())) {
             // Verbose Mode Debug Messages
-            myVCBuffer.append("\nAssume Rule Applied and Simplified: \n");
-            myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-            myVCBuffer.append("\n_____________________ \n");
+            myVCTrace.addRuleApplied("Assume Rule Applied and Simplified",
+                    myCurrentAssertiveCode);
         }
         else {
             // Apply simplification
@@ -1949,9 +1939,8 @@ public class VCGenerator extends TreeWalkerVisitor {
                     simplify);
 
             // Verbose Mode Debug Messages
-            myVCBuffer.append("\nAssume Rule Applied: \n");
-            myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-            myVCBuffer.append("\n_____________________ \n");
+            myVCTrace.addRuleApplied("Assume Rule Applied",
+                    myCurrentAssertiveCode);
         }
     }
 
@@ -1996,9 +1985,7 @@ public class VCGenerator extends TreeWalkerVisitor {
                 .getSimplify());
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nChange Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Change Rule Applied", myCurrentAssertiveCode);
     }
 
     /**
@@ -2219,9 +2206,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         }
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nOperation Call Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Operation Call Rule Applied",
+                myCurrentAssertiveCode);
     }
 
     /**
@@ -2265,9 +2251,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         Exp assertion = stmt.getAssertion();
         if (stmt.getSimplify()) {
             // Verbose Mode Debug Messages
-            myVCBuffer.append("\nConfirm Rule Applied and Simplified: \n");
-            myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-            myVCBuffer.append("\n_____________________ \n");
+            myVCTrace.addRuleApplied("Confirm Rule Applied and Simplified",
+                    myCurrentAssertiveCode);
         }
         else {
             // Obtain the current final confirm statement
@@ -2287,9 +2272,8 @@ public class VCGenerator extends TreeWalkerVisitor {
                         .getSimplify());
 
                 // Verbose Mode Debug Messages
-                myVCBuffer.append("\nConfirm Rule Applied and Simplified: \n");
-                myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-                myVCBuffer.append("\n_____________________ \n");
+                myVCTrace.addRuleApplied("Confirm Rule Applied and Simplified",
+                        myCurrentAssertiveCode);
             }
             else {
                 // Create a new and expression
@@ -2301,9 +2285,8 @@ public class VCGenerator extends TreeWalkerVisitor {
                 myCurrentAssertiveCode.setFinalConfirm(newConf, false);
 
                 // Verbose Mode Debug Messages
-                myVCBuffer.append("\nConfirm Rule Applied: \n");
-                myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-                myVCBuffer.append("\n_____________________ \n");
+                myVCTrace.addRuleApplied("Confirm Rule Applied",
+                        myCurrentAssertiveCode);
             }
         }
     }
@@ -2455,14 +2438,12 @@ public class VCGenerator extends TreeWalkerVisitor {
         myIncAssertiveCodeStack.push(assertiveCode);
 
         // Verbose Mode Debug Messages
-        String newString =
-                "\n========================= Type Representation Name:\t"
-                        + dec.getName().getName()
-                        + " =========================\n";
-        newString += "\nCorrespondence Rule Applied: \n";
-        newString += assertiveCode.assertionToString();
-        newString += "\n_____________________ \n";
-        myIncAssertiveCodeStackInfo.push(newString);
+        VCGenerationTrace info = myVCTrace.newFragment();
+        info
+                .addSection("Type Representation Name:\t"
+                        + dec.getName().getName());
+        info.addRuleApplied("Correspondence Rule Applied", assertiveCode);
+        myIncAssertiveCodeStackInfo.push(info);
     }
 
     /**
@@ -2660,14 +2641,10 @@ public class VCGenerator extends TreeWalkerVisitor {
         myIncAssertiveCodeStack.push(assertiveCode);
 
         // Verbose Mode Debug Messages
-        String newString =
-                "\n========================= Facility Dec Name:\t"
-                        + dec.getName().getName()
-                        + " =========================\n";
-        newString += "\nFacility Declaration Rule Applied: \n";
-        newString += assertiveCode.assertionToString();
-        newString += "\n_____________________ \n";
-        myIncAssertiveCodeStackInfo.push(newString);
+        VCGenerationTrace info = myVCTrace.newFragment();
+        info.addSection("Facility Dec Name:\t" + dec.getName().getName());
+        info.addRuleApplied("Facility Declaration Rule Applied", assertiveCode);
+        myIncAssertiveCodeStackInfo.push(info);
     }
 
     /**
@@ -3058,9 +3035,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         }
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nFunction Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Function Rule Applied",
+                myCurrentAssertiveCode);
     }
 
     /**
@@ -3308,9 +3284,8 @@ public class VCGenerator extends TreeWalkerVisitor {
                 .getSimplify());
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nIf Part Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace
+                .addRuleApplied("If Part Rule Applied", myCurrentAssertiveCode);
 
         // Add the negation of the if condition as the assume clause
         if (negEnsures != null) {
@@ -3406,10 +3381,10 @@ public class VCGenerator extends TreeWalkerVisitor {
         myIncAssertiveCodeStack.push(negIfAssertiveCode);
 
         // Verbose Mode Debug Messages
-        String newString = "\nNegation of If Part Rule Applied: \n";
-        newString += negIfAssertiveCode.assertionToString();
-        newString += "\n_____________________ \n";
-        myIncAssertiveCodeStackInfo.push(newString);
+        VCGenerationTrace info = myVCTrace.newFragment();
+        info.addRuleApplied("Negation of If Part Rule Applied",
+                negIfAssertiveCode);
+        myIncAssertiveCodeStackInfo.push(info);
     }
 
     /**
@@ -3542,14 +3517,12 @@ public class VCGenerator extends TreeWalkerVisitor {
         myIncAssertiveCodeStack.push(assertiveCode);
 
         // Verbose Mode Debug Messages
-        String newString =
-                "\n========================= Type Representation Name:\t"
-                        + dec.getName().getName()
-                        + " =========================\n";
-        newString += "\nInitialization Rule Applied: \n";
-        newString += assertiveCode.assertionToString();
-        newString += "\n_____________________ \n";
-        myIncAssertiveCodeStackInfo.push(newString);
+        VCGenerationTrace info = myVCTrace.newFragment();
+        info
+                .addSection("Type Representation Name:\t"
+                        + dec.getName().getName());
+        info.addRuleApplied("Initialization Rule Applied", assertiveCode);
+        myIncAssertiveCodeStackInfo.push(info);
     }
 
     /**
@@ -3771,9 +3744,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         myCurrentAssertiveCode.setFinalConfirm(ensures, simplify);
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nProcedure Declaration Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Procedure Declaration Rule Applied",
+                myCurrentAssertiveCode);
     }
 
     /**
@@ -3787,9 +3759,8 @@ public class VCGenerator extends TreeWalkerVisitor {
         myCurrentAssertiveCode.setFinalConfirm(conf, confirmStmt.getSimplify());
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nRemember Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Remember Rule Applied",
+                myCurrentAssertiveCode);
     }
 
     /**
@@ -3905,9 +3876,7 @@ public class VCGenerator extends TreeWalkerVisitor {
         myCurrentAssertiveCode.setFinalConfirm(conf, confirmStmt.getSimplify());
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nSwap Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("Swap Rule Applied", myCurrentAssertiveCode);
     }
 
     /**
@@ -4084,9 +4053,8 @@ public class VCGenerator extends TreeWalkerVisitor {
             }
 
             // Verbose Mode Debug Messages
-            myVCBuffer.append("\nVariable Declaration Rule Applied: \n");
-            myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-            myVCBuffer.append("\n_____________________ \n");
+            myVCTrace.addRuleApplied("Variable Declaration Rule Applied",
+                    myCurrentAssertiveCode);
         }
         else {
             // Ty not handled.
@@ -4329,8 +4297,6 @@ public class VCGenerator extends TreeWalkerVisitor {
         myCurrentAssertiveCode.setFinalConfirm(trueVarExp, true);
 
         // Verbose Mode Debug Messages
-        myVCBuffer.append("\nWhile Rule Applied: \n");
-        myVCBuffer.append(myCurrentAssertiveCode.assertionToString());
-        myVCBuffer.append("\n_____________________ \n");
+        myVCTrace.addRuleApplied("While Rule Applied", myCurrentAssertiveCode);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,191 @@
+/**
+ * IndexedSubstitutionsTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.absyn;
+
+import edu.clemson.cs.r2jt.collections.List;
+import edu.clemson.cs.r2jt.data.PosSymbol;
+import edu.clemson.cs.r2jt.data.Symbol;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Looking up a node in an indexed substitution map must find the same
+ * entry as trying every key in order, which is what
+ * <code>Exp.substitute()</code> did before the index.</p>
+ */
+public class IndexedSubstitutionsTest {
+
+    private static final TypeGraph G = new TypeGraph();
+
+    @Test
+    public void testFindMatchAgreesWithLinearScan() {
+        Map<Exp, Exp> substitutions = new LinkedHashMap<Exp, Exp>();
+        substitutions.put(var("y"), var("Q"));
+        substitutions.put(dot("S", "Top"), var("T"));
+        substitutions.put(infix(var("x"), "+", function("f", var("y"))),
+                var("R"));
+        substitutions.put(var("x"), var("P"));
+        substitutions.put(integer(3), integer(4));
+        substitutions.put(prefix("not", var("x")), var("N"));
+        substitutions.put(outfix(OutfixExp.ANGLE, var("y")), var("A"));
+        substitutions.put(equal(var("y"), integer(3)), var("E"));
+
+        for (Exp node : nodes(sampleTree())) {
+            assertSame(node.toString(0), linearScan(substitutions, node),
+                    new IndexedSubstitutions(substitutions).findMatch(node));
+        }
+    }
+
+    @Test
+    public void testFirstOfEquivalentKeysWins() {
+        // Keys are compared by identity, so equivalent keys can coexist
+        Exp first = var("x");
+        Exp second = var("x");
+
+        Map<Exp, Exp> substitutions = new LinkedHashMap<Exp, Exp>();
+        substitutions.put(var("a"), var("A"));
+        substitutions.put(first, var("P"));
+        substitutions.put(dot("S", "Top"), var("T"));
+        substitutions.put(second, var("Z"));
+        substitutions.put(var("b"), var("B"));
+
+        IndexedSubstitutions indexed = new IndexedSubstitutions(substitutions);
+        assertSame(first, indexed.findMatch(var("x")).getKey());
+        assertSame(linearScan(substitutions, var("x")), indexed
+                .findMatch(var("x")));
+        assertNull(indexed.findMatch(var("c")));
+        assertNull(indexed.findMatch(integer(3)));
+    }
+
+    @Test
+    public void testSubstituteLargeMap() {
+        Map<Exp, Exp> substitutions = new LinkedHashMap<Exp, Exp>();
+        substitutions.put(var("y"), var("Q"));
+        substitutions.put(dot("S", "Top"), var("T"));
+        substitutions.put(var("x"), var("P"));
+        substitutions.put(integer(3), integer(4));
+        assertTrue(substitutions.size() >= IndexedSubstitutions.THRESHOLD);
+
+        // (x + f(y)) = (S.Top + 3) and not(x) = <y> becomes
+        // (P + f(Q)) = (T + 4) and not(P) = <Q>
+        Exp expected =
+                infix(equal(infix(var("P"), "+", function("f", var("Q"))),
+                        infix(var("T"), "+", integer(4))), "and", equal(prefix(
+                        "not", var("P")), outfix(OutfixExp.ANGLE, var("Q"))));
+        assertTrue(sampleTree().substitute(substitutions).equivalent(expected));
+
+        // A key that matches a whole subtree is used in place of its parts
+        substitutions.put(infix(var("x"), "+", function("f", var("y"))),
+                var("R"));
+        expected =
+                infix(equal(var("R"), infix(var("T"), "+", integer(4))), "and",
+                        equal(prefix("not", var("P")), outfix(OutfixExp.ANGLE,
+                                var("Q"))));
+        assertTrue(sampleTree().substitute(substitutions).equivalent(expected));
+    }
+
+    /**
+     * <p>(x + f(y)) = (S.Top + 3) and not(x) = &lt;y&gt;, joined by
+     * <code>and</code>.</p>
+     */
+    private static Exp sampleTree() {
+        Exp left =
+                equal(infix(var("x"), "+", function("f", var("y"))), infix(dot(
+                        "S", "Top"), "+", integer(3)));
+        Exp right =
+                equal(prefix("not", var("x")),
+                        outfix(OutfixExp.ANGLE, var("y")));
+        return infix(left, "and", right);
+    }
+
+    private static Map.Entry<Exp, Exp> linearScan(Map<Exp, Exp> substitutions,
+            Exp e) {
+        Map.Entry<Exp, Exp> result = null;
+
+        for (Map.Entry<Exp, Exp> entry : substitutions.entrySet()) {
+            if (result == null && entry.getKey().equivalent(e)) {
+                result = entry;
+            }
+        }
+
+        return result;
+    }
+
+    private static java.util.List<Exp> nodes(Exp e) {
+        java.util.List<Exp> result = new ArrayList<Exp>();
+        result.add(e);
+        for (Exp sub : e.getSubExpressions()) {
+            if (sub != null) {
+                result.addAll(nodes(sub));
+            }
+        }
+        return result;
+    }
+
+    private static PosSymbol symbol(String name) {
+        return new PosSymbol(null, Symbol.symbol(name));
+    }
+
+    private static VarExp var(String name) {
+        return typed(new VarExp(null, null, symbol(name)));
+    }
+
+    private static DotExp dot(String... names) {
+        List<Exp> segments = new List<Exp>();
+        for (String name : names) {
+            segments.add(var(name));
+        }
+        return typed(new DotExp(null, segments, null));
+    }
+
+    private static InfixExp infix(Exp left, String op, Exp right) {
+        return typed(new InfixExp(null, left, symbol(op), right));
+    }
+
+    private static PrefixExp prefix(String op, Exp argument) {
+        return typed(new PrefixExp(null, symbol(op), argument));
+    }
+
+    private static OutfixExp outfix(int operator, Exp argument) {
+        return typed(new OutfixExp(null, operator, argument));
+    }
+
+    private static IntegerExp integer(int value) {
+        return typed(new IntegerExp(null, null, value));
+    }
+
+    private static FunctionExp function(String name, Exp argument) {
+        List<Exp> arguments = new List<Exp>();
+        arguments.add(argument);
+        List<FunctionArgList> params = new List<FunctionArgList>();
+        params.add(new FunctionArgList(arguments));
+        return typed(new FunctionExp(null, null, symbol(name), null, params));
+    }
+
+    private static EqualsExp equal(Exp left, Exp right) {
+        return typed(new EqualsExp(null, left, EqualsExp.EQUAL, right));
+    }
+
+    /**
+     * <p>substitute() copies the math type of each node it rebuilds, so the
+     * nodes need one. Which one does not matter here.</p>
+     */
+    private static <T extends Exp> T typed(T e) {
+        e.setMathType(G.Z);
+        return e;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * TreeWalkerTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.absynnew;
+
+import edu.clemson.cs.r2jt.absynnew.expr.ExprAST;
+import edu.clemson.cs.r2jt.absynnew.expr.MathSymbolAST;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TreeWalkerTest {
+
+    @Test
+    public void testHandlerOrder() {
+        MathSymbolAST tree =
+                TreeUtil.createASTNodeFrom(new ResolveParserFactory()
+                        .createParser("b = true").mathExp());
+
+        List<String> expected =
+                Arrays.asList("preExprAST =", "preMathSymbolAST =",
+                        "midMathSymbolAST = null b", "preExprAST b",
+                        "preMathSymbolAST b", "postMathSymbolAST b",
+                        "postExprAST b", "midMathSymbolAST = b true",
+                        "preExprAST true", "preMathSymbolAST true",
+                        "postMathSymbolAST true", "postExprAST true",
+                        "midMathSymbolAST = true null", "postMathSymbolAST =",
+                        "postExprAST =");
+
+        // The second walk finds every handler already looked up
+        for (int i = 0; i < 2; i++) {
+            RecordingVisitor v = new RecordingVisitor(false);
+            TreeWalker.walk(v, tree);
+            assertEquals(expected, v.myCalls);
+        }
+    }
+
+    @Test
+    public void testWalkOverride() {
+        MathSymbolAST tree =
+                TreeUtil.createASTNodeFrom(new ResolveParserFactory()
+                        .createParser("b = true").mathExp());
+
+        RecordingVisitor v = new RecordingVisitor(true);
+        TreeWalker.walk(v, tree);
+        assertEquals(Arrays.asList("walkMathSymbolAST ="), v.myCalls);
+    }
+
+    public static class RecordingVisitor extends TreeWalkerVisitor {
+
+        private final boolean mySkipChildren;
+        private final List<String> myCalls = new ArrayList<String>();
+
+        public RecordingVisitor(boolean skipChildren) {
+            mySkipChildren = skipChildren;
+        }
+
+        @Override
+        public boolean walkMathSymbolAST(MathSymbolAST e) {
+            if (mySkipChildren) {
+                myCalls.add("walkMathSymbolAST " + name(e));
+            }
+            return mySkipChildren;
+        }
+
+        @Override
+        public void preExprAST(ExprAST e) {
+            myCalls.add("preExprAST " + name(e));
+        }
+
+        @Override
+        public void preMathSymbolAST(MathSymbolAST e) {
+            myCalls.add("preMathSymbolAST " + name(e));
+        }
+
+        @Override
+        public void midMathSymbolAST(MathSymbolAST e, ResolveAST previous,
+                ResolveAST next) {
+            myCalls.add("midMathSymbolAST " + name(e) + " " + name(previous)
+                    + " " + name(next));
+        }
+
+        @Override
+        public void postMathSymbolAST(MathSymbolAST e) {
+            myCalls.add("postMathSymbolAST " + name(e));
+        }
+
+        @Override
+        public void postExprAST(ExprAST e) {
+            myCalls.add("postExprAST " + name(e));
+        }
+
+        private static String name(ResolveAST e) {
+            String result = "null";
+            if (e != null) {
+                result = ((MathSymbolAST) e).getName().getText();
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * ConjunctionOfNormalizedAtomicExpressionsTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.Antecedent;
+import edu.clemson.cs.r2jt.rewriteprover.Consequent;
+import edu.clemson.cs.r2jt.rewriteprover.VC;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>A merge takes every expression that mentions the merged symbol out of
+ * the sorted conjunction, rewrites it, and puts it back unless it now
+ * duplicates another expression, in which case the roots of the two are
+ * merged in turn. The result must be the same as when each expression was
+ * removed and reinserted one at a time.</p>
+ */
+public class ConjunctionOfNormalizedAtomicExpressionsTest {
+
+    private static final String F = " ( f 1 i Z";
+    private static final String G = " ( g 2 i Z";
+    private static final String EQ = " ( = 2 i B";
+    private static final String AND = " ( and 2 i B";
+
+    private static final String[] CONSTANTS = { "a", "b", "c", "d", "e" };
+
+    private final TypeGraph g = new TypeGraph();
+
+    /**
+     * <p>The expected conjunctions were produced by the merge that removed
+     * and reinserted one expression at a time.</p>
+     */
+    @Test
+    public void testDuplicateOfExistingExpression() {
+        // f(a) = c and f(b) = d and a = b: f(b) becomes a second f(a), so
+        // c and d are merged as well
+        assertConjunction(eq("a Z" + F, "c Z") + eq("b Z" + F, "d Z") + AND
+                + eq("a Z", "b Z") + AND, "f(a)=c");
+    }
+
+    @Test
+    public void testDuplicatesAmongRewrittenExpressions() {
+        // g(a, b) = c and g(b, a) = d and a = b: both become g(a, a)
+        assertConjunction(eq("a Z b Z" + G, "c Z") + eq("b Z a Z" + G, "d Z")
+                + AND + eq("a Z", "b Z") + AND, "g(a,a)=c");
+    }
+
+    @Test
+    public void testCascadingDuplicates() {
+        // f(a) = b and f(b) = c and f(c) = a and g(a, c) = d and
+        // g(b, b) = e and a = b
+        assertConjunction(eq("a Z" + F, "b Z") + eq("b Z" + F, "c Z") + AND
+                + eq("c Z" + F, "a Z") + AND + eq("a Z c Z" + G, "d Z") + AND
+                + eq("b Z b Z" + G, "e Z") + AND + eq("a Z", "b Z") + AND,
+                "f(a)=a", "g(a,a)=d");
+
+        // g(a, b) = c and g(b, a) = d and f(b) = e and f(a) = c and
+        // f(d) = a and b = a
+        assertConjunction(eq("a Z b Z" + G, "c Z") + eq("b Z a Z" + G, "d Z")
+                + AND + eq("b Z" + F, "e Z") + AND + eq("a Z" + F, "c Z") + AND
+                + eq("d Z" + F, "a Z") + AND + eq("b Z", "a Z") + AND,
+                "g(a,a)=c", "f(a)=c", "f(c)=a");
+    }
+
+    /**
+     * <p>After any sequence of merges the conjunction is strictly sorted and
+     * mentions only the representatives of their classes, so no two of its
+     * expressions are congruent.</p>
+     */
+    @Test
+    public void testMergesKeepConjunctionSortedAndClosed() {
+        Random random = new Random(7);
+        for (int t = 0; t < 200; t++) {
+            StringBuilder antecedent = new StringBuilder();
+            int equalities = 3 + random.nextInt(12);
+            for (int i = 0; i < equalities; i++) {
+                String left;
+                if (random.nextBoolean()) {
+                    left = constant(random) + F;
+                }
+                else {
+                    left = constant(random) + " " + constant(random) + G;
+                }
+                String right = constant(random);
+                if (random.nextInt(3) != 0) {
+                    right += F;
+                }
+                antecedent.append(eq(left, right));
+                if (i > 0) {
+                    antecedent.append(AND);
+                }
+            }
+
+            VerificationConditionCongruenceClosureImpl vcc =
+                    build(antecedent.toString());
+            ConjunctionOfNormalizedAtomicExpressions conjunction =
+                    vcc.getConjunct();
+            Registry registry = vcc.getRegistry();
+
+            for (int i = 0; i < conjunction.size(); i++) {
+                NormalizedAtomicExpressionMapImpl cur =
+                        conjunction.getExprAtPosition(i);
+                String message =
+                        antecedent + ": " + cur.toHumanReadableString(registry);
+                if (i > 0) {
+                    assertTrue(message, conjunction.getExprAtPosition(i - 1)
+                            .compareTo(cur) < 0);
+                }
+                for (Integer op : cur.getKeys()) {
+                    assertEquals(message, op.intValue(), registry
+                            .findAndCompress(op));
+                }
+            }
+        }
+    }
+
+    private void assertConjunction(String antecedent, String... expressions) {
+        VerificationConditionCongruenceClosureImpl vcc = build(antecedent);
+        ConjunctionOfNormalizedAtomicExpressions conjunction =
+                vcc.getConjunct();
+
+        List<String> actual = new ArrayList<String>();
+        for (int i = 0; i < conjunction.size(); i++) {
+            actual.add(conjunction.getExprAtPosition(i).toHumanReadableString(
+                    vcc.getRegistry()));
+        }
+        assertEquals(Arrays.asList(expressions), actual);
+    }
+
+    private VerificationConditionCongruenceClosureImpl build(String antecedent) {
+        VC vc =
+                new VC("test", new Antecedent(PExp.buildPExp(antecedent.trim(),
+                        g)), new Consequent(PExp.buildPExp("a Z b Z ( = 2 i B",
+                        g)));
+        return new VerificationConditionCongruenceClosureImpl(g, vc);
+    }
+
+    private static String eq(String left, String right) {
+        return " " + left + " " + right + EQ;
+    }
+
+    private static String constant(Random random) {
+        return CONSTANTS[random.nextInt(CONSTANTS.length)] + " Z";
+    }
+}
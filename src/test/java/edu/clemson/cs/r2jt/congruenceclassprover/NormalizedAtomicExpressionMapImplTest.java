@@ -0,0 +1,251 @@
+/**
+ * NormalizedAtomicExpressionMapImplTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>The array-backed expression must read, compare and rewrite the same as
+ * the map from operator to position bits it replaced, which is kept below
+ * as {@link BitPatternExpression}.</p>
+ */
+public class NormalizedAtomicExpressionMapImplTest {
+
+    private static final int POSITIONS = 6;
+
+    // Arguments are drawn from few enough operators that they repeat. Roots
+    // are drawn from others, as the conjunction always makes a new symbol
+    // for the root.
+    private static final int ARGUMENT_OPERATORS = 6;
+    private static final int OPERATORS = 10;
+
+    private static final int EXPRESSIONS = 500;
+
+    private final Random myRandom = new Random(42);
+
+    @Test
+    public void testReadsAsBitPatterns() {
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            NormalizedAtomicExpressionMapImpl actual =
+                    new NormalizedAtomicExpressionMapImpl();
+            BitPatternExpression expected = new BitPatternExpression();
+            write(actual, expected);
+
+            assertSameReads(expected, actual);
+        }
+    }
+
+    @Test
+    public void testReplaceOperatorAsBitPatterns() {
+        for (int i = 0; i < EXPRESSIONS; i++) {
+            NormalizedAtomicExpressionMapImpl actual =
+                    new NormalizedAtomicExpressionMapImpl();
+            BitPatternExpression expected = new BitPatternExpression();
+            write(actual, expected);
+
+            for (int j = 0; j < 4; j++) {
+                int orig = myRandom.nextInt(OPERATORS);
+                int repl = myRandom.nextInt(OPERATORS);
+                assertEquals(expected.replaceOperator(orig, repl), actual
+                        .replaceOperator(orig, repl));
+                assertSameReads(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testCompareToAsBitPatterns() {
+        List<NormalizedAtomicExpressionMapImpl> actuals =
+                new ArrayList<NormalizedAtomicExpressionMapImpl>();
+        List<BitPatternExpression> expecteds =
+                new ArrayList<BitPatternExpression>();
+        for (int i = 0; i < 60; i++) {
+            NormalizedAtomicExpressionMapImpl actual =
+                    new NormalizedAtomicExpressionMapImpl();
+            BitPatternExpression expected = new BitPatternExpression();
+            // Short expressions over few operators, so that some are equal
+            write(actual, expected, 1 + myRandom.nextInt(3), 3);
+            actuals.add(actual);
+            expecteds.add(expected);
+        }
+
+        for (int i = 0; i < actuals.size(); i++) {
+            for (int j = 0; j < actuals.size(); j++) {
+                assertEquals(Integer.signum(expecteds.get(i).compareTo(
+                        expecteds.get(j))), Integer.signum(actuals.get(i)
+                        .compareTo(actuals.get(j))));
+            }
+        }
+    }
+
+    /**
+     * <p>The one intended difference: the map kept one set of positions per
+     * operator, so writing the root over an operator already used as an
+     * argument lost that argument.</p>
+     */
+    @Test
+    public void testRootMayAlsoBeAnArgument() {
+        // f(a, b) = a
+        NormalizedAtomicExpressionMapImpl e =
+                new NormalizedAtomicExpressionMapImpl();
+        e.writeOnto(7, 0);
+        e.writeOnto(1, 1);
+        e.writeOnto(2, 2);
+        e.writeToRoot(1);
+
+        assertEquals(7, e.readPosition(0));
+        assertEquals(1, e.readPosition(1));
+        assertEquals(2, e.readPosition(2));
+        assertEquals(-1, e.readPosition(3));
+        assertEquals(1, e.readRoot());
+        assertEquals((1 << 1) | (1 << POSITIONS), e.readOperator(1));
+        assertEquals(3, e.numPositions());
+    }
+
+    private void write(NormalizedAtomicExpressionMapImpl actual,
+            BitPatternExpression expected) {
+        write(actual, expected, 1 + myRandom.nextInt(POSITIONS),
+                ARGUMENT_OPERATORS);
+    }
+
+    private void write(NormalizedAtomicExpressionMapImpl actual,
+            BitPatternExpression expected, int positions, int operators) {
+        for (int p = 0; p < positions; p++) {
+            int op = myRandom.nextInt(operators);
+            actual.writeOnto(op, p);
+            expected.writeOnto(op, p);
+        }
+        if (myRandom.nextBoolean()) {
+            int root =
+                    ARGUMENT_OPERATORS
+                            + myRandom.nextInt(OPERATORS - ARGUMENT_OPERATORS);
+            actual.writeToRoot(root);
+            expected.writeToRoot(root);
+        }
+    }
+
+    private static void assertSameReads(BitPatternExpression expected,
+            NormalizedAtomicExpressionMapImpl actual) {
+        String message = expected.toString();
+        for (int p = 0; p <= POSITIONS; p++) {
+            assertEquals(message, expected.readPosition(p), actual
+                    .readPosition(p));
+        }
+        assertEquals(message, expected.readRoot(), actual.readRoot());
+        for (int op = 0; op < OPERATORS; op++) {
+            assertEquals(message, expected.readOperator(op), actual
+                    .readOperator(op));
+        }
+        assertEquals(message, expected.getKeys(), actual.getKeys());
+        assertEquals(message, expected.getKeys().size(), actual.numOperators());
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    /**
+     * <p>The map from operator to the bit pattern of its positions that
+     * <code>NormalizedAtomicExpressionMapImpl</code> used to be, trimmed to
+     * the methods compared above.</p>
+     */
+    private static class BitPatternExpression {
+
+        private final Map<Integer, Integer> m_expression =
+                new TreeMap<Integer, Integer>();
+
+        public int readOperator(int operator) {
+            if (m_expression.containsKey(operator)) {
+                return m_expression.get(operator);
+            }
+            return 0;
+        }
+
+        public Set<Integer> getKeys() {
+            return m_expression.keySet();
+        }
+
+        public int readPosition(int position) {
+            if (position >= POSITIONS) {
+                return -1;
+            }
+            position = 1 << position;
+            for (Map.Entry<Integer, Integer> e : m_expression.entrySet()) {
+                if ((e.getValue() & position) != 0) {
+                    return e.getKey();
+                }
+            }
+            return -1;
+        }
+
+        public void writeOnto(int operator, int position) {
+            position = 1 << position;
+            Integer curValue = m_expression.get(operator);
+            if (curValue != null) {
+                position = position | curValue;
+            }
+            m_expression.put(operator, position);
+        }
+
+        public boolean replaceOperator(int orig, int repl) {
+            int origPositions = -1;
+            if (m_expression.containsKey(orig)) {
+                origPositions = m_expression.get(orig);
+            }
+            int replPositions = 0;
+            if (m_expression.containsKey(repl)) {
+                replPositions = m_expression.get(repl);
+            }
+            if (origPositions > 0) {
+                m_expression.remove(orig);
+
+                m_expression.put(repl, origPositions | replPositions);
+                return true;
+            }
+            return false;
+        }
+
+        public void writeToRoot(int root) {
+            m_expression.put(root, 1 << POSITIONS);
+        }
+
+        public int readRoot() {
+            int position = 1 << POSITIONS;
+            for (Map.Entry<Integer, Integer> e : m_expression.entrySet()) {
+                if ((e.getValue() & position) != 0) {
+                    return e.getKey();
+                }
+            }
+            return -1;
+        }
+
+        public int compareTo(BitPatternExpression o) {
+            for (int i = 0; i < POSITIONS; ++i) {
+                int cmp = readPosition(i) - o.readPosition(i);
+                if (cmp != 0) {
+                    return cmp;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return m_expression.toString();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/**
+ * ProofCacheTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.congruenceclassprover.VerificationConditionCongruenceClosureImpl.STATUS;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Only proofs survive to the next run, and nothing read back from disk
+ * can make the prover fail.</p>
+ */
+public class ProofCacheTest {
+
+    private static final String THEORIES = "theories";
+
+    private File myFile;
+
+    @Before
+    public void setUp() throws IOException {
+        myFile = File.createTempFile("proofcache", ".properties");
+        assertTrue(myFile.delete());
+    }
+
+    @After
+    public void tearDown() {
+        myFile.delete();
+    }
+
+    @Test
+    public void testProofsAreKept() throws IOException {
+        ProofCache cache = new ProofCache(myFile, THEORIES);
+        cache.put("proved", new CongruenceClassProver.VCProofResult(
+                STATUS.PROVED, "proof"));
+        cache.put("false", new CongruenceClassProver.VCProofResult(
+                STATUS.FALSE_ASSUMPTION, "false assumption"));
+        cache.save();
+
+        cache = new ProofCache(myFile, THEORIES);
+        CongruenceClassProver.VCProofResult result = cache.get("proved");
+        assertEquals(STATUS.PROVED, result.m_status);
+        assertEquals("proof", result.m_proof);
+        assertTrue(result.m_cached);
+        assertEquals(STATUS.FALSE_ASSUMPTION, cache.get("false").m_status);
+    }
+
+    @Test
+    public void testOtherResultsAreNotKept() throws IOException {
+        ProofCache cache = new ProofCache(myFile, THEORIES);
+        cache.put("timeout", new CongruenceClassProver.VCProofResult(
+                STATUS.STILL_EVALUATING, "timed out"));
+        cache.put("unprovable", new CongruenceClassProver.VCProofResult(
+                STATUS.UNPROVABLE, "no proof"));
+        cache.save();
+
+        cache = new ProofCache(myFile, THEORIES);
+        assertNull(cache.get("timeout"));
+        assertNull(cache.get("unprovable"));
+    }
+
+    @Test
+    public void testOtherTheoriesStartEmpty() throws IOException {
+        ProofCache cache = new ProofCache(myFile, THEORIES);
+        cache.put("proved", new CongruenceClassProver.VCProofResult(
+                STATUS.PROVED, "proof"));
+        cache.save();
+
+        assertNull(new ProofCache(myFile, "other theories").get("proved"));
+    }
+
+    @Test
+    public void testUnreadableEntriesAreMisses() throws IOException {
+        ProofCache cache = new ProofCache(myFile, THEORIES);
+        cache.put("proved", new CongruenceClassProver.VCProofResult(
+                STATUS.PROVED, "proof"));
+        cache.save();
+
+        Properties entries = load();
+        entries.setProperty("proved.status", "NOT_A_STATUS");
+        entries.setProperty("timeout.status", STATUS.STILL_EVALUATING.name());
+        entries.setProperty("timeout.proof", "timed out");
+        entries.setProperty("missing.status", STATUS.PROVED.name());
+        store(entries);
+
+        cache = new ProofCache(myFile, THEORIES);
+        assertNull(cache.get("proved"));
+        assertNull(cache.get("timeout"));
+        assertNull(cache.get("missing"));
+    }
+
+    @Test
+    public void testMalformedFileStartsEmpty() throws IOException {
+        OutputStream out = new FileOutputStream(myFile);
+        try {
+            out.write("proved.status=\\u00zz\n".getBytes("ISO-8859-1"));
+        }
+        finally {
+            out.close();
+        }
+
+        ProofCache cache = new ProofCache(myFile, THEORIES);
+        assertNull(cache.get("proved"));
+    }
+
+    private Properties load() throws IOException {
+        Properties result = new Properties();
+        InputStream in = new FileInputStream(myFile);
+        try {
+            result.load(in);
+        }
+        finally {
+            in.close();
+        }
+        return result;
+    }
+
+    private void store(Properties entries) throws IOException {
+        OutputStream out = new FileOutputStream(myFile);
+        try {
+            entries.store(out, null);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
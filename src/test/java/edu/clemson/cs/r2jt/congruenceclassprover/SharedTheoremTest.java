@@ -0,0 +1,162 @@
+/**
+ * SharedTheoremTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.Antecedent;
+import edu.clemson.cs.r2jt.rewriteprover.Consequent;
+import edu.clemson.cs.r2jt.rewriteprover.VC;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Theorems are shared by the worker threads of the prover, so applying
+ * them from several threads at once must give the same results as applying
+ * them one VC at a time.</p>
+ */
+public class SharedTheoremTest {
+
+    private static final int VCS = 24;
+    private static final int WORKERS = 4;
+    private static final int ROUNDS = 50;
+
+    private final TypeGraph g = new TypeGraph();
+
+    @Test
+    public void testParallelApplicationMatchesSequential() throws Exception {
+        final List<TheoremCongruenceClosureImpl> theorems =
+                new ArrayList<TheoremCongruenceClosureImpl>();
+        // x + y = y + x
+        theorems.add(new TheoremCongruenceClosureImpl(g, PExp.buildPExp(
+                "forall x Z forall y Z ( + 2 i Z forall y Z forall x Z "
+                        + "( + 2 i Z ( = 2 i B", g)));
+        // x + 0 = x
+        theorems.add(new TheoremCongruenceClosureImpl(g, PExp.buildPExp(
+                "forall x Z 0 Z ( + 2 i Z forall x Z ( = 2 i B", g)));
+
+        final List<VC> vcs = new ArrayList<VC>();
+        for (int i = 0; i < VCS; i++) {
+            vcs.add(buildVC(i));
+        }
+
+        final List<String> expected = new ArrayList<String>();
+        for (VC vc : vcs) {
+            expected.add(apply(theorems, vc));
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(WORKERS);
+        List<Future<List<String>>> workers =
+                new ArrayList<Future<List<String>>>();
+        try {
+            for (int w = 0; w < WORKERS; w++) {
+                final int offset = w * VCS / WORKERS;
+                workers.add(pool.submit(new Callable<List<String>>() {
+
+                    @Override
+                    public List<String> call() {
+                        List<String> mismatches = new ArrayList<String>();
+                        for (int round = 0; round < ROUNDS; round++) {
+                            for (int i = 0; i < VCS; i++) {
+                                int v = (i + offset) % VCS;
+                                String actual = apply(theorems, vcs.get(v));
+                                if (!actual.equals(expected.get(v))) {
+                                    mismatches.add(actual);
+                                }
+                            }
+                        }
+                        return mismatches;
+                    }
+                }));
+            }
+
+            for (Future<List<String>> worker : workers) {
+                assertEquals(new ArrayList<String>(), worker.get());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        for (String e : expected) {
+            assertTrue(
+                    e,
+                    e
+                            .startsWith(VerificationConditionCongruenceClosureImpl.STATUS.PROVED
+                                    .toString()));
+        }
+    }
+
+    /**
+     * <p><code>(a_i + c_i) + 0 = b_i</code> implies
+     * <code>c_i + a_i = b_i</code>, which needs both theorems, bound
+     * differently for each <code>i</code>.</p>
+     */
+    private VC buildVC(int i) {
+        String a = "a_" + i + " Z";
+        String b = "b_" + i + " Z";
+        String c = "c_" + i + " Z";
+
+        PExp antecedent =
+                PExp.buildPExp(a + " " + c + " ( + 2 i Z 0 Z ( + 2 i Z " + b
+                        + " ( = 2 i B", g);
+        PExp consequent =
+                PExp.buildPExp(c + " " + a + " ( + 2 i Z " + b + " ( = 2 i B",
+                        g);
+
+        return new VC("" + i, new Antecedent(antecedent), new Consequent(
+                consequent));
+    }
+
+    /**
+     * <p>Applies every theorem to a fresh copy of <code>vc</code> until
+     * nothing changes, and returns the resulting status followed by every
+     * expression inserted along the way.</p>
+     */
+    private String apply(List<TheoremCongruenceClosureImpl> theorems, VC vc) {
+        VerificationConditionCongruenceClosureImpl vcc =
+                new VerificationConditionCongruenceClosureImpl(g, vc);
+        long endTime = Long.MAX_VALUE;
+        StringBuilder inserted = new StringBuilder();
+
+        boolean changed = true;
+        while (changed
+                && vcc.isProved() == VerificationConditionCongruenceClosureImpl.STATUS.STILL_EVALUATING) {
+            changed = false;
+            for (TheoremCongruenceClosureImpl t : theorems) {
+                List<InsertExpWithJustification> instantiated =
+                        t.applyTo(vcc, endTime);
+                if (instantiated == null) {
+                    continue;
+                }
+                for (InsertExpWithJustification e : instantiated) {
+                    String change =
+                            vcc.getConjunct().addExpressionAndTrackChanges(
+                                    e.m_PExp, endTime, e.m_Justification);
+                    if (!change.equals("")) {
+                        changed = true;
+                        inserted.append("\n").append(e.m_PExp);
+                    }
+                }
+            }
+        }
+
+        return vcc.isProved() + inserted.toString();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * StructuralPExpKeyTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PAlternatives;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PLambda;
+import edu.clemson.cs.r2jt.rewriteprover.immutableadts.SingletonImmutableList;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.Collections;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Separately built expressions with the same structure are the same key,
+ * while <code>PExp.equals()</code> keeps its own meaning.</p>
+ */
+public class StructuralPExpKeyTest {
+
+    private final TypeGraph g = new TypeGraph();
+
+    @Test
+    public void testSymbols() {
+        assertSameKey(PExp.buildPExp("a Z b Z ( + 2 i Z", g), PExp.buildPExp(
+                "a Z b Z ( + 2 i Z", g));
+        assertDifferentKey(PExp.buildPExp("a Z b Z ( + 2 i Z", g), PExp
+                .buildPExp("b Z a Z ( + 2 i Z", g));
+    }
+
+    @Test
+    public void testLambdas() {
+        PExp first = lambda("x", "x Z 1 Z ( + 2 i Z");
+        PExp second = lambda("x", "x Z 1 Z ( + 2 i Z");
+
+        assertFalse(first.equals(second));
+        assertSameKey(first, second);
+
+        assertDifferentKey(first, lambda("y", "x Z 1 Z ( + 2 i Z"));
+        assertDifferentKey(first, lambda("x", "x Z 0 Z ( + 2 i Z"));
+    }
+
+    @Test
+    public void testAlternatives() {
+        PExp first = alternatives("p B", "a Z", "b Z");
+        PExp second = alternatives("p B", "a Z", "b Z");
+
+        assertFalse(first.equals(second));
+        assertSameKey(first, second);
+
+        assertDifferentKey(first, alternatives("q B", "a Z", "b Z"));
+        assertDifferentKey(first, alternatives("p B", "b Z", "a Z"));
+    }
+
+    private PExp lambda(String parameter, String body) {
+        return new PLambda(new SingletonImmutableList<PLambda.Parameter>(
+                new PLambda.Parameter(parameter, g.Z)), PExp.buildPExp(body, g));
+    }
+
+    private PExp alternatives(String condition, String result, String otherwise) {
+        return new PAlternatives(Collections.singletonList(PExp.buildPExp(
+                condition, g)), Collections.singletonList(PExp.buildPExp(
+                result, g)), PExp.buildPExp(otherwise, g), g.Z, null);
+    }
+
+    private static void assertSameKey(PExp a, PExp b) {
+        StructuralPExpKey aKey = new StructuralPExpKey(a);
+        StructuralPExpKey bKey = new StructuralPExpKey(b);
+
+        assertEquals(aKey, bKey);
+        assertEquals(aKey.hashCode(), bKey.hashCode());
+    }
+
+    private static void assertDifferentKey(PExp a, PExp b) {
+        assertFalse(new StructuralPExpKey(a).equals(new StructuralPExpKey(b)));
+    }
+}
@@ -0,0 +1,175 @@
+/**
+ * TheoremBindingsTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.congruenceclassprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.Antecedent;
+import edu.clemson.cs.r2jt.rewriteprover.Consequent;
+import edu.clemson.cs.r2jt.rewriteprover.VC;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Rolling the shared bindings back to a mark must leave exactly the
+ * bindings a <code>SearchBox</code> used to copy when it was made, and
+ * matching theorems through them must bind the same symbols as before.</p>
+ */
+public class TheoremBindingsTest {
+
+    // x + y = y + x
+    private static final String COMMUTATIVITY =
+            "forall x Z forall y Z ( + 2 i Z forall y Z forall x Z "
+                    + "( + 2 i Z ( = 2 i B";
+
+    // x + 0 = x
+    private static final String IDENTITY =
+            "forall x Z 0 Z ( + 2 i Z forall x Z ( = 2 i B";
+
+    // (x <= y and y <= z) implies x <= z
+    private static final String TRANSITIVITY =
+            "forall x Z forall y Z ( <= 2 i B forall y Z forall z Z "
+                    + "( <= 2 i B ( and 2 i B forall x Z forall z Z "
+                    + "( <= 2 i B ( implies 2 i B";
+
+    // x * (y + z) = x * y + x * z
+    private static final String DISTRIBUTIVITY =
+            "forall x Z forall y Z forall z Z ( + 2 i Z ( * 2 i Z "
+                    + "forall x Z forall y Z ( * 2 i Z forall x Z forall z Z "
+                    + "( * 2 i Z ( + 2 i Z ( = 2 i B";
+
+    private final TypeGraph g = new TypeGraph();
+
+    @Test
+    public void testRollBackRestoresMarkedBindings() {
+        Registry theoremRegistry = new Registry(g);
+        int x = theoremRegistry.addSymbol("x", g.Z, Registry.Usage.FORALL);
+        int y = theoremRegistry.addSymbol("y", g.Z, Registry.Usage.FORALL);
+        int zero = theoremRegistry.addSymbol("0", g.Z, Registry.Usage.LITERAL);
+        int created = theoremRegistry.makeSymbol(g.Z, false);
+
+        Registry vcRegistry = new Registry(g);
+        int a = vcRegistry.addSymbol("a", g.Z, Registry.Usage.LITERAL);
+        int b = vcRegistry.addSymbol("b", g.Z, Registry.Usage.LITERAL);
+        int c = vcRegistry.addSymbol("c", g.Z, Registry.Usage.LITERAL);
+
+        TheoremBindings bindings = new TheoremBindings(theoremRegistry);
+        assertTrue(bindings.isVariable(x));
+        assertTrue(bindings.isVariable(created));
+        assertFalse(bindings.isVariable(zero));
+
+        // Every variable starts out unbound, which the old maps wrote as ""
+        HashMap<String, String> unbound = bindings.toMap(vcRegistry);
+        assertEquals(expected(theoremRegistry, "x", "", "y", "", created, ""),
+                unbound);
+
+        int outer = bindings.mark();
+        bindings.bind(x, a);
+        HashMap<String, String> afterOuter = bindings.toMap(vcRegistry);
+        assertEquals(expected(theoremRegistry, "x", "a", "y", "", created, ""),
+                afterOuter);
+
+        // A nested box binds more, then gives up
+        int inner = bindings.mark();
+        bindings.bind(y, b);
+        bindings.bind(created, c);
+        assertEquals(b, bindings.get(y));
+        assertEquals(
+                expected(theoremRegistry, "x", "a", "y", "b", created, "c"),
+                bindings.toMap(vcRegistry));
+
+        bindings.rollBack(inner);
+        assertEquals(afterOuter, bindings.toMap(vcRegistry));
+        assertEquals(-1, bindings.get(y));
+
+        // The slots are free to be bound differently the next time round
+        bindings.bind(y, c);
+        assertEquals(
+                expected(theoremRegistry, "x", "a", "y", "c", created, ""),
+                bindings.toMap(vcRegistry));
+
+        bindings.rollBack(outer);
+        assertEquals(unbound, bindings.toMap(vcRegistry));
+    }
+
+    /**
+     * <p>The expected instantiations were produced by matching with the
+     * copied string maps, before <code>TheoremBindings</code>.</p>
+     */
+    @Test
+    public void testApplyToBindsAsBefore() {
+        // a <= b and b <= c and c <= d
+        String chain =
+                "a Z b Z ( <= 2 i B b Z c Z ( <= 2 i B ( and 2 i B "
+                        + "c Z d Z ( <= 2 i B ( and 2 i B";
+        assertApplied(TRANSITIVITY, chain, "(b <= d)", "(a <= c)");
+        assertApplied(COMMUTATIVITY, chain);
+
+        // f(f(a)) = b and (a + 0) + c = b
+        String nested =
+                "a Z ( f 1 i Z ( f 1 i Z b Z ( = 2 i B a Z 0 Z ( + 2 i Z "
+                        + "c Z ( + 2 i Z b Z ( = 2 i B ( and 2 i B";
+        // \u00a2c002 is a class the VC made for one of its subterms
+        assertApplied(COMMUTATIVITY, nested,
+                "((\u00a2c002 + c) = (c + \u00a2c002))", "((a + 0) = (0 + a))");
+        assertApplied(IDENTITY, nested, "((a + 0) = a)");
+        assertApplied(TRANSITIVITY, nested);
+
+        // a * (b + c) = d and b + a = e
+        String product =
+                "a Z b Z c Z ( + 2 i Z ( * 2 i Z d Z ( = 2 i B "
+                        + "b Z a Z ( + 2 i Z e Z ( = 2 i B ( and 2 i B";
+        assertApplied(DISTRIBUTIVITY, product,
+                "((a * (b + c)) = ((a * b) + (a * c)))");
+        assertApplied(COMMUTATIVITY, product, "((b + c) = (c + b))",
+                "((b + a) = (a + b))");
+        assertApplied(IDENTITY, product);
+
+        // a <= a, so x, y and z all bind to a
+        assertApplied(TRANSITIVITY, "a Z a Z ( <= 2 i B", "(a <= a)");
+    }
+
+    private void assertApplied(String theorem, String antecedent,
+            String... inserted) {
+        VC vc =
+                new VC("test", new Antecedent(PExp.buildPExp(antecedent, g)),
+                        new Consequent(PExp.buildPExp("a Z b Z ( = 2 i B", g)));
+        List<InsertExpWithJustification> result =
+                new TheoremCongruenceClosureImpl(g, PExp.buildPExp(theorem, g))
+                        .applyTo(
+                                new VerificationConditionCongruenceClosureImpl(
+                                        g, vc), Long.MAX_VALUE);
+
+        List<String> actual = new ArrayList<String>();
+        if (result != null) {
+            for (InsertExpWithJustification e : result) {
+                actual.add(e.m_PExp.toString());
+            }
+        }
+        assertEquals(Arrays.asList(inserted), actual);
+    }
+
+    private static HashMap<String, String> expected(Registry theoremRegistry,
+            String x, String xValue, String y, String yValue, int created,
+            String createdValue) {
+        HashMap<String, String> result = new HashMap<String, String>();
+        result.put(x, xValue);
+        result.put(y, yValue);
+        result.put(theoremRegistry.getSymbolForIndex(created), createdValue);
+        return result;
+    }
+}
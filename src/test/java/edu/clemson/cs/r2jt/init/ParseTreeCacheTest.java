@@ -0,0 +1,142 @@
+/**
+ * ParseTreeCacheTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.init;
+
+import edu.clemson.cs.r2jt.parsing.RParser;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.antlr.runtime.CommonToken;
+import org.antlr.runtime.tree.CommonTree;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>A tree read back from the cache must look the same as the parsed one to
+ * everything that builds a <code>ModuleDec</code> from it.</p>
+ */
+public class ParseTreeCacheTest {
+
+    private File myDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        myDirectory = File.createTempFile("parsecache", "");
+        assertTrue(myDirectory.delete());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = myDirectory.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+        myDirectory.delete();
+    }
+
+    @Test
+    public void testRoundTrip() {
+        // A nil root, as the parser builds for several top-level trees
+        CommonTree tree = new CommonTree();
+        CommonTree facility = node(RParser.FACILITY, "Facility", 1, 0);
+        facility.addChild(node(RParser.IDENTIFIER, "Stack_Fac", 1, 9));
+        facility.addChild(node(RParser.IDENTIFIER, "Stack_Template", 2, 4));
+        tree.addChild(facility);
+        tree.addChild(node(RParser.END, null, 3, 0));
+
+        String key = ParseTreeCache.key("Facility Stack_Fac ...");
+        new ParseTreeCache(myDirectory).put(key, tree);
+        CommonTree result = new ParseTreeCache(myDirectory).get(key);
+
+        assertNotNull(result);
+        assertSameTree(tree, result);
+    }
+
+    @Test
+    public void testMissing() {
+        assertNull(new ParseTreeCache(myDirectory).get(ParseTreeCache
+                .key("anything")));
+    }
+
+    @Test
+    public void testKeys() {
+        assertEquals(ParseTreeCache.key("a"), ParseTreeCache.key("a"));
+        assertFalse(ParseTreeCache.key("a").equals(ParseTreeCache.key("b")));
+    }
+
+    @Test
+    public void testUnreadableFilesAreMisses() throws IOException {
+        ParseTreeCache cache = new ParseTreeCache(myDirectory);
+        CommonTree tree = node(RParser.IDENTIFIER, "x", 1, 0);
+        tree.addChild(node(RParser.IDENTIFIER, "y", 1, 2));
+
+        String truncated = ParseTreeCache.key("truncated");
+        cache.put(truncated, tree);
+        File file = new File(myDirectory, truncated + ".tree");
+        long length = file.length();
+        byte[] half = new byte[(int) (length / 2)];
+        InputStream in = new FileInputStream(file);
+        try {
+            assertEquals(half.length, in.read(half));
+        }
+        finally {
+            in.close();
+        }
+        write(file, half);
+        assertNull(cache.get(truncated));
+
+        String garbage = ParseTreeCache.key("garbage");
+        write(new File(myDirectory, garbage + ".tree"), new byte[] { 0, 0, 0,
+                1, 1, 0x7f, 0x7f, 0x7f, 0x7f });
+        assertNull(cache.get(garbage));
+    }
+
+    private static CommonTree node(int type, String text, int line,
+            int charPositionInLine) {
+        CommonToken token = new CommonToken(type, text);
+        token.setLine(line);
+        token.setCharPositionInLine(charPositionInLine);
+        return new CommonTree(token);
+    }
+
+    private static void assertSameTree(CommonTree expected, CommonTree actual) {
+        assertEquals(expected.isNil(), actual.isNil());
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getText(), actual.getText());
+        assertEquals(expected.getLine(), actual.getLine());
+        assertEquals(expected.getCharPositionInLine(), actual
+                .getCharPositionInLine());
+        assertEquals(expected.getChildCount(), actual.getChildCount());
+        for (int i = 0; i < expected.getChildCount(); i++) {
+            assertSameTree((CommonTree) expected.getChild(i),
+                    (CommonTree) actual.getChild(i));
+        }
+    }
+
+    private static void write(File file, byte[] contents) throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(contents);
+        }
+        finally {
+            out.close();
+        }
+    }
+}
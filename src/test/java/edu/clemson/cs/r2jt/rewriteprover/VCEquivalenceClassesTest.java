@@ -0,0 +1,120 @@
+/**
+ * VCEquivalenceClassesTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class VCEquivalenceClassesTest {
+
+    private final TypeGraph g = new TypeGraph();
+
+    @Test
+    public void testRenamedFreeVariables() {
+        // x + y = z |- y + x = z
+        // a + b = c |- b + a = c
+        assertSameClass(vc("x Z y Z ( + 2 i Z z Z ( = 2 i B",
+                "y Z x Z ( + 2 i Z z Z ( = 2 i B"), vc(
+                "a Z b Z ( + 2 i Z c Z ( = 2 i B",
+                "b Z a Z ( + 2 i Z c Z ( = 2 i B"));
+    }
+
+    @Test
+    public void testRenamedQuantifiedVariables() {
+        assertSameClass(vc("forall x Z 0 Z ( = 2 i B", "x Z 0 Z ( = 2 i B"),
+                vc("forall y Z 0 Z ( = 2 i B", "y Z 0 Z ( = 2 i B"));
+    }
+
+    @Test
+    public void testRenamingClash() {
+        // x + y = y cannot be renamed to a + a = a, nor the other way
+        assertDifferentClasses(vc("x Z y Z ( + 2 i Z y Z ( = 2 i B",
+                "x Z y Z ( = 2 i B"), vc("a Z a Z ( + 2 i Z a Z ( = 2 i B",
+                "a Z a Z ( = 2 i B"));
+        assertDifferentClasses(vc("a Z a Z ( + 2 i Z a Z ( = 2 i B",
+                "a Z a Z ( = 2 i B"), vc("x Z y Z ( + 2 i Z y Z ( = 2 i B",
+                "x Z y Z ( = 2 i B"));
+
+        // x renamed to a in the antecedent must stay a in the consequent
+        assertDifferentClasses(vc("x Z y Z ( = 2 i B", "x Z 0 Z ( = 2 i B"),
+                vc("a Z b Z ( = 2 i B", "b Z 0 Z ( = 2 i B"));
+    }
+
+    @Test
+    public void testTypeMismatch() {
+        assertDifferentClasses(vc("x Z y Z ( = 2 i B", "x Z y Z ( = 2 i B"),
+                vc("p B q B ( = 2 i B", "p B q B ( = 2 i B"));
+    }
+
+    @Test
+    public void testQuantifiedAndFreeVariablesStayApart() {
+        assertDifferentClasses(vc("forall x Z 0 Z ( = 2 i B",
+                "x Z 0 Z ( = 2 i B"), vc("y Z 0 Z ( = 2 i B",
+                "y Z 0 Z ( = 2 i B"));
+    }
+
+    @Test
+    public void testLiteralsAreNotRenamed() {
+        assertDifferentClasses(vc("x Z 0 Z ( = 2 i B", "x Z 0 Z ( = 2 i B"),
+                vc("x Z 1 Z ( = 2 i B", "x Z 1 Z ( = 2 i B"));
+    }
+
+    @Test
+    public void testTheoremNamesAreNotRenamed() {
+        Set<String> fixedNames = new HashSet<String>();
+        fixedNames.add("Max_Depth");
+
+        List<VC> vcs = new ArrayList<VC>();
+        vcs.add(vc("x Z Max_Depth Z ( <= 2 i B", "x Z Max_Depth Z ( = 2 i B"));
+        vcs.add(vc("x Z Depth Z ( <= 2 i B", "x Z Depth Z ( = 2 i B"));
+        vcs.add(vc("x Z Bound Z ( <= 2 i B", "x Z Bound Z ( = 2 i B"));
+
+        VCEquivalenceClasses classes =
+                new VCEquivalenceClasses(vcs, fixedNames);
+        assertEquals(2, classes.getRepresentatives().size());
+        assertEquals(0, classes.getRepresentativeIndex(0));
+        assertEquals(1, classes.getRepresentativeIndex(1));
+        assertEquals(1, classes.getRepresentativeIndex(2));
+    }
+
+    private VC vc(String antecedent, String consequent) {
+        return new VC("test", new Antecedent(PExp.buildPExp(antecedent, g)),
+                new Consequent(PExp.buildPExp(consequent, g)));
+    }
+
+    private static VCEquivalenceClasses classify(VC vc1, VC vc2) {
+        List<VC> vcs = new ArrayList<VC>();
+        vcs.add(vc1);
+        vcs.add(vc2);
+        return new VCEquivalenceClasses(vcs, Collections.<String> emptySet());
+    }
+
+    private static void assertSameClass(VC vc1, VC vc2) {
+        VCEquivalenceClasses classes = classify(vc1, vc2);
+        assertEquals(1, classes.getRepresentatives().size());
+        assertEquals(0, classes.getRepresentativeIndex(1));
+    }
+
+    private static void assertDifferentClasses(VC vc1, VC vc2) {
+        VCEquivalenceClasses classes = classify(vc1, vc2);
+        assertEquals(2, classes.getRepresentatives().size());
+        assertEquals(1, classes.getRepresentativeIndex(1));
+    }
+}
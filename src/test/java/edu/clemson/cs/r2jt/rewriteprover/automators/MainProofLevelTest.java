@@ -0,0 +1,151 @@
+/**
+ * MainProofLevelTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.automators;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.immutableadts.ArrayBackedImmutableList;
+import edu.clemson.cs.r2jt.rewriteprover.justifications.Given;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.model.ProofStateFingerprint;
+import edu.clemson.cs.r2jt.rewriteprover.model.Theorem;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Only proof states whose search was never cut short by a cycle may be
+ * recorded as explored.</p>
+ */
+public class MainProofLevelTest {
+
+    // x + y = y + x
+    private static final String COMMUTATIVITY =
+            "forall x Z forall y Z ( + 2 i Z forall y Z forall x Z "
+                    + "( + 2 i Z ( = 2 i B";
+
+    // x + 0 = x
+    private static final String IDENTITY =
+            "forall x Z 0 Z ( + 2 i Z forall x Z ( = 2 i B";
+
+    // a + c = b
+    private static final String A_PLUS_C = "a Z c Z ( + 2 i Z b Z ( = 2 i B";
+
+    // c + a = b
+    private static final String C_PLUS_A = "c Z a Z ( + 2 i Z b Z ( = 2 i B";
+
+    private final TypeGraph g = new TypeGraph();
+
+    private final List<Theorem> myTheorems = new ArrayList<Theorem>();
+    private final List<Transformation> myTransformations =
+            new ArrayList<Transformation>();
+
+    private final Map<ProofStateFingerprint, Integer> myExplored =
+            new HashMap<ProofStateFingerprint, Integer>();
+
+    @Test
+    public void testLevelWithoutCycleIsRecorded() {
+        addTheorem(COMMUTATIVITY);
+
+        PerVCProverModel model = buildModel(A_PLUS_C);
+        assertFalse(search(model, 0));
+
+        assertEquals(Integer.valueOf(0), myExplored.get(fingerprint(A_PLUS_C)));
+    }
+
+    @Test
+    public void testLevelCutByCycleIsNotRecorded() {
+        addTheorem(COMMUTATIVITY);
+
+        // a + c = b becomes c + a = b, which becomes a + c = b again
+        PerVCProverModel model = buildModel(A_PLUS_C);
+        assertFalse(search(model, 2));
+
+        assertFalse(myExplored.containsKey(fingerprint(A_PLUS_C)));
+        assertFalse(myExplored.containsKey(fingerprint(C_PLUS_A)));
+    }
+
+    @Test
+    public void testStateReachedByTwoPaths() {
+        addTheorem(COMMUTATIVITY);
+        addTheorem(IDENTITY);
+
+        // (a + 0) + c = b reaches c + a = b both through a + c = b and
+        // through c + (a + 0) = b, and from either one leads back to a state
+        // already on the stack
+        PerVCProverModel model =
+                buildModel("a Z 0 Z ( + 2 i Z c Z ( + 2 i Z b Z ( = 2 i B");
+        assertFalse(search(model, 2));
+
+        assertFalse(myExplored.containsKey(fingerprint(A_PLUS_C)));
+        assertFalse(myExplored.containsKey(fingerprint(C_PLUS_A)));
+    }
+
+    @Test
+    public void testProofThroughStateReachedByTwoPaths() {
+        addTheorem(COMMUTATIVITY);
+        addTheorem(IDENTITY);
+
+        // (a + 0) + c = c + a
+        PerVCProverModel model =
+                buildModel("a Z 0 Z ( + 2 i Z c Z ( + 2 i Z "
+                        + "c Z a Z ( + 2 i Z ( = 2 i B");
+        assertTrue(search(model, 2));
+    }
+
+    private void addTheorem(String description) {
+        Theorem t = new Theorem(PExp.buildPExp(description, g), new Given());
+        myTheorems.add(t);
+        myTransformations.addAll(t.getTransformations());
+    }
+
+    /**
+     * <p>Searches <code>model</code> until it is proved or the search space
+     * is exhausted.</p>
+     *
+     * @return Whether <code>model</code> was proved.
+     */
+    private boolean search(PerVCProverModel model, int tetherLength) {
+        Deque<Automator> stack = new ArrayDeque<Automator>();
+        stack.push(new MainProofLevel(model, tetherLength, myTransformations,
+                new HashSet<ProofStateFingerprint>(), myExplored));
+
+        while (!stack.isEmpty() && !model.noConsequents()) {
+            stack.peek().step(stack, model);
+        }
+
+        return model.noConsequents();
+    }
+
+    private ProofStateFingerprint fingerprint(String consequent) {
+        return buildModel(consequent).getProofStateFingerprint();
+    }
+
+    private PerVCProverModel buildModel(String consequent) {
+        PerVCProverModel result =
+                new PerVCProverModel(g, "test", Collections.<PExp> emptyList(),
+                        Collections
+                                .singletonList(PExp.buildPExp(consequent, g)),
+                        new ArrayBackedImmutableList<Theorem>(myTheorems));
+        result.setChangeEventMode(PerVCProverModel.ChangeEventMode.NEVER);
+        return result;
+    }
+}
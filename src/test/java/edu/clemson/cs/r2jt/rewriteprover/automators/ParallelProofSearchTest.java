@@ -0,0 +1,108 @@
+/**
+ * ParallelProofSearchTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.automators;
+
+import edu.clemson.cs.r2jt.rewriteprover.immutableadts.ArrayBackedImmutableList;
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.justifications.Given;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel;
+import edu.clemson.cs.r2jt.rewriteprover.model.Theorem;
+import edu.clemson.cs.r2jt.rewriteprover.transformations.Transformation;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Searching on several threads must find a proof exactly when the
+ * sequential search does.</p>
+ */
+public class ParallelProofSearchTest {
+
+    private static final int TETHER_LENGTH = 3;
+    private static final int WORKERS = 4;
+
+    private final TypeGraph g = new TypeGraph();
+
+    private final List<Theorem> myTheorems = new ArrayList<Theorem>();
+    private final List<Transformation> myTransformations =
+            new ArrayList<Transformation>();
+
+    public ParallelProofSearchTest() {
+        // x + y = y + x
+        addTheorem("forall x Z forall y Z ( + 2 i Z forall y Z forall x Z "
+                + "( + 2 i Z ( = 2 i B");
+        // x + 0 = x
+        addTheorem("forall x Z 0 Z ( + 2 i Z forall x Z ( = 2 i B");
+        // x * 1 = x
+        addTheorem("forall x Z 1 Z ( * 2 i Z forall x Z ( = 2 i B");
+    }
+
+    @Test
+    public void testProvedAsSequential() {
+        // c + (a + 0) = a + c
+        assertSameResult("c Z a Z 0 Z ( + 2 i Z ( + 2 i Z "
+                + "a Z c Z ( + 2 i Z ( = 2 i B", true);
+        // (a * 1) + (c + 0) = c + a
+        assertSameResult("a Z 1 Z ( * 2 i Z c Z 0 Z ( + 2 i Z ( + 2 i Z "
+                + "c Z a Z ( + 2 i Z ( = 2 i B", true);
+    }
+
+    @Test
+    public void testExhaustedAsSequential() {
+        // a + c = b
+        assertSameResult("a Z c Z ( + 2 i Z b Z ( = 2 i B", false);
+        // (a * 1) + c = c + b
+        assertSameResult("a Z 1 Z ( * 2 i Z c Z ( + 2 i Z "
+                + "c Z b Z ( + 2 i Z ( = 2 i B", false);
+    }
+
+    private void addTheorem(String description) {
+        Theorem t = new Theorem(PExp.buildPExp(description, g), new Given());
+        myTheorems.add(t);
+        myTransformations.addAll(t.getTransformations());
+    }
+
+    private void assertSameResult(String consequent, boolean provable) {
+        PerVCProverModel sequential = buildModel(consequent);
+        Deque<Automator> stack = new ArrayDeque<Automator>();
+        stack.push(new MainProofLevel(sequential, TETHER_LENGTH,
+                myTransformations));
+        while (!stack.isEmpty() && !sequential.noConsequents()) {
+            stack.peek().step(stack, sequential);
+        }
+
+        PerVCProverModel parallel = buildModel(consequent);
+        boolean over =
+                new ParallelProofSearch(null, TETHER_LENGTH, myTransformations,
+                        WORKERS).search(parallel, Long.MAX_VALUE);
+
+        assertTrue(over);
+        assertEquals(provable, sequential.noConsequents());
+        assertEquals(sequential.noConsequents(), parallel.noConsequents());
+    }
+
+    private PerVCProverModel buildModel(String consequent) {
+        PerVCProverModel result =
+                new PerVCProverModel(g, "test", Collections.<PExp> emptyList(),
+                        Collections
+                                .singletonList(PExp.buildPExp(consequent, g)),
+                        new ArrayBackedImmutableList<Theorem>(myTheorems));
+        result.setChangeEventMode(PerVCProverModel.ChangeEventMode.NEVER);
+        return result;
+    }
+}
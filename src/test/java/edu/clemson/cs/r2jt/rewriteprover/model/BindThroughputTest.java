@@ -0,0 +1,201 @@
+/**
+ * BindThroughputTest.java
+ * ---------------------------------
+ * Copyright (c) 2014
+ * RESOLVE Software Research Group
+ * School of Computing
+ * Clemson University
+ * All rights reserved.
+ * ---------------------------------
+ * This file is subject to the terms and conditions defined in
+ * file 'LICENSE.txt', which is part of this source code package.
+ */
+package edu.clemson.cs.r2jt.rewriteprover.model;
+
+import edu.clemson.cs.r2jt.rewriteprover.absyn.PExp;
+import edu.clemson.cs.r2jt.rewriteprover.immutableadts.ArrayBackedImmutableList;
+import edu.clemson.cs.r2jt.rewriteprover.justifications.Given;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel.AbstractBinder;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel.BindResult;
+import edu.clemson.cs.r2jt.rewriteprover.model.PerVCProverModel.Binder;
+import edu.clemson.cs.r2jt.typereasoning.TypeGraph;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * <p>Runs {@link PerVCProverModel#bind(Set) bind()} over a generated model
+ * and reports how many sites the binders consider per second. Most sites are
+ * rejected, so this measures the cost of a failed bind. The workload is
+ * fixed, so the number of results checks that binding still accepts the
+ * same sites.</p>
+ *
+ * <p>Runs for <code>bind.millis</code> milliseconds, 500 by default, after
+ * as long again to warm up.</p>
+ */
+public class BindThroughputTest {
+
+    private static final int ANTECEDENTS = 60;
+    private static final String[] CONSTANTS = { "a", "b", "c", "d", "0", "1" };
+
+    private final TypeGraph g = new TypeGraph();
+    private final Random myRandom = new Random(21);
+
+    private long myAttempts;
+
+    @Test
+    public void testBindThroughput() {
+        PerVCProverModel model = buildModel();
+
+        // p <= q and q <= r, over the antecedents and the library
+        Set<Binder> binders = new LinkedHashSet<Binder>();
+        binders.add(new CountingBinder(PExp.buildPExp(
+                "forall p Z forall q Z ( <= 2 i B", g)));
+        binders.add(new CountingBinder(PExp.buildPExp(
+                "forall q Z forall r Z ( <= 2 i B", g)));
+
+        long millis = Long.getLong("bind.millis", 500);
+
+        int results = bindAll(model, binders);
+        assertEquals(57, results);
+
+        run(model, binders, millis);
+        long start = System.nanoTime();
+        int rounds = run(model, binders, millis);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.println("BindThroughputTest: " + rounds + " rounds, "
+                + (myAttempts * 1000000000L / elapsed)
+                + " bind attempts per second");
+    }
+
+    /**
+     * <p>Binds repeatedly for <code>millis</code> milliseconds, counting
+     * attempts from zero.</p>
+     *
+     * @return The number of times every result was found.
+     */
+    private int run(PerVCProverModel model, Set<Binder> binders, long millis) {
+        long end = System.currentTimeMillis() + millis;
+        int rounds = 0;
+
+        myAttempts = 0;
+        while (System.currentTimeMillis() < end) {
+            bindAll(model, binders);
+            rounds++;
+        }
+
+        return rounds;
+    }
+
+    private static int bindAll(PerVCProverModel model, Set<Binder> binders) {
+        int result = 0;
+
+        Iterator<BindResult> results = model.bind(binders);
+        while (results.hasNext()) {
+            results.next();
+            result++;
+        }
+
+        return result;
+    }
+
+    private PerVCProverModel buildModel() {
+        List<PExp> antecedents = new ArrayList<PExp>();
+        for (int i = 0; i < ANTECEDENTS; i++) {
+            // Orderings between constants chain often enough for the second
+            // binder to accept some sites
+            String antecedent;
+            if (myRandom.nextInt(3) == 0) {
+                antecedent = term(0) + " " + term(0) + " ( <= 2 i B";
+            }
+            else {
+                antecedent = term(2) + " " + term(2) + " ( = 2 i B";
+            }
+            antecedents.add(PExp.buildPExp(antecedent, g));
+        }
+
+        List<Theorem> library = new ArrayList<Theorem>();
+        // x + y = y + x
+        library.add(theorem("forall x Z forall y Z ( + 2 i Z "
+                + "forall y Z forall x Z ( + 2 i Z ( = 2 i B"));
+        // x <= x + 1, which binds but must be skipped as it is quantified
+        library.add(theorem("forall x Z forall x Z 1 Z ( + 2 i Z ( <= 2 i B"));
+        // x * 0 = 0
+        library.add(theorem("forall x Z 0 Z ( * 2 i Z 0 Z ( = 2 i B"));
+        // 0 <= 1
+        library.add(theorem("0 Z 1 Z ( <= 2 i B"));
+
+        return new PerVCProverModel(g, "bind", antecedents, Collections
+                .singletonList(PExp.buildPExp("a Z b Z ( = 2 i B", g)),
+                new ArrayBackedImmutableList<Theorem>(library));
+    }
+
+    private Theorem theorem(String description) {
+        return new Theorem(PExp.buildPExp(description, g), new Given());
+    }
+
+    private String term(int depth) {
+        String result;
+
+        int choice = myRandom.nextInt(4);
+        if (depth == 0 || choice == 0) {
+            result = CONSTANTS[myRandom.nextInt(CONSTANTS.length)] + " Z";
+        }
+        else if (choice == 1) {
+            result = term(depth - 1) + " ( f 1 i Z";
+        }
+        else if (choice == 2) {
+            result = term(depth - 1) + " " + term(depth - 1) + " ( + 2 i Z";
+        }
+        else {
+            result = term(depth - 1) + " " + term(depth - 1) + " ( * 2 i Z";
+        }
+
+        return result;
+    }
+
+    /**
+     * <p>Considers every top-level antecedent and library theorem, as
+     * binders did before the sites were indexed by symbol, and counts
+     * them.</p>
+     */
+    private class CountingBinder extends AbstractBinder {
+
+        public CountingBinder(PExp pattern) {
+            super(pattern);
+        }
+
+        @Override
+        public Iterator<Site> getInterestingSiteVisitor(PerVCProverModel m,
+                List<Site> boundSitesSoFar) {
+            final Iterator<Site> sites =
+                    m.topLevelAntecedentAndGlobalTheoremSiteIterator();
+
+            return new Iterator<Site>() {
+
+                @Override
+                public boolean hasNext() {
+                    return sites.hasNext();
+                }
+
+                @Override
+                public Site next() {
+                    myAttempts++;
+                    return sites.next();
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}